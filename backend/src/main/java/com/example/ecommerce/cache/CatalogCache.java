@@ -0,0 +1,117 @@
+/*
+    Catalog cache.
+    Read-through cache for product reads (category browsing is served by CategorySnapshotIndex).
+    Entries are refreshed in the background once they are older than refresh-after: readers keep
+    getting the last good value while the reload runs, and if the reload fails (database down)
+    until the entry hits expire-after. Catalog writes invalidate the affected entries through
+    the CatalogIndex hooks.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.dto.CacheStatsDto;
+import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.index.CatalogIndex;
+import com.example.ecommerce.mapper.EntityDtoMapper;
+import com.example.ecommerce.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class CatalogCache implements CatalogIndex {
+
+    private final ProductRepository productRepo;
+    private final EntityDtoMapper entityDtoMapper;
+
+    @Value("${catalog.cache.maximum-size:10000}")
+    private long maximumSize;
+    @Value("${catalog.cache.refresh-after:60s}")
+    private Duration refreshAfter;
+    @Value("${catalog.cache.expire-after:1h}")
+    private Duration expireAfter;
+
+    private LoadingCache<Long, ProductDto> products;
+
+    @PostConstruct
+    private void init() {
+        products = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build(new CacheLoader<Long, ProductDto>() {
+                    @Override
+                    public ProductDto load(Long productId) {
+                        return entityDtoMapper.mapProductToDtoBasic(productRepo.findById(productId)
+                                .orElseThrow(() -> new NotFoundException("Product Not Found")));
+                    }
+
+                    // misses of a bulk read are loaded with a single query
+                    @Override
+                    public Map<Long, ProductDto> loadAll(Set<? extends Long> productIds) {
+                        return productRepo.findAllById(List.copyOf(productIds)).stream()
+                                .collect(Collectors.toMap(Product::getId, entityDtoMapper::mapProductToDtoBasic));
+                    }
+                });
+    }
+
+    public ProductDto getProduct(Long productId) {
+        return products.get(productId);
+    }
+
+    // products in the given order, ids that no longer exist are skipped
+    public List<ProductDto> getProducts(List<Long> productIds) {
+        Map<Long, ProductDto> found = products.getAll(productIds);
+        return productIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public List<CacheStatsDto> stats() {
+        return List.of(stats("products", products));
+    }
+
+    @Override
+    public void rebuild(List<Category> categoryList, List<Product> productList) {
+        products.invalidateAll();
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        products.invalidate(product.getId());
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        products.invalidate(productId);
+    }
+
+    private static CacheStatsDto stats(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), stats.loadFailureCount());
+    }
+}
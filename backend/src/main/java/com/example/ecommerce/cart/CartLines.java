@@ -0,0 +1,148 @@
+/*
+    Cart lines, one cart held as parallel primitive arrays.
+    A line is a product id, a quantity and the unit price in cents, with no object per line; the
+    total is kept up to date as lines change rather than summed on every read. Not thread safe, the
+    cart store only touches a cart under its shard lock.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.cart;
+
+import java.util.Arrays;
+
+public final class CartLines {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] unitCents = new long[INITIAL_CAPACITY];
+    private int size;
+    private long totalCents;
+    private long totalQuantity;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long productId(int line) {
+        return productIds[line];
+    }
+
+    public int quantity(int line) {
+        return quantities[line];
+    }
+
+    public long unitCents(int line) {
+        return unitCents[line];
+    }
+
+    public long totalCents() {
+        return totalCents;
+    }
+
+    public long totalQuantity() {
+        return totalQuantity;
+    }
+
+    public int quantityOf(long productId) {
+        int line = indexOf(productId);
+        return line < 0 ? 0 : quantities[line];
+    }
+
+    // sets the quantity of a product at the given unit price, zero removes the line
+    public void set(long productId, int quantity, long cents) {
+        int line = indexOf(productId);
+        if (quantity <= 0) {
+            if (line >= 0) {
+                removeAt(line);
+            }
+            return;
+        }
+        if (line < 0) {
+            if (size == productIds.length) {
+                grow();
+            }
+            line = size++;
+            productIds[line] = productId;
+        } else {
+            totalCents -= quantities[line] * unitCents[line];
+            totalQuantity -= quantities[line];
+        }
+        quantities[line] = quantity;
+        unitCents[line] = cents;
+        totalCents += quantity * cents;
+        totalQuantity += quantity;
+    }
+
+    // takes quantity off a line at its current price, removing it when nothing is left
+    public void subtract(long productId, int quantity) {
+        int line = indexOf(productId);
+        if (line >= 0) {
+            set(productId, quantities[line] - quantity, unitCents[line]);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        totalCents = 0;
+        totalQuantity = 0;
+    }
+
+    // "productId:quantity:cents" per line, comma separated
+    public String encode() {
+        StringBuilder encoded = new StringBuilder(size * 24);
+        for (int line = 0; line < size; line++) {
+            if (line > 0) {
+                encoded.append(',');
+            }
+            encoded.append(productIds[line]).append(':').append(quantities[line]).append(':').append(unitCents[line]);
+        }
+        return encoded.toString();
+    }
+
+    public static CartLines decode(String encoded) {
+        CartLines lines = new CartLines();
+        if (encoded == null || encoded.isEmpty()) {
+            return lines;
+        }
+        for (String line : encoded.split(",")) {
+            String[] parts = line.split(":");
+            lines.set(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        }
+        return lines;
+    }
+
+    private int indexOf(long productId) {
+        // carts are small, a scan beats hashing here
+        for (int line = 0; line < size; line++) {
+            if (productIds[line] == productId) {
+                return line;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int line) {
+        totalCents -= quantities[line] * unitCents[line];
+        totalQuantity -= quantities[line];
+        int last = --size;
+        // order of lines is insertion order, keep it
+        System.arraycopy(productIds, line + 1, productIds, line, last - line);
+        System.arraycopy(quantities, line + 1, quantities, line, last - line);
+        System.arraycopy(unitCents, line + 1, unitCents, line, last - line);
+    }
+
+    private void grow() {
+        int capacity = productIds.length * 2;
+        productIds = Arrays.copyOf(productIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        unitCents = Arrays.copyOf(unitCents, capacity);
+    }
+}
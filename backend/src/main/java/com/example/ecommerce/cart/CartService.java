@@ -0,0 +1,222 @@
+/*
+    Cart service, the server side cart of the logged in user.
+    Lines are priced from the in-memory price book when they are added, and stock is checked against
+    the inventory ledger, so a price or stock problem shows up while shopping instead of at checkout.
+    A cart whose prices no longer match the catalog is repriced line by line the next time it is read.
+    Promotions are applied whenever a cart is shown, coupon ones only when the code comes with it.
+    Checkout takes the priced lines as they are, the order path does not look the products up again.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.cart;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import com.example.ecommerce.cart.PriceBook.ProductPrice;
+import com.example.ecommerce.dto.CartDto;
+import com.example.ecommerce.dto.CartLineDto;
+import com.example.ecommerce.dto.OrderItemRequest;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.inventory.InventoryService;
+import com.example.ecommerce.promotion.CompiledPromotions;
+import com.example.ecommerce.promotion.PromotionBasket;
+import com.example.ecommerce.promotion.PromotionEngine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+@Service
+@RequiredArgsConstructor
+public class CartService {
+
+    private static final int MAX_LINES = 100;
+    private static final int MAX_QUANTITY = 999;
+
+    private final CartStore cartStore;
+    private final PriceBook priceBook;
+    private final InventoryService inventoryService;
+    private final PromotionEngine promotionEngine;
+
+    public CartDto view(Long userId, String couponCode) {
+        String coupon = promotionEngine.coupon(couponCode);
+        CartDto cart = cartStore.read(userId, lines -> isStale(lines) ? null : toDto(lines, coupon));
+        if (cart != null) {
+            return cart;
+        }
+        return cartStore.write(userId, lines -> {
+            reprice(lines);
+            return toDto(lines, coupon);
+        });
+    }
+
+    public CartDto add(Long userId, Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidCredentialsException("Quantity must be positive");
+        }
+        return change(userId, productId, current -> current + quantity);
+    }
+
+    // zero removes the line
+    public CartDto setQuantity(Long userId, Long productId, int quantity) {
+        return change(userId, productId, current -> quantity);
+    }
+
+    public CartDto remove(Long userId, Long productId) {
+        return change(userId, productId, current -> 0);
+    }
+
+    // replaces the whole cart, all lines are checked before any is applied
+    public CartDto replace(Long userId, List<OrderItemRequest> items) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        if (items != null) {
+            for (OrderItemRequest item : items) {
+                if (item.getProductId() == null || item.getQuantity() <= 0) {
+                    throw new InvalidCredentialsException("Every item needs a productId and a positive quantity");
+                }
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        if (quantities.size() > MAX_LINES) {
+            throw new InvalidCredentialsException("A cart holds at most " + MAX_LINES + " products");
+        }
+        Map<Long, ProductPrice> prices = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> prices.put(productId, checked(productId, quantity)));
+
+        return cartStore.write(userId, lines -> {
+            lines.clear();
+            quantities.forEach((productId, quantity) -> lines.set(productId, quantity,
+                    prices.get(productId).cents()));
+            return toDto(lines, null);
+        });
+    }
+
+    public CartDto clear(Long userId) {
+        return cartStore.write(userId, lines -> {
+            lines.clear();
+            return toDto(lines, null);
+        });
+    }
+
+    // the current lines at current prices, for turning the cart into an order
+    public List<CheckoutLine> checkoutLines(Long userId) {
+        return cartStore.write(userId, lines -> {
+            reprice(lines);
+            if (lines.isEmpty()) {
+                throw new InvalidCredentialsException("Cart is empty");
+            }
+            List<CheckoutLine> checkout = new ArrayList<>(lines.size());
+            for (int line = 0; line < lines.size(); line++) {
+                ProductPrice price = priceBook.get(lines.productId(line));
+                if (price == null) {
+                    throw new NotFoundException("Product Not Found: " + lines.productId(line));
+                }
+                checkout.add(new CheckoutLine(price, lines.quantity(line)));
+            }
+            return checkout;
+        });
+    }
+
+    // only what was ordered is taken out, anything added during checkout stays in the cart
+    public void checkedOut(Long userId, List<CheckoutLine> ordered) {
+        cartStore.write(userId, lines -> {
+            ordered.forEach(line -> lines.subtract(line.product().productId(), line.quantity()));
+            return null;
+        });
+    }
+
+    private CartDto change(Long userId, Long productId, IntUnaryOperator quantity) {
+        if (productId == null) {
+            throw new InvalidCredentialsException("Product id is required");
+        }
+        return cartStore.write(userId, lines -> {
+            int current = lines.quantityOf(productId);
+            int next = quantity.applyAsInt(current);
+            if (next <= 0) {
+                lines.set(productId, 0, 0);
+            } else {
+                if (current == 0 && lines.size() >= MAX_LINES) {
+                    throw new InvalidCredentialsException("A cart holds at most " + MAX_LINES + " products");
+                }
+                lines.set(productId, next, checked(productId, next).cents());
+            }
+            reprice(lines);
+            return toDto(lines, null);
+        });
+    }
+
+    // price and stock for a line about to go in, both read from memory
+    private ProductPrice checked(Long productId, int quantity) {
+        if (quantity > MAX_QUANTITY) {
+            throw new InvalidCredentialsException("At most " + MAX_QUANTITY + " of a product per cart");
+        }
+        ProductPrice price = priceBook.get(productId);
+        if (price == null) {
+            throw new NotFoundException("Product Not Found: " + productId);
+        }
+        long available = inventoryService.available(productId);
+        if (available >= 0 && quantity > available) {
+            throw new InvalidCredentialsException("Only " + available + " left in stock for product: " + productId);
+        }
+        return price;
+    }
+
+    private boolean isStale(CartLines lines) {
+        for (int line = 0; line < lines.size(); line++) {
+            ProductPrice price = priceBook.get(lines.productId(line));
+            if (price == null || price.cents() != lines.unitCents(line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // backwards, so removing a line does not shift the ones still to check
+    private void reprice(CartLines lines) {
+        for (int line = lines.size() - 1; line >= 0; line--) {
+            long productId = lines.productId(line);
+            ProductPrice price = priceBook.get(productId);
+            if (price == null) {
+                lines.set(productId, 0, 0);
+            } else if (price.cents() != lines.unitCents(line)) {
+                lines.set(productId, lines.quantity(line), price.cents());
+            }
+        }
+    }
+
+    private CartDto toDto(CartLines lines, String coupon) {
+        ProductPrice[] prices = new ProductPrice[lines.size()];
+        PromotionBasket basket = promotionEngine.basket();
+        for (int line = 0; line < lines.size(); line++) {
+            prices[line] = priceBook.get(lines.productId(line));
+            Long categoryId = prices[line] != null ? prices[line].categoryId() : null;
+            basket.add(lines.productId(line), categoryId != null ? categoryId : CompiledPromotions.NO_CATEGORY,
+                    lines.quantity(line), lines.unitCents(line));
+        }
+        long totalDiscount = promotionEngine.apply(basket, coupon);
+
+        List<CartLineDto> items = new ArrayList<>(lines.size());
+        for (int line = 0; line < lines.size(); line++) {
+            ProductPrice price = prices[line];
+            long discount = basket.discountCents(line);
+            items.add(new CartLineDto(lines.productId(line),
+                    price != null ? price.name() : null,
+                    price != null ? price.imageUrl() : null,
+                    PriceBook.fromCents(lines.unitCents(line)),
+                    lines.quantity(line),
+                    PriceBook.fromCents(discount),
+                    PriceBook.fromCents(lines.unitCents(line) * lines.quantity(line) - discount)));
+        }
+        return new CartDto(items, lines.totalQuantity(), PriceBook.fromCents(totalDiscount),
+                PriceBook.fromCents(lines.totalCents() - totalDiscount));
+    }
+
+    public record CheckoutLine(ProductPrice product, int quantity) {
+    }
+}
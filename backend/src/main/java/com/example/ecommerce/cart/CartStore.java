@@ -0,0 +1,250 @@
+/*
+    Cart store, every active cart in memory, written behind to the carts table.
+    Carts are spread over a fixed number of shards by user id, each with its own lock, so requests for
+    different users rarely contend. Changed carts are marked dirty and a background flusher writes
+    them in one batched upsert per interval (emptied carts are deleted). Carts idle for longer than
+    the idle ttl are dropped from memory once their latest version is stored, and loaded again from
+    the table on the next request. Stored carts not touched within the retention are purged.
+    Carts live on the instance that serves the user; several instances need sticky routing.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.cart;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CartStore {
+
+    private static final int SHARDS = 64;
+
+    private static final String LOAD_CART = "select line_data from carts where user_id = ?";
+    private static final String UPSERT_CART = "insert into carts (user_id, line_data, updated_at) values (?, ?, ?) "
+            + "on duplicate key update line_data = values(line_data), updated_at = values(updated_at)";
+    private static final String DELETE_CART = "delete from carts where user_id = ?";
+    private static final String PURGE_CARTS = "delete from carts where updated_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${cart.idle-ttl:30m}")
+    private Duration idleTtl;
+    @Value("${cart.flush-interval:2s}")
+    private Duration flushInterval;
+    @Value("${cart.retention:30d}")
+    private Duration retention;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushAndEvict, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public <T> T read(Long userId, Function<CartLines, T> reader) {
+        return access(userId, reader, false);
+    }
+
+    // the change runs under the shard lock and the cart is flushed on the next interval
+    public <T> T write(Long userId, Function<CartLines, T> change) {
+        return access(userId, change, true);
+    }
+
+    private <T> T access(Long userId, Function<CartLines, T> action, boolean write) {
+        Shard shard = shard(userId);
+        synchronized (shard) {
+            Entry entry = shard.carts.get(userId);
+            if (entry != null) {
+                return shard.apply(userId, entry, action, write);
+            }
+        }
+        // loaded outside the lock so a slow read does not hold up the rest of the shard
+        CartLines loaded = load(userId);
+        synchronized (shard) {
+            Entry entry = shard.carts.computeIfAbsent(userId, id -> new Entry(loaded));
+            return shard.apply(userId, entry, action, write);
+        }
+    }
+
+    private CartLines load(Long userId) {
+        List<String> stored = jdbcTemplate.queryForList(LOAD_CART, String.class, userId);
+        return stored.isEmpty() ? new CartLines() : CartLines.decode(stored.get(0));
+    }
+
+    private void flushAndEvict() {
+        try {
+            flush();
+            evictIdle();
+        } catch (RuntimeException e) {
+            log.warn("Cart flush failed", e);
+        }
+    }
+
+    void flush() {
+        List<Pending> upserts = new ArrayList<>();
+        List<Pending> deletes = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (Long userId : shard.dirty) {
+                    Entry entry = shard.carts.get(userId);
+                    if (entry == null) {
+                        continue;
+                    }
+                    Pending pending = new Pending(shard, userId, entry.version, entry.lines.encode());
+                    (entry.lines.isEmpty() ? deletes : upserts).add(pending);
+                }
+                shard.dirty.clear();
+            }
+        }
+        if (upserts.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_CART, upserts.stream()
+                        .map(pending -> new Object[] { pending.userId(), pending.data(), now }).toList());
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_CART, deletes.stream()
+                        .map(pending -> new Object[] { pending.userId() }).toList());
+            }
+        } catch (DataAccessException e) {
+            // marked dirty again, the next interval writes whatever is current by then
+            upserts.forEach(Pending::retry);
+            deletes.forEach(Pending::retry);
+            log.warn("Could not store {} carts, retrying next interval", upserts.size() + deletes.size(), e);
+            return;
+        }
+        upserts.forEach(Pending::stored);
+        deletes.forEach(Pending::stored);
+    }
+
+    private void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleTtl.toMillis();
+        int evicted = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<Map.Entry<Long, Entry>> carts = shard.carts.entrySet().iterator();
+                while (carts.hasNext()) {
+                    Entry entry = carts.next().getValue();
+                    // a cart is only dropped once the table has its latest version
+                    if (entry.lastAccess < idleBefore && entry.storedVersion == entry.version) {
+                        carts.remove();
+                        evicted++;
+                    }
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle carts", evicted);
+        }
+    }
+
+    private void purge() {
+        try {
+            int purged = jdbcTemplate.update(PURGE_CARTS, Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+            if (purged > 0) {
+                log.info("Purged {} abandoned carts", purged);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not purge abandoned carts", e);
+        }
+    }
+
+    private Shard shard(Long userId) {
+        return shards[(Long.hashCode(userId) & 0x7fffffff) % SHARDS];
+    }
+
+    private static final class Shard {
+
+        private final Map<Long, Entry> carts = new HashMap<>();
+        private final Set<Long> dirty = new HashSet<>();
+
+        private <T> T apply(Long userId, Entry entry, Function<CartLines, T> action, boolean write) {
+            entry.lastAccess = System.currentTimeMillis();
+            T result = action.apply(entry.lines);
+            if (write) {
+                entry.version++;
+                dirty.add(userId);
+            }
+            return result;
+        }
+    }
+
+    private static final class Entry {
+
+        private final CartLines lines;
+        private long version;
+        private long storedVersion;
+        private long lastAccess = System.currentTimeMillis();
+
+        private Entry(CartLines lines) {
+            this.lines = lines;
+        }
+    }
+
+    private record Pending(Shard shard, Long userId, long version, String data) {
+
+        private void stored() {
+            synchronized (shard) {
+                Entry entry = shard.carts.get(userId);
+                if (entry != null && entry.storedVersion < version) {
+                    entry.storedVersion = version;
+                }
+            }
+        }
+
+        private void retry() {
+            synchronized (shard) {
+                shard.dirty.add(userId);
+            }
+        }
+    }
+}
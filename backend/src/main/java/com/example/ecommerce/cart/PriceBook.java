@@ -0,0 +1,85 @@
+/*
+    Price book, the catalog prices carts are priced against.
+    A catalog index like the search and facet indexes, so carts are priced from memory and kept up to
+    date by the product write paths. Prices are held in cents; the price column has two decimals.
+    Products without a price cannot be put in a cart.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.cart;
+
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.index.CatalogIndex;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class PriceBook implements CatalogIndex {
+
+    private volatile Map<Long, ProductPrice> prices = new ConcurrentHashMap<>();
+
+    @Override
+    public void rebuild(List<Category> categories, List<Product> products) {
+        Map<Long, ProductPrice> rebuilt = new ConcurrentHashMap<>(products.size() * 2);
+        for (Product product : products) {
+            ProductPrice price = ProductPrice.of(product);
+            if (price != null) {
+                rebuilt.put(product.getId(), price);
+            }
+        }
+        prices = rebuilt;
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        ProductPrice price = ProductPrice.of(product);
+        if (price != null) {
+            prices.put(product.getId(), price);
+        } else {
+            prices.remove(product.getId());
+        }
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        prices.remove(productId);
+    }
+
+    // null when the product is gone or has no price
+    public ProductPrice get(Long productId) {
+        return prices.get(productId);
+    }
+
+    public static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public record ProductPrice(Long productId, String name, String imageUrl, Long categoryId, long cents) {
+
+        private static ProductPrice of(Product product) {
+            if (product.getPrice() == null) {
+                return null;
+            }
+            return new ProductPrice(product.getId(), product.getName(), product.getImageUrl(),
+                    product.getCategory() != null ? product.getCategory().getId() : null,
+                    toCents(product.getPrice()));
+        }
+
+        public BigDecimal price() {
+            return fromCents(cents);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+    Cache controller
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ecommerce.cache.CatalogCache;
+import com.example.ecommerce.dto.Response;
+
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CatalogCache catalogCache;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getCacheStats() {
+        return ResponseEntity.ok(Response.builder()
+                .status(200)
+                .cacheStatsList(catalogCache.stats())
+                .build());
+    }
+}
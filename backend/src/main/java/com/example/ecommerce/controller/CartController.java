@@ -0,0 +1,98 @@
+/*
+    Cart controller
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.ecommerce.cart.CartService;
+import com.example.ecommerce.dto.CartDto;
+import com.example.ecommerce.dto.OrderItemRequest;
+import com.example.ecommerce.dto.OrderRequest;
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.security.AuthUser;
+import com.example.ecommerce.service.IdempotencyService;
+import com.example.ecommerce.service.interf.OrderItemService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/cart")
+@RequiredArgsConstructor
+public class CartController {
+
+    private static final String CHECKOUT_OPERATION = "cart-checkout";
+
+    private final CartService cartService;
+    private final OrderItemService orderItemService;
+    private final IdempotencyService idempotencyService;
+
+    // promotions are applied, coupon ones when couponCode is given
+    @GetMapping
+    public ResponseEntity<Response> getCart(@AuthenticationPrincipal AuthUser authUser,
+            @RequestParam(required = false) String couponCode) {
+        return ok(cartService.view(userId(authUser), couponCode));
+    }
+
+    @PostMapping("/items")
+    public ResponseEntity<Response> addItem(@AuthenticationPrincipal AuthUser authUser,
+            @RequestBody OrderItemRequest item) {
+        return ok(cartService.add(userId(authUser), item.getProductId(), item.getQuantity()));
+    }
+
+    // quantity 0 removes the line
+    @PutMapping("/items/{productId}")
+    public ResponseEntity<Response> setQuantity(@AuthenticationPrincipal AuthUser authUser,
+            @PathVariable Long productId, @RequestParam int quantity) {
+        return ok(cartService.setQuantity(userId(authUser), productId, quantity));
+    }
+
+    @DeleteMapping("/items/{productId}")
+    public ResponseEntity<Response> removeItem(@AuthenticationPrincipal AuthUser authUser,
+            @PathVariable Long productId) {
+        return ok(cartService.remove(userId(authUser), productId));
+    }
+
+    // the whole cart at once, how a browser cart is merged after login
+    @PutMapping
+    public ResponseEntity<Response> replaceCart(@AuthenticationPrincipal AuthUser authUser,
+            @RequestBody OrderRequest orderRequest) {
+        return ok(cartService.replace(userId(authUser), orderRequest.getItems()));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Response> clearCart(@AuthenticationPrincipal AuthUser authUser) {
+        return ok(cartService.clear(userId(authUser)));
+    }
+
+    // a retry with the same Idempotency-Key gets the first response back instead of a second order.
+    // With a payment method the order's payment is started and comes back pending
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@AuthenticationPrincipal AuthUser authUser,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) String couponCode,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("userId", userId(authUser));
+        request.put("paymentMethod", paymentMethod);
+        request.put("couponCode", couponCode);
+        return idempotencyService.execute(CHECKOUT_OPERATION, idempotencyKey, request,
+                () -> ResponseEntity.ok(orderItemService.checkoutCart(paymentMethod, couponCode)));
+    }
+
+    private static Long userId(AuthUser authUser) {
+        return authUser.getUser().getId();
+    }
+
+    private static ResponseEntity<Response> ok(CartDto cart) {
+        return ResponseEntity.ok(Response.builder().status(200).cart(cart).build());
+    }
+}
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/10/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.controller;
 
@@ -11,10 +11,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.example.ecommerce.dto.CategoryDto;
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.index.CatalogVersions;
 import com.example.ecommerce.service.interf.CategoryService;
+import com.example.ecommerce.util.ConditionalGet;
 
 @RestController
 @RequestMapping("/category")
@@ -22,6 +25,7 @@ import com.example.ecommerce.service.interf.CategoryService;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersions catalogVersions;
 
     @PostMapping("/create")
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -30,8 +34,8 @@ public class CategoryController {
     }
 
     @GetMapping("/get-all")
-    public ResponseEntity<Response> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<Response> getAllCategories(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions.catalogETag(), categoryService::getAllCategories);
     }
 
     @PutMapping("/update/{categoryId}")
@@ -48,8 +52,9 @@ public class CategoryController {
     }
 
     @GetMapping("/get-category-by-id/{categoryId}")
-    public ResponseEntity<Response> getCategoryById(@PathVariable Long categoryId) {
-        return ResponseEntity.ok(categoryService.getCategoryById(categoryId));
+    public ResponseEntity<Response> getCategoryById(@PathVariable Long categoryId, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions.categoryETag(categoryId),
+                () -> categoryService.getCategoryById(categoryId));
     }
 
 }
@@ -3,36 +3,71 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/10/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.ecommerce.dto.OrderRequest;
+import com.example.ecommerce.dto.OrderStatusUpdateRequest;
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.enums.CountMode;
+import com.example.ecommerce.enums.ExportFormat;
 import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.service.IdempotencyService;
+import com.example.ecommerce.service.NdjsonStreamService;
+import com.example.ecommerce.service.TableExportService;
 import com.example.ecommerce.service.interf.OrderItemService;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/order")
 @RequiredArgsConstructor
 public class OrderItemController {
 
+    private static final String CREATE_OPERATION = "order-create";
+
     private final OrderItemService orderItemService;
+    private final IdempotencyService idempotencyService;
 
+    // a retry with the same Idempotency-Key gets the first response back instead of a second order
     @PostMapping("/create")
-    public ResponseEntity<Response> placeOrder(@RequestBody OrderRequest orderRequest) {
-        return ResponseEntity.ok(orderItemService.placeOrder(orderRequest));
+    public ResponseEntity<?> placeOrder(@RequestBody OrderRequest orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(CREATE_OPERATION, idempotencyKey, orderRequest.fingerprint(),
+                () -> ResponseEntity.ok(orderItemService.placeOrder(orderRequest)));
+    }
+
+    // async mode: 202 with the order id once queued, 429 when the queue is full
+    @PostMapping(value = "/create", params = "async=true")
+    public ResponseEntity<?> placeOrderAsync(@RequestBody OrderRequest orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(CREATE_OPERATION, idempotencyKey, orderRequest.fingerprint(),
+                () -> ResponseEntity.status(HttpStatus.ACCEPTED).body(orderItemService.placeOrderAsync(orderRequest)));
+    }
+
+    // only the user who placed the order sees its status
+    @GetMapping("/ingest/{orderId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Response> getOrderIngestStatus(@PathVariable Long orderId) {
+        return ResponseEntity.ok(orderItemService.getOrderIngestStatus(orderId));
+    }
+
+    // many items or every item matching a filter in one call, with an outcome per item
+    @PutMapping("/update-item-status")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> bulkUpdateOrderItemStatus(@RequestBody OrderStatusUpdateRequest request) {
+        return ResponseEntity.ok(orderItemService.bulkUpdateOrderItemStatus(request));
     }
 
     @PutMapping("/update-item-status/{orderItemId}")
@@ -49,14 +84,77 @@ public class OrderItemController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Long itemId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "1000") int size
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "exact") String count
 
     ) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id"));
         OrderStatus orderStatus = status != null ? OrderStatus.valueOf(status.toUpperCase()) : null;
+        CountMode countMode = CountMode.valueOf(count.toUpperCase());
+
+        return ResponseEntity.ok(orderItemService.filterOrderItems(orderStatus, startDate, endDate, itemId, page, size,
+                after, countMode));
+
+    }
+
+    // streaming mode, selected by Accept: application/x-ndjson or stream=true
+    @GetMapping(value = "/filter", produces = NdjsonStreamService.NDJSON)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamOrderItems(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long itemId) {
+        OrderStatus orderStatus = status != null ? OrderStatus.valueOf(status.toUpperCase()) : null;
+        return NdjsonStreamService.response(
+                orderItemService.streamOrderItems(orderStatus, startDate, endDate, itemId));
+    }
 
-        return ResponseEntity.ok(orderItemService.filterOrderItems(orderStatus, startDate, endDate, itemId, pageable));
+    @GetMapping(value = "/filter", params = "stream=true")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamOrderItemsByParam(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long itemId) {
+        return streamOrderItems(startDate, endDate, status, itemId);
+    }
+
+    // file download for finance, csv by default or xlsx, written while it is read
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrderItems(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long itemId,
+            @RequestParam(defaultValue = "csv") String format) {
+        OrderStatus orderStatus = status != null ? OrderStatus.valueOf(status.toUpperCase()) : null;
+        ExportFormat exportFormat = ExportFormat.resolve(format);
+        return TableExportService.response(exportFormat, "order-items",
+                orderItemService.exportOrderItems(orderStatus, startDate, endDate, itemId, exportFormat));
+    }
 
+    // e.g. groupBy=day,category for revenue per category per day
+    @GetMapping("/sales-rollup")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getSalesRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long productId) {
+        OrderStatus orderStatus = status != null ? OrderStatus.valueOf(status.toUpperCase()) : null;
+        return ResponseEntity.ok(orderItemService.getSalesRollup(startDate, endDate, groupBy, orderStatus,
+                categoryId, productId));
     }
 
+    @PostMapping("/sales-rollup/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> rebuildSalesRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(orderItemService.rebuildSalesRollup(startDate, endDate));
+    }
 }
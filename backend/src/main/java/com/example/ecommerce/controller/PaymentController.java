@@ -0,0 +1,65 @@
+/*
+    Payment controller
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.ecommerce.dto.PaymentDto;
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.payment.PaymentService;
+import com.example.ecommerce.security.AuthUser;
+
+@RestController
+@RequestMapping("/payment")
+@RequiredArgsConstructor
+public class PaymentController {
+
+    private final PaymentService paymentService;
+
+    // 202 with the payment pending, its outcome is read back from /payment/{paymentId}
+    @PostMapping("/authorize/{orderId}")
+    public ResponseEntity<Response> authorize(@AuthenticationPrincipal AuthUser authUser,
+            @PathVariable Long orderId, @RequestParam(required = false) String method) {
+        PaymentDto payment = paymentService.authorize(authUser.getUser().getId(), orderId, method);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Response.builder()
+                .status(202)
+                .message("Payment was accepted")
+                .payment(payment)
+                .build());
+    }
+
+    @GetMapping("/{paymentId}")
+    public ResponseEntity<Response> getPayment(@AuthenticationPrincipal AuthUser authUser,
+            @PathVariable Long paymentId) {
+        return ok(paymentService.getPayment(authUser.getUser().getId(), paymentId));
+    }
+
+    @GetMapping("/order/{orderId}")
+    public ResponseEntity<Response> getOrderPayment(@AuthenticationPrincipal AuthUser authUser,
+            @PathVariable Long orderId) {
+        return ok(paymentService.getOrderPayment(authUser.getUser().getId(), orderId));
+    }
+
+    // every attempt at paying the order, the last one is what /payment/order/{orderId} returns
+    @GetMapping("/order/{orderId}/attempts")
+    public ResponseEntity<Response> getOrderPayments(@AuthenticationPrincipal AuthUser authUser,
+            @PathVariable Long orderId) {
+        return ResponseEntity.ok(Response.builder()
+                .status(200)
+                .paymentList(paymentService.getOrderPayments(authUser.getUser().getId(), orderId))
+                .build());
+    }
+
+    private static ResponseEntity<Response> ok(PaymentDto payment) {
+        return ResponseEntity.ok(Response.builder().status(200).payment(payment).build());
+    }
+}
@@ -3,21 +3,32 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/10/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.ecommerce.dto.BulkPriceUpdateRequest;
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.enums.ImportFormat;
+import com.example.ecommerce.enums.ProductSort;
 import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.index.CatalogVersions;
+import com.example.ecommerce.service.NdjsonStreamService;
+import com.example.ecommerce.service.ProductImportService;
 import com.example.ecommerce.service.interf.ProductService;
+import com.example.ecommerce.util.ConditionalGet;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/product")
@@ -25,6 +36,8 @@ import java.math.BigDecimal;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogVersions catalogVersions;
+    private final ProductImportService productImportService;
 
     @PostMapping("/create")
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -40,6 +53,28 @@ public class ProductController {
         return ResponseEntity.ok(productService.createProduct(categoryId, image, name, description, price));
     }
 
+    // bulk import of a csv or ndjson feed, runs in the background and is polled through its job id
+    @PostMapping("/import")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> importProducts(
+            @RequestParam MultipartFile file,
+            @RequestParam(required = false) String format) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Response.builder()
+                .status(HttpStatus.ACCEPTED.value())
+                .message("Import queued")
+                .importJob(productImportService.submit(file, ImportFormat.resolve(format, file.getOriginalFilename())))
+                .build());
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(Response.builder()
+                .status(200)
+                .importJob(productImportService.getJob(jobId))
+                .build());
+    }
+
     @PutMapping("/update")
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<Response> updateProduct(
@@ -52,6 +87,20 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateProduct(productId, categoryId, image, name, description, price));
     }
 
+    // explicit prices or a percentage rule for a whole category, applied in one transaction
+    @PutMapping("/bulk-update")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> bulkUpdatePrices(@RequestBody BulkPriceUpdateRequest request) {
+        return ResponseEntity.ok(productService.bulkUpdatePrices(request));
+    }
+
+    // a stock count for the product, orders are held against it from then on
+    @PutMapping("/stock/{productId}")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> updateStock(@PathVariable Long productId, @RequestParam int stock) {
+        return ResponseEntity.ok(productService.updateStock(productId, stock));
+    }
+
     @DeleteMapping("/delete/{productId}")
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<Response> deleteProduct(@PathVariable Long productId) {
@@ -60,23 +109,69 @@ public class ProductController {
     }
 
     @GetMapping("/get-by-product-id/{productId}")
-    public ResponseEntity<Response> getProductById(@PathVariable Long productId) {
-        return ResponseEntity.ok(productService.getProductById(productId));
+    public ResponseEntity<Response> getProductById(@PathVariable Long productId, WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions.productETag(productId),
+                () -> productService.getProductById(productId));
     }
 
     @GetMapping("/get-all")
-    public ResponseEntity<Response> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<Response> getAllProducts(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions.catalogETag(), productService::getAllProducts);
+    }
+
+    // streaming mode, selected by Accept: application/x-ndjson or stream=true
+    @GetMapping(value = "/get-all", produces = NdjsonStreamService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return NdjsonStreamService.response(productService.streamAllProducts());
+    }
+
+    @GetMapping(value = "/get-all", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllProductsByParam() {
+        return streamAllProducts();
+    }
+
+    @GetMapping("/list")
+    public ResponseEntity<Response> getProductsPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok(productService.getProductsPage(after, size, ProductSort.fromParam(sort)));
     }
 
     @GetMapping("/get-by-category-id/{categoryId}")
-    public ResponseEntity<Response> getProductsByCategory(@PathVariable Long categoryId) {
-        return ResponseEntity.ok(productService.getProductsByCategory(categoryId));
+    public ResponseEntity<Response> getProductsByCategory(@PathVariable Long categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, page, size));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Response> searchForProduct(@RequestParam String searchValue) {
-        return ResponseEntity.ok(productService.searchProduct(searchValue));
+    public ResponseEntity<Response> searchForProduct(@RequestParam String searchValue,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.searchProduct(searchValue, page, size));
+    }
+
+    // faceted filter, categoryId may be repeated to select several categories
+    @GetMapping("/filter")
+    public ResponseEntity<Response> filterProducts(
+            @RequestParam(required = false) List<Long> categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "10") int bins) {
+        return ResponseEntity.ok(productService.filterProducts(categoryId, minPrice, maxPrice, minRating,
+                ProductSort.fromParam(sort), page, size, bins));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Response> suggestProducts(@RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
+        return ResponseEntity.ok(productService.suggestProducts(prefix, limit, fuzzy));
     }
 
 }
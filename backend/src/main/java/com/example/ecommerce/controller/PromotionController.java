@@ -0,0 +1,43 @@
+/*
+    Promotion controller
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.ecommerce.dto.PromotionDto;
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.service.interf.PromotionService;
+
+@RestController
+@RequestMapping("/promotion")
+@RequiredArgsConstructor
+public class PromotionController {
+
+    private final PromotionService promotionService;
+
+    @PostMapping("/create")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> createPromotion(@RequestBody PromotionDto promotionDto) {
+        return ResponseEntity.ok(promotionService.createPromotion(promotionDto));
+    }
+
+    @GetMapping("/get-all")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getAllPromotions() {
+        return ResponseEntity.ok(promotionService.getAllPromotions());
+    }
+
+    @DeleteMapping("/delete/{promotionId}")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> deletePromotion(@PathVariable Long promotionId) {
+        return ResponseEntity.ok(promotionService.deletePromotion(promotionId));
+    }
+}
@@ -3,18 +3,26 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/10/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.security.AuthUser;
+import com.example.ecommerce.service.NdjsonStreamService;
+import com.example.ecommerce.service.OrderEventService;
 import com.example.ecommerce.service.interf.UserService;
 
 @RestController
@@ -23,6 +31,7 @@ import com.example.ecommerce.service.interf.UserService;
 public class UserController {
 
     private final UserService userService;
+    private final OrderEventService orderEventService;
 
     @GetMapping("/get-all")
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -30,8 +39,36 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
+    // streaming mode, selected by Accept: application/x-ndjson or stream=true
+    @GetMapping(value = "/get-all", produces = NdjsonStreamService.NDJSON)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        return NdjsonStreamService.response(userService.streamAllUsers());
+    }
+
+    @GetMapping(value = "/get-all", params = "stream=true")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAllUsersByParam() {
+        return streamAllUsers();
+    }
+
+    // pushes the caller's order item status changes as they happen, instead of polling my-info
+    @GetMapping(value = "/order-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter orderEvents(@AuthenticationPrincipal AuthUser authUser) {
+        return orderEventService.subscribe(authUser.getUser().getId());
+    }
+
+    // profile and address only, the order history is paged separately
     @GetMapping("/my-info")
-    public ResponseEntity<Response> getUserInfoAndOrderHistory() {
-        return ResponseEntity.ok(userService.getUserInfoAndOrderHistory());
+    public ResponseEntity<Response> getUserInfo() {
+        return ResponseEntity.ok(userService.getUserInfo());
+    }
+
+    // newest first; pass the previous response's nextCursor as after for the next page
+    @GetMapping("/order-history")
+    public ResponseEntity<Response> getOrderHistory(
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after) {
+        return ResponseEntity.ok(userService.getOrderHistory(size, after));
     }
 }
@@ -0,0 +1,26 @@
+/*
+    Bulk price update request dto
+    Either explicit prices, or a rule that moves every price of a category by a percentage.
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkPriceUpdateRequest {
+
+    private List<PriceUpdateRequest> prices;
+
+    private Long categoryId;
+    // -15 lowers every price by 15%
+    private BigDecimal percent;
+}
@@ -0,0 +1,32 @@
+/*
+    Cart line dto
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartLineDto {
+
+    private Long productId;
+    private String name;
+    private String imageUrl;
+    private BigDecimal unitPrice;
+    private int quantity;
+    private BigDecimal discount;
+    private BigDecimal lineTotal;
+}
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/5/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.dto;
 
@@ -13,6 +13,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Data
@@ -24,5 +25,8 @@ public class CategoryDto {
 
     private Long id;
     private String name;
+    private Integer productCount;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
     private List<ProductDto> productList;
 }
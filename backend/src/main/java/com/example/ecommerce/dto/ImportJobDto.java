@@ -0,0 +1,45 @@
+/*
+    Import job dto
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.ImportFormat;
+import com.example.ecommerce.enums.ImportStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobDto {
+
+    private String id;
+    private String fileName;
+    private ImportFormat format;
+    private ImportStatus status;
+    private String message;
+
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private long rowsPerSecond;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    // first errors only, rowsFailed has the full count
+    private List<ImportErrorDto> errors;
+}
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/5/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.dto;
 
@@ -26,6 +26,7 @@ public class OrderItemDto {
     private Long id;
     private int quantity;
     private BigDecimal price;
+    private BigDecimal discount;
     private String status;
     private UserDto user;
     private ProductDto product;
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/5/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.dto;
 
@@ -12,7 +12,10 @@ import lombok.Data;
 
 import com.example.ecommerce.entity.Payment;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -21,4 +24,17 @@ public class OrderRequest {
     private BigDecimal totalPrice;
     private List<OrderItemRequest> items;
     private Payment paymentInfo;
+    private String couponCode;
+
+    // what an Idempotency-Key retry has to repeat; paymentInfo is an entity whose server-set fields,
+    // createdAt among them, differ on every request, so only its method is taken
+    public Map<String, Object> fingerprint() {
+        Map<String, Object> fingerprint = new HashMap<>();
+        fingerprint.put("totalPrice", totalPrice);
+        fingerprint.put("items", items);
+        fingerprint.put("paymentInfo", paymentInfo == null ? null
+                : Collections.singletonMap("method", paymentInfo.getMethod()));
+        fingerprint.put("couponCode", couponCode);
+        return fingerprint;
+    }
 }
@@ -0,0 +1,31 @@
+/*
+    Order status event dto, pushed to the owning user when an order item changes status
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusEventDto {
+
+    private Long orderItemId;
+    private Long orderId;
+    private OrderStatus previousStatus;
+    private OrderStatus status;
+    private LocalDateTime changedAt;
+}
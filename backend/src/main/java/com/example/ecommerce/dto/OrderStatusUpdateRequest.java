@@ -0,0 +1,27 @@
+/*
+    Order status update request, a target status for listed items or for every item matching a filter
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class OrderStatusUpdateRequest {
+
+    private OrderStatus status;
+
+    private List<Long> orderItemIds;
+
+    // filter, used when no ids are given
+    private OrderStatus currentStatus;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+}
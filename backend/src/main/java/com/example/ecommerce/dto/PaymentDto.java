@@ -0,0 +1,38 @@
+/*
+    Payment dto
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.PaymentStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentDto {
+
+    private Long id;
+    private Long orderId;
+    private BigDecimal amount;
+    private String method;
+    private PaymentStatus status;
+    // 1 for the order's first authorization, one more for each one after a decline or failure
+    private int attemptNumber;
+    private String gatewayReference;
+    private String failureReason;
+    private int attempts;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,19 @@
+/*
+    Price update request dto
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class PriceUpdateRequest {
+
+    private Long productId;
+    private BigDecimal price;
+}
@@ -0,0 +1,40 @@
+/*
+    Promotion dto
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.PromotionType;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class PromotionDto {
+
+    private Long id;
+    private String name;
+    private PromotionType type;
+    private String code;
+    private Long productId;
+    private Long categoryId;
+    private BigDecimal percentOff;
+    private BigDecimal amountOff;
+    private Integer buyQuantity;
+    private Integer getQuantity;
+    private Integer minQuantity;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+}
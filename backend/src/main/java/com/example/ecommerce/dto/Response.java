@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 5/5/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.dto;
 
@@ -28,6 +28,8 @@ public class Response {
 
     private int totalPage;
     private long totalElement;
+    private Boolean totalEstimated;
+    private String nextCursor;
 
     private AddressDto address;
 
@@ -40,8 +42,31 @@ public class Response {
     private ProductDto product;
     private List<ProductDto> productList;
 
+    private List<SuggestionDto> suggestionList;
+
+    private List<FacetCountDto> categoryFacets;
+    private List<FacetCountDto> ratingFacets;
+    private List<PriceBucketDto> priceHistogram;
+
+    private List<CacheStatsDto> cacheStatsList;
+
+    private ImportJobDto importJob;
+
+    private OrderIngestDto orderIngest;
+
     private OrderItemDto orderItem;
     private List<OrderItemDto> orderItemList;
+    private List<StatusUpdateResultDto> statusUpdateList;
+
+    private List<SalesRollupDto> salesRollupList;
+
+    private CartDto cart;
+
+    private PaymentDto payment;
+    private List<PaymentDto> paymentList;
+
+    private PromotionDto promotion;
+    private List<PromotionDto> promotionList;
 
     private OrderDto order;
     private List<OrderDto> orderList;
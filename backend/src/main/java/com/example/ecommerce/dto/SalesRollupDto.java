@@ -0,0 +1,35 @@
+/*
+    Sales rollup dto, one group of the sales dashboard, only the grouped dimensions are set
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class SalesRollupDto {
+
+    private LocalDate day;
+    private Long productId;
+    private Long categoryId;
+    private OrderStatus status;
+
+    private long itemCount;
+    private long quantity;
+    private BigDecimal revenue;
+}
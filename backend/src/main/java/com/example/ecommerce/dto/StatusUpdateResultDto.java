@@ -0,0 +1,29 @@
+/*
+    Status update result dto
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.StatusUpdateOutcome;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatusUpdateResultDto {
+
+    private Long orderItemId;
+    private StatusUpdateOutcome outcome;
+    private OrderStatus previousStatus;
+    private String message;
+}
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 4/25/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.entity;
 
@@ -13,13 +13,15 @@ import lombok.Data;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+import com.example.ecommerce.id.SnowflakeId;
+
 @Data
 @Entity
 @Table(name = "addresses")
 public class Address {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     private String street;
@@ -0,0 +1,33 @@
+/*
+    Cart record entity, the stored copy of a user's cart.
+    Written behind by CartStore with JDBC upserts, the entity only owns the table definition.
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "carts", indexes = {
+        @Index(name = "idx_carts_updated_at", columnList = "updated_at")
+})
+public class CartRecord {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // "productId:quantity:unitCents" per line, comma separated
+    @Column(name = "line_data", columnDefinition = "TEXT")
+    private String lineData;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
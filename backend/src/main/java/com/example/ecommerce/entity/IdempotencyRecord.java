@@ -0,0 +1,45 @@
+/*
+    Idempotency record entity, the stored outcome of a request made with an Idempotency-Key
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+import com.example.ecommerce.id.SnowflakeId;
+
+@Data
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyRecord {
+
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    // caller scope and the client's key
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String key;
+
+    // sha-256 of the request body, a key reused for a different request is refused
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // 0 while the first request is still running
+    @Column(name = "response_status")
+    private int responseStatus;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
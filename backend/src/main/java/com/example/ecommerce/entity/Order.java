@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 4/25/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.entity;
 
@@ -15,13 +15,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 
+import com.example.ecommerce.id.SnowflakeId;
+
 @Data
 @Entity
 @Table(name = "orders")
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     private BigDecimal totalPrice;
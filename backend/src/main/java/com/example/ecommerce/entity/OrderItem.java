@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 4/25/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.entity;
 
@@ -15,14 +15,18 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.id.SnowflakeId;
 
 @Entity
 @Data
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_order_items_user_created_at_id", columnList = "user_id, created_at, id")
+})
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     private int quantity;
@@ -37,6 +41,26 @@ public class OrderItem {
     @JoinColumn(name = "product_id")
     private Product product;
 
+    // read-only copy of the foreign key, so order views need no product proxy
+    @Column(name = "product_id", insertable = false, updatable = false)
+    private Long productId;
+
+    // what was bought, copied from the product when the order is placed and never changed after
+    @Column(name = "product_name")
+    private String productName;
+    @Column(name = "unit_price")
+    private BigDecimal unitPrice;
+    @Column(name = "product_image_url")
+    private String productImageUrl;
+    // the sales rollups count the line under this category, even after the product is moved
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    // taken off the line by a promotion, price is after it
+    private BigDecimal discount;
+    @Column(name = "promotion_id")
+    private Long promotionId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id")
     private Order order;
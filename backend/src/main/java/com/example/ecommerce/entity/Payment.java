@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 4/25/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.entity;
 
@@ -14,21 +14,42 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.id.SnowflakeId;
+
 @Data
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = @Index(name = "idx_payments_status", columnList = "status"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_payments_order_attempt",
+                columnNames = { "order_id", "attempt_number" }))
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
     private BigDecimal amount;
     private String method;
-    private String status;
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus status;
+
+    // reference the gateway gave an authorization, or why it did not go through
+    @Column(name = "gateway_reference")
+    private String gatewayReference;
+    @Column(name = "failure_reason")
+    private String failureReason;
+    // gateway calls made for this payment, retries included
+    private int attempts;
 
-    @OneToOne(fetch = FetchType.LAZY)
+    // one payment per authorization of the order, a declined or failed one is followed by the next
+    // attempt number under a new id, the gateway's idempotency key
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id")
     private Order order;
+    @Column(name = "attempt_number")
+    private int attemptNumber;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
 
     @Column(name = "created_at")
     private final LocalDateTime createdAt = LocalDateTime.now(); // This field will be ignored for equality and hashCode
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 4/25/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.entity;
 
@@ -14,13 +14,18 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+import com.example.ecommerce.id.SnowflakeId;
+
 @Data
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_name_id", columnList = "name, id")
+})
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     private String name;
@@ -28,6 +33,10 @@ public class Product {
     private String imageUrl;
     private BigDecimal price;
 
+    // null when stock is not tracked; written only by the inventory write-behind, never by entity saves
+    @Column(updatable = false)
+    private Integer stock;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
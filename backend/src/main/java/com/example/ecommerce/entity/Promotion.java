@@ -0,0 +1,79 @@
+/*
+    Promotion entity
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import com.example.ecommerce.enums.PromotionType;
+import com.example.ecommerce.id.SnowflakeId;
+
+@Data
+@Entity
+@Table(name = "promotions", indexes = @Index(name = "idx_promotions_ends_at", columnList = "ends_at"))
+public class Promotion {
+
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    private PromotionType type;
+
+    // null for a promotion that applies without a coupon code
+    private String code;
+
+    // the product or the category it applies to, neither for every product
+    @Column(name = "product_id")
+    private Long productId;
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "percent_off")
+    private BigDecimal percentOff;
+    // off every unit
+    @Column(name = "amount_off")
+    private BigDecimal amountOff;
+    @Column(name = "buy_quantity")
+    private Integer buyQuantity;
+    @Column(name = "get_quantity")
+    private Integer getQuantity;
+    @Column(name = "min_quantity")
+    private Integer minQuantity;
+
+    @Column(name = "starts_at")
+    private LocalDateTime startsAt;
+    @Column(name = "ends_at")
+    private LocalDateTime endsAt;
+
+    @Column(name = "created_at")
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    // equals method
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        Promotion promotion = (Promotion) obj;
+        return id != null && id.equals(promotion.id);
+    }
+
+    // hashCode method
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
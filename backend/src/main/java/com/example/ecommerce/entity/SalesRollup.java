@@ -0,0 +1,30 @@
+/*
+    Sales rollup entity, order item totals per day, product, category and status.
+    Maintained by SalesRollupService with JDBC upserts, the entity only owns the table definition.
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Entity
+@Table(name = "sales_rollups")
+public class SalesRollup {
+
+    @EmbeddedId
+    private SalesRollupKey id;
+
+    @Column(name = "item_count")
+    private long itemCount;
+
+    private long quantity;
+
+    private BigDecimal revenue;
+}
@@ -0,0 +1,37 @@
+/*
+    Sales rollup key, one rollup row per day, product, category and order status
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupKey implements Serializable {
+
+    // day the items were ordered, first so day ranges are primary key ranges
+    private LocalDate day;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    // 0 for products without a category
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    // OrderStatus ordinal, like order_items.status
+    private int status;
+}
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 4/25/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.entity;
 
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Objects;
 
 import com.example.ecommerce.enums.UserRole;
+import com.example.ecommerce.id.SnowflakeId;
 
 @Data
 @Entity
@@ -29,7 +30,7 @@ import com.example.ecommerce.enums.UserRole;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @NotBlank(message = "Name is required")
@@ -0,0 +1,13 @@
+/*
+    Count mode enum, how a paged listing reports its total
+    EXACT runs a count query, ESTIMATE answers from table statistics or a capped count, NONE skips it
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+public enum CountMode {
+    EXACT, ESTIMATE, NONE
+}
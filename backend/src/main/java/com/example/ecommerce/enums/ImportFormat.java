@@ -0,0 +1,32 @@
+/*
+    Import format enum
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+import com.example.ecommerce.exception.InvalidCredentialsException;
+
+public enum ImportFormat {
+    CSV, NDJSON;
+
+    // explicit format param first, then the file extension, csv by default
+    public static ImportFormat resolve(String value, String fileName) {
+        if (value != null && !value.isBlank()) {
+            try {
+                return ImportFormat.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCredentialsException("Unsupported import format: " + value);
+            }
+        }
+        if (fileName != null) {
+            String name = fileName.toLowerCase();
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,12 @@
+/*
+    Import status enum
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+public enum ImportStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
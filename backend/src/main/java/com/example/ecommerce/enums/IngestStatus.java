@@ -0,0 +1,12 @@
+/*
+    Ingest status enum, for orders accepted by the async ingestion pipeline
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+public enum IngestStatus {
+    QUEUED, PERSISTED, FAILED
+}
@@ -3,10 +3,47 @@
     
     @author teshan_kalhara
     @create 4/25/2025
-    @update 4/25/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.enums;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
-    PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED, RETURNED
+    PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED, RETURNED;
+
+    // allowed moves, CANCELLED and RETURNED are final
+    private static final Map<OrderStatus, Set<OrderStatus>> NEXT = new EnumMap<>(OrderStatus.class);
+
+    static {
+        NEXT.put(PENDING, EnumSet.of(CONFIRMED, CANCELLED));
+        NEXT.put(CONFIRMED, EnumSet.of(SHIPPED, CANCELLED));
+        NEXT.put(SHIPPED, EnumSet.of(DELIVERED, RETURNED));
+        NEXT.put(DELIVERED, EnumSet.of(RETURNED));
+        NEXT.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+        NEXT.put(RETURNED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    public Set<OrderStatus> next() {
+        return Collections.unmodifiableSet(NEXT.get(this));
+    }
+
+    public boolean canMoveTo(OrderStatus target) {
+        return NEXT.get(this).contains(target);
+    }
+
+    // the statuses an item may be in to move to the target
+    public static Set<OrderStatus> sourcesOf(OrderStatus target) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        NEXT.forEach((from, targets) -> {
+            if (targets.contains(target)) {
+                sources.add(from);
+            }
+        });
+        return sources;
+    }
 }
@@ -0,0 +1,26 @@
+/*
+    Product sort enum
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+import com.example.ecommerce.exception.InvalidCredentialsException;
+
+public enum ProductSort {
+    NEWEST, PRICE_ASC, PRICE_DESC, NAME_ASC;
+
+    // resolve the sort request param, null means newest first
+    public static ProductSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return ProductSort.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCredentialsException("Unsupported sort: " + value);
+        }
+    }
+}
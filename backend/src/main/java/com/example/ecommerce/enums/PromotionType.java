@@ -0,0 +1,12 @@
+/*
+    Promotion type enum
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+public enum PromotionType {
+    PERCENT_OFF, AMOUNT_OFF, BUY_X_GET_Y
+}
@@ -0,0 +1,32 @@
+/*
+    Rollup dimension enum, what the sales dashboard groups by
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+import com.example.ecommerce.exception.InvalidCredentialsException;
+
+public enum RollupDimension {
+    DAY("day"), PRODUCT("product_id"), CATEGORY("category_id"), STATUS("status");
+
+    private final String column;
+
+    RollupDimension(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public static RollupDimension resolve(String value) {
+        try {
+            return RollupDimension.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCredentialsException("Unsupported rollup dimension: " + value);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+/*
+    Status update outcome enum, per item result of a bulk status update
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+public enum StatusUpdateOutcome {
+    UPDATED, UNCHANGED, NOT_FOUND, INVALID_TRANSITION, OUT_OF_STOCK, FAILED
+}
@@ -0,0 +1,15 @@
+/*
+    Conflict exception, thrown when a request clashes with one whose outcome is not known yet
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.exception;
+
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
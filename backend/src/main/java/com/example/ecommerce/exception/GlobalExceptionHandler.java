@@ -3,10 +3,11 @@
     
     @author teshan_kalhara
     @create 5/5/2025
-    @update 5/5/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -44,4 +45,24 @@ public class GlobalExceptionHandler {
                 .build();
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Response> handleTooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+        Response errorResponse = Response.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Response> handleConflictException(ConflictException ex, WebRequest request) {
+        Response errorResponse = Response.builder()
+                .status(HttpStatus.CONFLICT.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
 }
@@ -0,0 +1,15 @@
+/*
+    Payment gateway exception, thrown by a gateway when a call fails and may be retried
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.exception;
+
+public class PaymentGatewayException extends RuntimeException {
+
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+    Snowflake node config.
+    Every running instance needs its own ids.node-id. When it is not set a node id is derived from the
+    host name and process id, which is fine for a single instance but may collide across several.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Component
+@Slf4j
+public class SnowflakeNodeConfig {
+
+    public SnowflakeNodeConfig(@Value("${ids.node-id:-1}") int nodeId) {
+        int node = nodeId >= 0 ? nodeId : derivedNodeId();
+        SnowflakeIds.configure(node);
+        log.info("Snowflake ids use node {}{}", node, nodeId >= 0 ? "" : " (derived, set ids.node-id per instance)");
+    }
+
+    private static int derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return Math.floorMod((host + ProcessHandle.current().pid()).hashCode(), SnowflakeIds.MAX_NODE + 1);
+    }
+}
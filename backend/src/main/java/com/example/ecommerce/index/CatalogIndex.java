@@ -0,0 +1,37 @@
+/*
+    Catalog index interface.
+    An in-memory view of the catalog that is rebuilt at startup and kept up to date by the
+    product and category write paths through CatalogIndexer.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CatalogIndex {
+
+    // replace the whole index, products are loaded with their category
+    void rebuild(List<Category> categories, List<Product> products);
+
+    void onProductSaved(Product product);
+
+    // a batch of saves from a bulk write, indexes override it to pay their lock or rebuild once per batch
+    default void onProductsSaved(Collection<Product> products) {
+        products.forEach(this::onProductSaved);
+    }
+
+    void onProductDeleted(Long productId);
+
+    default void onCategorySaved(Category category) {
+    }
+
+    default void onCategoryDeleted(Long categoryId) {
+    }
+}
@@ -0,0 +1,87 @@
+/*
+    Catalog indexer, fans catalog changes out to every CatalogIndex bean
+    and loads them at startup, before the web server starts taking requests.
+    Catalog versions are bumped last, once every index reflects the change.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.CategoryRepository;
+import com.example.ecommerce.repository.ProductRepository;
+
+import java.util.List;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogIndexer implements SmartInitializingSingleton {
+
+    private static final int REFRESH_CHUNK = 1000;
+
+    private final List<CatalogIndex> indexes;
+    private final CategoryRepository categoryRepo;
+    private final ProductRepository productRepo;
+    private final CatalogVersions catalogVersions;
+    private final EntityManager entityManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    public void reload() {
+        long start = System.currentTimeMillis();
+        List<Category> categories = categoryRepo.findAll();
+        List<Product> products = productRepo.findAllWithCategory();
+        indexes.forEach(index -> index.rebuild(categories, products));
+        catalogVersions.reloaded(categories, products);
+        log.info("Catalog indexes loaded with {} products in {} ms", products.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    public void productSaved(Product product) {
+        indexes.forEach(index -> index.onProductSaved(product));
+        catalogVersions.productSaved(product);
+    }
+
+    // for bulk writes that bypass the entities: reload the touched products in chunks and hand each
+    // chunk to the indexes as one batch, clearing the persistence context so a large batch never piles
+    // up in memory
+    public void productsChanged(List<Long> productIds) {
+        for (int from = 0; from < productIds.size(); from += REFRESH_CHUNK) {
+            List<Long> chunk = productIds.subList(from, Math.min(productIds.size(), from + REFRESH_CHUNK));
+            List<Product> products = productRepo.findAllWithCategoryByIdIn(chunk);
+            indexes.forEach(index -> index.onProductsSaved(products));
+            catalogVersions.productsSaved(products);
+            entityManager.clear();
+        }
+    }
+
+    public void productDeleted(Long productId) {
+        indexes.forEach(index -> index.onProductDeleted(productId));
+        catalogVersions.productDeleted(productId);
+    }
+
+    public void categorySaved(Category category) {
+        indexes.forEach(index -> index.onCategorySaved(category));
+        catalogVersions.categorySaved(category);
+    }
+
+    // deleting a category cascades to its products
+    public void categoryDeleted(Long categoryId, List<Long> productIds) {
+        productIds.forEach(this::productDeleted);
+        indexes.forEach(index -> index.onCategoryDeleted(categoryId));
+        catalogVersions.categoryDeleted(categoryId);
+    }
+}
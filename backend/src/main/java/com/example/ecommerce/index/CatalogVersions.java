@@ -0,0 +1,111 @@
+/*
+    Catalog version counters for conditional GETs.
+    Every catalog write takes the next value of one global counter and stamps it on the product or
+    category it touched, so each version only ever grows. The boot epoch is part of every ETag because
+    the counters restart with the process.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class CatalogVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong global = new AtomicLong();
+    private final Map<Long, Long> productVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> categoryVersions = new ConcurrentHashMap<>();
+    // category of every product, so a product that moves also bumps the category it left
+    private final Map<Long, Long> productCategories = new ConcurrentHashMap<>();
+
+    // called by CatalogIndexer only after every index has applied the change,
+    // so a reader can never pair a new ETag with a stale body
+    void reloaded(List<Category> categories, List<Product> products) {
+        long version = global.incrementAndGet();
+        productVersions.clear();
+        categoryVersions.clear();
+        productCategories.clear();
+        categories.forEach(category -> categoryVersions.put(category.getId(), version));
+        for (Product product : products) {
+            productVersions.put(product.getId(), version);
+            if (product.getCategory() != null) {
+                productCategories.put(product.getId(), product.getCategory().getId());
+            }
+        }
+    }
+
+    void productSaved(Product product) {
+        stamp(product, global.incrementAndGet());
+    }
+
+    // one version for the whole batch
+    void productsSaved(Collection<Product> products) {
+        long version = global.incrementAndGet();
+        products.forEach(product -> stamp(product, version));
+    }
+
+    void productDeleted(Long productId) {
+        long version = global.incrementAndGet();
+        productVersions.remove(productId);
+        bumpCategory(productCategories.remove(productId), version);
+    }
+
+    void categorySaved(Category category) {
+        categoryVersions.put(category.getId(), global.incrementAndGet());
+    }
+
+    void categoryDeleted(Long categoryId) {
+        global.incrementAndGet();
+        categoryVersions.remove(categoryId);
+    }
+
+    // lists depend on every product and category
+    public String catalogETag() {
+        return eTag("c", global.get());
+    }
+
+    // null when the product is unknown, the request then falls through to the normal 404
+    public String productETag(Long productId) {
+        Long version = productVersions.get(productId);
+        return version != null ? eTag("p" + productId, version) : null;
+    }
+
+    public String categoryETag(Long categoryId) {
+        Long version = categoryVersions.get(categoryId);
+        return version != null ? eTag("g" + categoryId, version) : null;
+    }
+
+    private void stamp(Product product, long version) {
+        productVersions.put(product.getId(), version);
+        Long previousCategory = product.getCategory() != null
+                ? productCategories.put(product.getId(), product.getCategory().getId())
+                : productCategories.remove(product.getId());
+        bumpCategory(previousCategory, version);
+        if (product.getCategory() != null) {
+            bumpCategory(product.getCategory().getId(), version);
+        }
+    }
+
+    private void bumpCategory(Long categoryId, long version) {
+        if (categoryId != null) {
+            categoryVersions.computeIfPresent(categoryId, (id, current) -> version);
+        }
+    }
+
+    private String eTag(String scope, long version) {
+        return "\"" + scope + "-" + epoch + "-" + Long.toString(version, 36) + "\"";
+    }
+}
@@ -0,0 +1,101 @@
+/*
+    Category snapshot.
+    Immutable view of every category with its product count, price range and sorted product ids.
+    A new snapshot is published for every catalog change; unchanged categories are shared.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class CategorySnapshot {
+
+    static final CategorySnapshot EMPTY = new CategorySnapshot(new TreeMap<>());
+
+    private final Map<Long, CategoryView> categories;
+
+    CategorySnapshot(TreeMap<Long, CategoryView> categories) {
+        this.categories = Collections.unmodifiableMap(categories);
+    }
+
+    public CategoryView get(Long categoryId) {
+        return categories.get(categoryId);
+    }
+
+    // ordered by category id
+    public Collection<CategoryView> all() {
+        return categories.values();
+    }
+
+    Map<Long, CategoryView> asMap() {
+        return categories;
+    }
+
+    public static final class CategoryView {
+        private final Long id;
+        private final String name;
+        private final long[] productIds;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+
+        CategoryView(Long id, String name, long[] productIds, BigDecimal minPrice, BigDecimal maxPrice) {
+            this.id = id;
+            this.name = name;
+            this.productIds = productIds;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getProductCount() {
+            return productIds.length;
+        }
+
+        public BigDecimal getMinPrice() {
+            return minPrice;
+        }
+
+        public BigDecimal getMaxPrice() {
+            return maxPrice;
+        }
+
+        public boolean containsProduct(long productId) {
+            return Arrays.binarySearch(productIds, productId) >= 0;
+        }
+
+        // newest first, the way the storefront lists products
+        public List<Long> productIds(int offset, int limit) {
+            int from = Math.max(productIds.length - offset, 0);
+            int to = Math.max(from - limit, 0);
+            Long[] page = new Long[from - to];
+            for (int i = from - 1, n = 0; i >= to; i--) {
+                page[n++] = productIds[i];
+            }
+            return Arrays.asList(page);
+        }
+
+        long[] productIdArray() {
+            return productIds;
+        }
+
+        CategoryView withName(String newName) {
+            return new CategoryView(id, newName, productIds, minPrice, maxPrice);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+    Category snapshot index.
+    Publishes an immutable CategorySnapshot through an atomic reference: readers never lock and
+    never query the database. Writers are serialised and only rebuild the categories they touch; a
+    category's price range follows each change and is only rescanned when the product that held its
+    lowest or highest price leaves it.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.index.CategorySnapshot.CategoryView;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+@Component
+public class CategorySnapshotIndex implements CatalogIndex {
+
+    private final AtomicReference<CategorySnapshot> snapshot = new AtomicReference<>(CategorySnapshot.EMPTY);
+
+    // writer side state, guarded by this
+    private final Map<Long, ProductEntry> products = new HashMap<>();
+
+    public CategorySnapshot current() {
+        return snapshot.get();
+    }
+
+    @Override
+    public synchronized void rebuild(List<Category> categories, List<Product> productList) {
+        products.clear();
+        Map<Long, long[]> idsByCategory = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        for (Product product : productList) {
+            ProductEntry entry = ProductEntry.of(product);
+            products.put(product.getId(), entry);
+            if (entry.categoryId != null) {
+                sizes.merge(entry.categoryId, 1, Integer::sum);
+            }
+        }
+        sizes.forEach((categoryId, size) -> idsByCategory.put(categoryId, new long[size]));
+        Map<Long, Integer> filled = new HashMap<>();
+        products.forEach((productId, entry) -> {
+            if (entry.categoryId != null) {
+                int n = filled.merge(entry.categoryId, 1, Integer::sum) - 1;
+                idsByCategory.get(entry.categoryId)[n] = productId;
+            }
+        });
+
+        TreeMap<Long, CategoryView> views = new TreeMap<>();
+        for (Category category : categories) {
+            long[] ids = idsByCategory.getOrDefault(category.getId(), new long[0]);
+            Arrays.sort(ids);
+            views.put(category.getId(), view(category.getId(), category.getName(), ids));
+        }
+        snapshot.set(new CategorySnapshot(views));
+    }
+
+    @Override
+    public synchronized void onProductSaved(Product product) {
+        ProductEntry entry = ProductEntry.of(product);
+        ProductEntry previous = products.put(product.getId(), entry);
+        TreeMap<Long, CategoryView> views = new TreeMap<>(snapshot.get().asMap());
+        if (previous != null && previous.categoryId != null) {
+            CategoryView view = views.get(previous.categoryId);
+            if (view != null) {
+                views.put(view.getId(), withoutProduct(view, product.getId(), previous.price));
+            }
+        }
+        if (entry.categoryId != null) {
+            CategoryView view = views.get(entry.categoryId);
+            if (view != null) {
+                views.put(view.getId(), withProduct(view, product.getId(), entry.price));
+            }
+        }
+        snapshot.set(new CategorySnapshot(views));
+    }
+
+    // each touched category gets one new id array and one price scan, and the batch one snapshot copy
+    @Override
+    public synchronized void onProductsSaved(Collection<Product> batch) {
+        Map<Long, Set<Long>> leaving = new HashMap<>();
+        Map<Long, Set<Long>> joining = new HashMap<>();
+        for (Product product : batch) {
+            ProductEntry entry = ProductEntry.of(product);
+            ProductEntry previous = products.put(product.getId(), entry);
+            if (previous != null && previous.categoryId != null && !previous.categoryId.equals(entry.categoryId)) {
+                mark(leaving, joining, previous.categoryId, product.getId());
+            }
+            if (entry.categoryId != null) {
+                mark(joining, leaving, entry.categoryId, product.getId());
+            }
+        }
+        Set<Long> touched = new HashSet<>(leaving.keySet());
+        touched.addAll(joining.keySet());
+        TreeMap<Long, CategoryView> views = new TreeMap<>(snapshot.get().asMap());
+        for (Long categoryId : touched) {
+            CategoryView view = views.get(categoryId);
+            if (view == null) {
+                continue;
+            }
+            Set<Long> gone = leaving.getOrDefault(categoryId, Set.of());
+            long[] ids = LongStream.concat(
+                    Arrays.stream(view.productIdArray()).filter(id -> !gone.contains(id)),
+                    joining.getOrDefault(categoryId, Set.of()).stream().mapToLong(Long::longValue))
+                    .sorted().distinct().toArray();
+            views.put(categoryId, view(categoryId, view.getName(), ids));
+        }
+        snapshot.set(new CategorySnapshot(views));
+    }
+
+    @Override
+    public synchronized void onProductDeleted(Long productId) {
+        ProductEntry previous = products.remove(productId);
+        if (previous == null || previous.categoryId == null) {
+            return;
+        }
+        CategoryView view = snapshot.get().get(previous.categoryId);
+        if (view != null) {
+            TreeMap<Long, CategoryView> views = new TreeMap<>(snapshot.get().asMap());
+            views.put(view.getId(), withoutProduct(view, productId, previous.price));
+            snapshot.set(new CategorySnapshot(views));
+        }
+    }
+
+    @Override
+    public synchronized void onCategorySaved(Category category) {
+        TreeMap<Long, CategoryView> views = new TreeMap<>(snapshot.get().asMap());
+        CategoryView view = views.get(category.getId());
+        views.put(category.getId(), view != null ? view.withName(category.getName())
+                : view(category.getId(), category.getName(), new long[0]));
+        snapshot.set(new CategorySnapshot(views));
+    }
+
+    @Override
+    public synchronized void onCategoryDeleted(Long categoryId) {
+        TreeMap<Long, CategoryView> views = new TreeMap<>(snapshot.get().asMap());
+        if (views.remove(categoryId) != null) {
+            snapshot.set(new CategorySnapshot(views));
+        }
+    }
+
+    private CategoryView view(Long categoryId, String name, long[] productIds) {
+        BigDecimal min = null;
+        BigDecimal max = null;
+        for (long productId : productIds) {
+            BigDecimal price = products.get(productId).price;
+            if (price == null) {
+                continue;
+            }
+            if (min == null || price.compareTo(min) < 0) {
+                min = price;
+            }
+            if (max == null || price.compareTo(max) > 0) {
+                max = price;
+            }
+        }
+        return new CategoryView(categoryId, name, productIds, min, max);
+    }
+
+    // a product saved twice in one batch only keeps its last move
+    private static void mark(Map<Long, Set<Long>> into, Map<Long, Set<Long>> opposite, Long categoryId,
+            Long productId) {
+        into.computeIfAbsent(categoryId, id -> new HashSet<>()).add(productId);
+        Set<Long> other = opposite.get(categoryId);
+        if (other != null) {
+            other.remove(productId);
+        }
+    }
+
+    private static CategoryView withProduct(CategoryView view, long productId, BigDecimal price) {
+        BigDecimal min = view.getMinPrice();
+        BigDecimal max = view.getMaxPrice();
+        if (price != null) {
+            min = min == null || price.compareTo(min) < 0 ? price : min;
+            max = max == null || price.compareTo(max) > 0 ? price : max;
+        }
+        return new CategoryView(view.getId(), view.getName(), with(view.productIdArray(), productId), min, max);
+    }
+
+    // price is what the product was listed at in this category
+    private CategoryView withoutProduct(CategoryView view, long productId, BigDecimal price) {
+        long[] ids = without(view.productIdArray(), productId);
+        if (price != null && (view.getMinPrice() == null || price.compareTo(view.getMinPrice()) == 0
+                || price.compareTo(view.getMaxPrice()) == 0)) {
+            return view(view.getId(), view.getName(), ids);
+        }
+        return new CategoryView(view.getId(), view.getName(), ids, view.getMinPrice(), view.getMaxPrice());
+    }
+
+    // copy-on-write insert/remove so published arrays are never mutated
+    private static long[] with(long[] ids, long id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) {
+            return ids;
+        }
+        int insert = -pos - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insert);
+        copy[insert] = id;
+        System.arraycopy(ids, insert, copy, insert + 1, ids.length - insert);
+        return copy;
+    }
+
+    private static long[] without(long[] ids, long id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, pos);
+        System.arraycopy(ids, pos + 1, copy, pos, ids.length - pos - 1);
+        return copy;
+    }
+
+    private record ProductEntry(Long categoryId, BigDecimal price) {
+        static ProductEntry of(Product product) {
+            return new ProductEntry(product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.getPrice());
+        }
+    }
+}
@@ -0,0 +1,403 @@
+/*
+    Product search index.
+    Inverted index over product name and description with sorted primitive int posting lists.
+    Queries are AND-ed over their tokens, the last token also matches as a prefix, and hits are
+    ranked by a tf-idf style score where name matches weigh more than description matches.
+    A saved product keeps its doc id and a deleted product's id goes to the next new product, so the
+    doc arrays stay as large as the catalog however often products are written.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class ProductSearchIndex implements CatalogIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final double[] TF = new double[64];
+
+    static {
+        for (int weight = 1; weight < TF.length; weight++) {
+            TF[weight] = 1.0 + Math.log(weight);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    @Override
+    public void rebuild(List<Category> categories, List<Product> products) {
+        // build off-lock, searches keep using the old state until the swap
+        State next = new State();
+        products.forEach(next::add);
+        lock.writeLock().lock();
+        try {
+            state = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            state.add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductsSaved(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            products.forEach(state::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextTokenizer.tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return SearchResult.EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            return state.search(tokens, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record SearchResult(List<Long> productIds, int total) {
+        static final SearchResult EMPTY = new SearchResult(List.of(), 0);
+    }
+
+    private static final class State {
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        private final Map<Long, Integer> docIds = new HashMap<>();
+        private long[] productIds = new long[1024];
+        private String[][] docTerms = new String[1024][];
+        private int nextDoc;
+        private int liveDocs;
+        // doc ids of deleted products, handed to the next new products
+        private int[] freeDocs = new int[16];
+        private int freeCount;
+
+        // adds the product or replaces what was indexed for it under the same doc id
+        void add(Product product) {
+            Map<String, Integer> weights = new HashMap<>();
+            for (String token : TextTokenizer.tokenize(product.getName())) {
+                weights.merge(token, NAME_WEIGHT, Integer::sum);
+            }
+            for (String token : TextTokenizer.tokenize(product.getDescription())) {
+                weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+            }
+            Integer existing = docIds.get(product.getId());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                removeTerms(doc);
+            } else {
+                doc = freeCount > 0 ? freeDocs[--freeCount] : nextDoc++;
+                if (doc == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, doc * 2);
+                    docTerms = Arrays.copyOf(docTerms, doc * 2);
+                }
+                productIds[doc] = product.getId();
+                docIds.put(product.getId(), doc);
+                liveDocs++;
+            }
+            docTerms[doc] = weights.keySet().toArray(String[]::new);
+            weights.forEach((term, weight) -> terms.computeIfAbsent(term, t -> new Postings()).insert(doc, weight));
+        }
+
+        void remove(Long productId) {
+            Integer doc = docIds.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            removeTerms(doc);
+            docTerms[doc] = null;
+            liveDocs--;
+            if (freeCount == freeDocs.length) {
+                freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+            }
+            freeDocs[freeCount++] = doc;
+        }
+
+        private void removeTerms(int doc) {
+            for (String term : docTerms[doc]) {
+                Postings postings = terms.get(term);
+                postings.remove(doc);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+
+        SearchResult search(List<String> tokens, int offset, int limit) {
+            Postings[] lists = new Postings[tokens.size()];
+            int last = tokens.size() - 1;
+            for (int i = 0; i < last; i++) {
+                lists[i] = terms.get(tokens.get(i));
+                if (lists[i] == null) {
+                    return SearchResult.EMPTY;
+                }
+            }
+            lists[last] = expandPrefix(tokens.get(last));
+            if (lists[last] == null) {
+                return SearchResult.EMPTY;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+
+            // start from the shortest list and keep the docs found in every other list
+            Postings first = lists[0];
+            int count = first.size;
+            int[] docs = Arrays.copyOf(first.docs, count);
+            float[] scores = new float[count];
+            double idf = idf(first);
+            for (int i = 0; i < count; i++) {
+                scores[i] = (float) (idf * tf(first.weights[i]));
+            }
+            for (int l = 1; l < lists.length && count > 0; l++) {
+                Postings postings = lists[l];
+                idf = idf(postings);
+                int kept = 0;
+                int from = 0;
+                for (int i = 0; i < count && from < postings.size; i++) {
+                    int pos = Arrays.binarySearch(postings.docs, from, postings.size, docs[i]);
+                    if (pos >= 0) {
+                        docs[kept] = docs[i];
+                        scores[kept] = scores[i] + (float) (idf * tf(postings.weights[pos]));
+                        kept++;
+                        from = pos + 1;
+                    } else {
+                        from = -pos - 1;
+                    }
+                }
+                count = kept;
+            }
+            if (offset >= count) {
+                return new SearchResult(List.of(), count);
+            }
+
+            int[] order = topK(docs, scores, count, Math.min(count, offset + limit));
+            List<Long> page = new ArrayList<>(order.length - offset);
+            for (int i = offset; i < order.length; i++) {
+                page.add(productIds[docs[order[i]]]);
+            }
+            return new SearchResult(page, count);
+        }
+
+        private double idf(Postings postings) {
+            return Math.log(1.0 + (double) liveDocs / postings.size);
+        }
+
+        private static double tf(int weight) {
+            return weight < TF.length ? TF[weight] : 1.0 + Math.log(weight);
+        }
+
+        // exact term plus, for longer tokens, every indexed term starting with it
+        private Postings expandPrefix(String token) {
+            if (token.length() < MIN_PREFIX_LENGTH) {
+                return terms.get(token);
+            }
+            NavigableMap<String, Postings> matches = terms.subMap(token, true, token + Character.MAX_VALUE, true);
+            if (matches.isEmpty()) {
+                return null;
+            }
+            if (matches.size() == 1) {
+                return matches.firstEntry().getValue();
+            }
+            int total = 0;
+            int used = 0;
+            for (Postings postings : matches.values()) {
+                if (used++ == MAX_PREFIX_TERMS) {
+                    break;
+                }
+                total += postings.size;
+            }
+            // pack (doc, weight) into longs so a single primitive sort orders them by doc
+            long[] packed = new long[total];
+            int n = 0;
+            used = 0;
+            for (Postings postings : matches.values()) {
+                if (used++ == MAX_PREFIX_TERMS) {
+                    break;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    packed[n++] = ((long) postings.docs[i] << 32) | postings.weights[i];
+                }
+            }
+            Arrays.sort(packed);
+            Postings union = new Postings();
+            for (long entry : packed) {
+                int doc = (int) (entry >>> 32);
+                int weight = (int) entry;
+                if (union.size > 0 && union.docs[union.size - 1] == doc) {
+                    union.weights[union.size - 1] = Math.max(union.weights[union.size - 1], weight);
+                } else {
+                    union.append(doc, weight);
+                }
+            }
+            return union;
+        }
+
+        // indexes of the k best hits, best first
+        private int[] topK(int[] docs, float[] scores, int count, int k) {
+            // min-heap of the current k best, the root is the worst hit kept so far
+            int[] heap = new int[k];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                if (size < k) {
+                    heap[size] = i;
+                    int child = size++;
+                    while (child > 0) {
+                        int parent = (child - 1) >>> 1;
+                        if (!better(heap[parent], heap[child], docs, scores)) {
+                            break;
+                        }
+                        swap(heap, child, parent);
+                        child = parent;
+                    }
+                } else if (better(i, heap[0], docs, scores)) {
+                    heap[0] = i;
+                    int parent = 0;
+                    while (true) {
+                        int worst = parent;
+                        int left = 2 * parent + 1;
+                        int right = left + 1;
+                        if (left < size && better(heap[worst], heap[left], docs, scores)) {
+                            worst = left;
+                        }
+                        if (right < size && better(heap[worst], heap[right], docs, scores)) {
+                            worst = right;
+                        }
+                        if (worst == parent) {
+                            break;
+                        }
+                        swap(heap, parent, worst);
+                        parent = worst;
+                    }
+                }
+            }
+            // pop the heap from the back so the best hit ends up first
+            int[] order = new int[size];
+            for (int last = size - 1; last >= 0; last--) {
+                order[last] = heap[0];
+                heap[0] = heap[last];
+                int parent = 0;
+                while (true) {
+                    int worst = parent;
+                    int left = 2 * parent + 1;
+                    int right = left + 1;
+                    if (left < last && better(heap[worst], heap[left], docs, scores)) {
+                        worst = left;
+                    }
+                    if (right < last && better(heap[worst], heap[right], docs, scores)) {
+                        worst = right;
+                    }
+                    if (worst == parent) {
+                        break;
+                    }
+                    swap(heap, parent, worst);
+                    parent = worst;
+                }
+            }
+            return order;
+        }
+
+        // higher score wins, ties go to the newest product
+        private boolean better(int a, int b, int[] docs, float[] scores) {
+            if (scores[a] != scores[b]) {
+                return scores[a] > scores[b];
+            }
+            return productIds[docs[a]] > productIds[docs[b]];
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+
+    // sorted doc ids with the matching term weight for each doc
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        // keeps the list sorted, a fresh doc id is the largest yet and lands at the end
+        void insert(int doc, int weight) {
+            int pos = size == 0 || docs[size - 1] < doc ? size : -Arrays.binarySearch(docs, 0, size, doc) - 1;
+            if (pos < 0) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            System.arraycopy(weights, pos, weights, pos + 1, size - pos);
+            docs[pos] = doc;
+            weights[pos] = weight;
+            size++;
+        }
+
+        void append(int doc, int weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+            System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
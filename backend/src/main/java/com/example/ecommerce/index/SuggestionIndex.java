@@ -0,0 +1,394 @@
+/*
+    Suggestion index for typeahead.
+    Prefix trie over the words of product and category names. Every node keeps the most popular
+    entries of its subtree, so a lookup is a walk down the prefix and never touches the database.
+    Products are ranked by how often they were ordered, categories by their product count.
+    Writes only touch the entry map; the trie is rebuilt from it at most once per refresh delay, so a
+    burst or a steady stream of writes costs one rebuild per delay rather than one per write. The
+    rankings are read again from the order items on their own interval.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.OrderItemRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SuggestionIndex implements CatalogIndex {
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String CATEGORY = "CATEGORY";
+
+    private static final int TOP_K = 32;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private final OrderItemRepository orderItemRepo;
+
+    @Value("${suggestion.refresh-delay:1s}")
+    private Duration refreshDelay;
+    @Value("${suggestion.popularity-interval:10m}")
+    private Duration popularityInterval;
+
+    // source of truth for the trie, keyed by "<type>:<id>"; a full rebuild swaps in a new map
+    private volatile Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // product id -> category id, for the category rankings
+    private volatile Map<Long, Long> productCategories = new ConcurrentHashMap<>();
+    // one trie is built and published at a time, and always from the current entries
+    private final Object buildLock = new Object();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggestion-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Node root = new Node();
+
+    @PostConstruct
+    void start() {
+        long interval = popularityInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refreshPopularity, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // the new entries are collected aside, a refresh running meanwhile still builds from complete ones
+    @Override
+    public void rebuild(List<Category> categories, List<Product> products) {
+        Map<Long, Long> orderCounts = orderCounts();
+        Map<Long, Long> newProductCategories = new ConcurrentHashMap<>();
+        products.stream()
+                .filter(product -> product.getCategory() != null)
+                .forEach(product -> newProductCategories.put(product.getId(), product.getCategory().getId()));
+        Map<Long, Long> productCounts = productCounts(newProductCategories);
+
+        Map<String, Entry> newEntries = new ConcurrentHashMap<>();
+        for (Category category : categories) {
+            put(newEntries, new Entry(CATEGORY, category.getId(), category.getName(),
+                    productCounts.getOrDefault(category.getId(), 0L)));
+        }
+        for (Product product : products) {
+            put(newEntries, new Entry(PRODUCT, product.getId(), product.getName(),
+                    orderCounts.getOrDefault(product.getId(), 0L)));
+        }
+        synchronized (buildLock) {
+            productCategories = newProductCategories;
+            entries = newEntries;
+            root = build(newEntries);
+        }
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        putProduct(product);
+        scheduleRefresh();
+    }
+
+    // the entries change one by one, the trie is rebuilt once for the batch
+    @Override
+    public void onProductsSaved(Collection<Product> products) {
+        products.forEach(this::putProduct);
+        scheduleRefresh();
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        entries.remove(PRODUCT + ":" + productId);
+        productCategories.remove(productId);
+        scheduleRefresh();
+    }
+
+    @Override
+    public void onCategorySaved(Category category) {
+        Entry previous = entries.get(CATEGORY + ":" + category.getId());
+        put(new Entry(CATEGORY, category.getId(), category.getName(), previous != null ? previous.weight : 0L));
+        scheduleRefresh();
+    }
+
+    @Override
+    public void onCategoryDeleted(Long categoryId) {
+        entries.remove(CATEGORY + ":" + categoryId);
+        scheduleRefresh();
+    }
+
+    // suggestions whose words start with the typed words, the last one may be partial
+    public List<Entry> suggest(String prefix, int limit, boolean fuzzy) {
+        List<String> tokens = TextTokenizer.tokenize(prefix);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String last = tokens.get(tokens.size() - 1);
+        List<String> leading = tokens.subList(0, tokens.size() - 1);
+        Node trie = root;
+
+        Set<Entry> result = new LinkedHashSet<>();
+        Node exact = trie.find(last);
+        if (exact != null) {
+            collect(exact.top, leading, limit, result);
+        }
+        if (fuzzy && result.size() < limit && last.length() >= MIN_FUZZY_LENGTH) {
+            List<Entry> candidates = new ArrayList<>();
+            int[] row = new int[last.length() + 1];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = i;
+            }
+            trie.collectWithinOneEdit(last, null, row, (char) 0, candidates);
+            candidates.sort((a, b) -> Long.compare(b.weight, a.weight));
+            collect(candidates.toArray(Entry[]::new), leading, limit, result);
+        }
+        return new ArrayList<>(result);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void putProduct(Product product) {
+        Entry previous = entries.get(PRODUCT + ":" + product.getId());
+        put(new Entry(PRODUCT, product.getId(), product.getName(), previous != null ? previous.weight : 0L));
+        if (product.getCategory() != null) {
+            productCategories.put(product.getId(), product.getCategory().getId());
+        } else {
+            productCategories.remove(product.getId());
+        }
+    }
+
+    private void put(Entry entry) {
+        put(entries, entry);
+    }
+
+    private static void put(Map<String, Entry> entries, Entry entry) {
+        entries.put(entry.type + ":" + entry.id, entry);
+    }
+
+    // new rankings are applied per entry, so a name saved meanwhile is kept
+    private void refreshPopularity() {
+        try {
+            Map<Long, Long> orderCounts = orderCounts();
+            Map<Long, Long> productCounts = productCounts(productCategories);
+            Map<String, Entry> current = entries;
+            for (String key : current.keySet()) {
+                current.computeIfPresent(key, (k, entry) -> new Entry(entry.type, entry.id, entry.text,
+                        (entry.type.equals(PRODUCT) ? orderCounts : productCounts).getOrDefault(entry.id, 0L)));
+            }
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh suggestion rankings, keeping the previous ones", e);
+        }
+    }
+
+    private Map<Long, Long> orderCounts() {
+        Map<Long, Long> orderCounts = new HashMap<>();
+        for (Object[] row : orderItemRepo.countOrderItemsByProduct()) {
+            orderCounts.put((Long) row[0], (Long) row[1]);
+        }
+        return orderCounts;
+    }
+
+    private static Map<Long, Long> productCounts(Map<Long, Long> productCategories) {
+        Map<Long, Long> productCounts = new HashMap<>();
+        productCategories.values().forEach(categoryId -> productCounts.merge(categoryId, 1L, Long::sum));
+        return productCounts;
+    }
+
+    // coalesce catalog writes into one rebuild per refresh delay
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refresher.schedule(() -> {
+                refreshScheduled.set(false);
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.error("Failed to refresh suggestion index", e);
+                }
+            }, refreshDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        synchronized (buildLock) {
+            root = build(entries);
+        }
+    }
+
+    private static Node build(Map<String, Entry> entries) {
+        Node trie = new Node();
+        for (Entry entry : entries.values()) {
+            for (String word : new LinkedHashSet<>(entry.words)) {
+                trie.insert(word, entry);
+            }
+        }
+        trie.computeTop();
+        return trie;
+    }
+
+    private static void collect(Entry[] candidates, List<String> leading, int limit, Set<Entry> result) {
+        for (Entry entry : candidates) {
+            if (result.size() >= limit) {
+                return;
+            }
+            if (entry.matchesWords(leading)) {
+                result.add(entry);
+            }
+        }
+    }
+
+    public static final class Entry {
+        private final String type;
+        private final Long id;
+        private final String text;
+        private final long weight;
+        private final List<String> words;
+
+        Entry(String type, Long id, String text, long weight) {
+            this.type = type;
+            this.id = id;
+            this.text = text;
+            this.weight = weight;
+            this.words = TextTokenizer.tokenize(text);
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        // every leading word must start one of the entry words
+        boolean matchesWords(List<String> leading) {
+            for (String token : leading) {
+                if (words.stream().noneMatch(word -> word.startsWith(token))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private List<Entry> terminal;
+        private Entry[] top = new Entry[0];
+
+        void insert(String word, Entry entry) {
+            Node node = this;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.childOrCreate(word.charAt(i));
+            }
+            if (node.terminal == null) {
+                node.terminal = new ArrayList<>(1);
+            }
+            node.terminal.add(entry);
+        }
+
+        Node find(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            return node;
+        }
+
+        // post-order: a node's top entries are the best of its own words and its children's tops
+        void computeTop() {
+            List<Entry> candidates = new ArrayList<>();
+            if (terminal != null) {
+                candidates.addAll(terminal);
+                terminal = null;
+            }
+            for (Node child : children) {
+                child.computeTop();
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            top = candidates.stream()
+                    .distinct()
+                    .sorted((a, b) -> Long.compare(b.weight, a.weight))
+                    .limit(TOP_K)
+                    .toArray(Entry[]::new);
+        }
+
+        // Damerau-Levenshtein walk (a swap of two adjacent letters counts as one edit):
+        // keep every subtree whose path is within one edit of the typed prefix
+        void collectWithinOneEdit(String prefix, int[] rowBefore, int[] previousRow, char previousKey,
+                List<Entry> out) {
+            for (int c = 0; c < keys.length; c++) {
+                char key = keys[c];
+                int[] row = new int[previousRow.length];
+                row[0] = previousRow[0] + 1;
+                int best = row[0];
+                for (int i = 1; i < row.length; i++) {
+                    int substitution = previousRow[i - 1] + (prefix.charAt(i - 1) == key ? 0 : 1);
+                    row[i] = Math.min(substitution, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+                    if (rowBefore != null && i > 1 && prefix.charAt(i - 1) == previousKey
+                            && prefix.charAt(i - 2) == key) {
+                        row[i] = Math.min(row[i], rowBefore[i - 2] + 1);
+                    }
+                    best = Math.min(best, row[i]);
+                }
+                if (row[row.length - 1] <= 1) {
+                    out.addAll(Arrays.asList(children[c].top));
+                } else if (best <= 1) {
+                    children[c].collectWithinOneEdit(prefix, previousRow, row, key, out);
+                }
+            }
+        }
+
+        private Node child(char key) {
+            int pos = Arrays.binarySearch(keys, key);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        private Node childOrCreate(char key) {
+            int pos = Arrays.binarySearch(keys, key);
+            if (pos >= 0) {
+                return children[pos];
+            }
+            int insert = -pos - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = key;
+            newChildren[insert] = new Node();
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insert];
+        }
+    }
+}
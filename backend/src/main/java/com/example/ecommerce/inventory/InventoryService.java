@@ -0,0 +1,175 @@
+/*
+    Inventory service, keeps the stock ledger in step with the catalog and the order lifecycle.
+    Placing an order holds stock for a limited time; confirming an item turns its hold into a sale,
+    cancelling gives it back and a return after a sale restocks it. Sales are written behind: changed
+    stock levels are flushed to products.stock in one JDBC batch per interval, not one UPDATE per order.
+    Holds only live in memory, a restart drops them and their items take stock again when confirmed.
+    The ledger is per process and the flush writes absolute levels, so one instance has to own
+    products.stock; running several instances needs the ledger in a shared store first.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.inventory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.index.CatalogIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class InventoryService implements CatalogIndex {
+
+    private static final String UPDATE_STOCK = "update products set stock = ? where id = ?";
+
+    // statuses in which the item's units have left the shelf
+    private static final Set<OrderStatus> SOLD = EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.SHIPPED,
+            OrderStatus.DELIVERED);
+    private static final Set<OrderStatus> GIVEN_BACK = EnumSet.of(OrderStatus.CANCELLED, OrderStatus.RETURNED);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${inventory.reservation-ttl:15m}")
+    private Duration reservationTtl;
+    @Value("${inventory.flush-interval:1s}")
+    private Duration flushInterval;
+
+    private final StockLedger ledger = new StockLedger();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void start() {
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::expireHolds, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    // the ledger stays authoritative for products it already tracks, a reload only adds and drops products
+    @Override
+    public void rebuild(List<Category> categories, List<Product> products) {
+        ledger.retainOnly(products.stream().map(Product::getId).collect(Collectors.toSet()));
+        products.forEach(this::onProductSaved);
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        if (product.getStock() != null) {
+            ledger.track(product.getId(), product.getStock());
+        }
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        ledger.untrack(productId);
+    }
+
+    public void setStock(Long productId, int stock) {
+        if (stock < 0) {
+            throw new InvalidCredentialsException("Stock cannot be negative");
+        }
+        ledger.setStock(productId, stock);
+    }
+
+    // -1 when the product's stock is not tracked
+    public long available(Long productId) {
+        return ledger.available(productId);
+    }
+
+    public void reserve(List<StockLine> lines) {
+        Long shortProductId = ledger.reserve(lines, System.currentTimeMillis() + reservationTtl.toMillis());
+        if (shortProductId != null) {
+            throw new InvalidCredentialsException("Not enough stock for product: " + shortProductId);
+        }
+    }
+
+    // for orders that were held but never stored
+    public void release(List<StockLine> lines) {
+        lines.forEach(line -> ledger.release(line.orderItemId()));
+    }
+
+    // called before a status write: a move into a sold status has to find its units first, so an item
+    // whose hold is gone is held again; true when this call placed the hold, a failed write then
+    // releases it and statusChanged after the commit only has to settle it
+    public boolean holdForStatus(StockLine line, OrderStatus from, OrderStatus to) {
+        if (!SOLD.contains(to) || SOLD.contains(from) || ledger.isHeld(line.orderItemId())) {
+            return false;
+        }
+        reserve(List.of(line));
+        return ledger.isHeld(line.orderItemId());
+    }
+
+    public void statusChanged(StockLine line, OrderStatus from, OrderStatus to) {
+        boolean wasSold = SOLD.contains(from);
+        if (SOLD.contains(to) && !wasSold) {
+            // the hold may have expired or been cancelled, then the sale has to find stock again
+            if (!ledger.commit(line.orderItemId()) && !ledger.take(line.productId(), line.quantity())) {
+                throw new InvalidCredentialsException("Not enough stock for product: " + line.productId());
+            }
+        } else if (GIVEN_BACK.contains(to)) {
+            if (wasSold) {
+                ledger.restock(line.productId(), line.quantity());
+            } else {
+                ledger.release(line.orderItemId());
+            }
+        }
+    }
+
+    private void expireHolds() {
+        int released = ledger.expire(System.currentTimeMillis());
+        if (released > 0) {
+            log.info("Released {} expired stock holds", released);
+        }
+    }
+
+    // absolute levels, so a retried or repeated write can never count a sale twice; only correct while
+    // this instance is the only writer of products.stock
+    void flush() {
+        Map<Long, Long> levels = ledger.drainDirty();
+        if (levels.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(levels.size());
+        levels.forEach((productId, onHand) -> rows.add(new Object[] { onHand, productId }));
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_STOCK, rows);
+        } catch (DataAccessException e) {
+            ledger.markDirty(levels.keySet());
+            log.warn("Stock write-behind failed for {} products, retrying next interval", levels.size(), e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+    Stock ledger, the in-memory source of truth for stock levels.
+    Every tracked product has an on-hand count (what the products.stock column will hold once flushed)
+    and an available count (on hand minus live holds). Orders take units from available with a CAS loop,
+    so concurrent orders on the same product never take more than there is and never block each other.
+    Products without a stock level are not tracked and never limit an order.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.inventory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class StockLedger {
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    // live holds by order item id
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    // products whose on-hand count changed since the last drain
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // start tracking at the stored level, a product already tracked keeps its in-memory state
+    public void track(Long productId, long onHand) {
+        counters.computeIfAbsent(productId, id -> new Counter(onHand));
+    }
+
+    public void untrack(Long productId) {
+        counters.remove(productId);
+        dirty.remove(productId);
+    }
+
+    public void retainOnly(Set<Long> productIds) {
+        counters.keySet().retainAll(productIds);
+        dirty.retainAll(productIds);
+    }
+
+    public boolean isTracked(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // -1 for untracked products
+    public long available(Long productId) {
+        Counter counter = counters.get(productId);
+        return counter == null ? -1 : counter.available.get();
+    }
+
+    public long onHand(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return -1;
+        }
+        synchronized (counter) {
+            return counter.onHand;
+        }
+    }
+
+    public boolean isHeld(Long orderItemId) {
+        return holds.containsKey(orderItemId);
+    }
+
+    public int holdCount() {
+        return holds.size();
+    }
+
+    // a new on-hand level from a stock count, live holds still come out of it
+    public void setStock(Long productId, long onHand) {
+        Counter counter = counters.computeIfAbsent(productId, id -> new Counter(0));
+        synchronized (counter) {
+            long delta = onHand - counter.onHand;
+            counter.onHand = onHand;
+            counter.available.addAndGet(delta);
+        }
+        dirty.add(productId);
+    }
+
+    // holds every line or none, returns the product that ran short or null when the order is held
+    public Long reserve(List<StockLine> lines, long expiresAt) {
+        // one take per product even when it appears on several lines
+        Map<Long, Long> quantities = new TreeMap<>();
+        for (StockLine line : lines) {
+            if (counters.containsKey(line.productId())) {
+                quantities.merge(line.productId(), (long) line.quantity(), Long::sum);
+            }
+        }
+
+        List<Map.Entry<Counter, Long>> taken = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+            Counter counter = counters.get(entry.getKey());
+            if (counter != null && !counter.take(entry.getValue())) {
+                taken.forEach(done -> done.getKey().available.addAndGet(done.getValue()));
+                return entry.getKey();
+            }
+            if (counter != null) {
+                taken.add(Map.entry(counter, entry.getValue()));
+            }
+        }
+        for (StockLine line : lines) {
+            if (quantities.containsKey(line.productId())) {
+                holds.put(line.orderItemId(), new Hold(line.productId(), line.quantity(), expiresAt));
+            }
+        }
+        return null;
+    }
+
+    // gives held units back, false when the item holds nothing (untracked, expired or already settled)
+    public boolean release(Long orderItemId) {
+        Hold hold = holds.remove(orderItemId);
+        if (hold == null) {
+            return false;
+        }
+        giveBack(hold);
+        return true;
+    }
+
+    // turns a hold into a sale: the units leave on-hand stock and are due to be written
+    public boolean commit(Long orderItemId) {
+        Hold hold = holds.remove(orderItemId);
+        if (hold == null) {
+            return false;
+        }
+        Counter counter = counters.get(hold.productId());
+        if (counter != null) {
+            synchronized (counter) {
+                counter.onHand -= hold.quantity();
+            }
+            dirty.add(hold.productId());
+        }
+        return true;
+    }
+
+    // a sale without a hold, for items whose hold expired; false when there is not enough stock
+    public boolean take(Long productId, long quantity) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return true;
+        }
+        if (!counter.take(quantity)) {
+            return false;
+        }
+        synchronized (counter) {
+            counter.onHand -= quantity;
+        }
+        dirty.add(productId);
+        return true;
+    }
+
+    // units back on the shelf after a sale, e.g. a return
+    public void restock(Long productId, long quantity) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return;
+        }
+        synchronized (counter) {
+            counter.onHand += quantity;
+            counter.available.addAndGet(quantity);
+        }
+        dirty.add(productId);
+    }
+
+    // releases holds that are past their expiry, returns how many
+    public int expire(long now) {
+        int released = 0;
+        for (Map.Entry<Long, Hold> entry : holds.entrySet()) {
+            Hold hold = entry.getValue();
+            // remove(key, value) so a hold committed meanwhile is not given back as well
+            if (hold.expiresAt() <= now && holds.remove(entry.getKey(), hold)) {
+                giveBack(hold);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    // on-hand levels that changed since the last drain, by product id
+    public Map<Long, Long> drainDirty() {
+        Map<Long, Long> levels = new HashMap<>();
+        for (Long productId : dirty) {
+            dirty.remove(productId);
+            long onHand = onHand(productId);
+            if (onHand >= 0) {
+                levels.put(productId, onHand);
+            }
+        }
+        return levels;
+    }
+
+    // after a failed write, so the next drain picks the levels up again
+    public void markDirty(Set<Long> productIds) {
+        productIds.stream().filter(counters::containsKey).forEach(dirty::add);
+    }
+
+    private void giveBack(Hold hold) {
+        Counter counter = counters.get(hold.productId());
+        if (counter != null) {
+            counter.available.addAndGet(hold.quantity());
+        }
+    }
+
+    private record Hold(Long productId, int quantity, long expiresAt) {
+    }
+
+    private static final class Counter {
+
+        private final AtomicLong available;
+        private long onHand; // guarded by this
+
+        private Counter(long onHand) {
+            this.onHand = onHand;
+            this.available = new AtomicLong(onHand);
+        }
+
+        private boolean take(long quantity) {
+            while (true) {
+                long current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
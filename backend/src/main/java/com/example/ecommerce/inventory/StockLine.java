@@ -0,0 +1,11 @@
+/*
+    Stock line, one order item's claim on a product's stock.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.inventory;
+
+public record StockLine(Long orderItemId, Long productId, int quantity) {
+}
@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 5/5/2025
-    @update 5/5/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.mapper;
 
@@ -13,14 +13,16 @@ import com.example.ecommerce.dto.AddressDto;
 import com.example.ecommerce.dto.CategoryDto;
 import com.example.ecommerce.dto.OrderItemDto;
 import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.PromotionDto;
 import com.example.ecommerce.dto.UserDto;
 import com.example.ecommerce.entity.Address;
 import com.example.ecommerce.entity.Category;
 import com.example.ecommerce.entity.OrderItem;
 import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.Promotion;
 import com.example.ecommerce.entity.User;
-
-import java.util.stream.Collectors;
+import com.example.ecommerce.index.CategorySnapshot.CategoryView;
+import com.example.ecommerce.repository.OrderHistoryRow;
 
 @Component
 public class EntityDtoMapper {
@@ -56,12 +58,24 @@ public class EntityDtoMapper {
         return categoryDto;
     }
 
+    // Category snapshot view to DTO with product stats
+    public CategoryDto mapCategoryViewToDto(CategoryView categoryView) {
+        CategoryDto categoryDto = new CategoryDto();
+        categoryDto.setId(categoryView.getId());
+        categoryDto.setName(categoryView.getName());
+        categoryDto.setProductCount(categoryView.getProductCount());
+        categoryDto.setMinPrice(categoryView.getMinPrice());
+        categoryDto.setMaxPrice(categoryView.getMaxPrice());
+        return categoryDto;
+    }
+
     // OrderItem to DTO Basics
     public OrderItemDto mapOrderItemToDtoBasic(OrderItem orderItem) {
         OrderItemDto orderItemDto = new OrderItemDto();
         orderItemDto.setId(orderItem.getId());
         orderItemDto.setQuantity(orderItem.getQuantity());
         orderItemDto.setPrice(orderItem.getPrice());
+        orderItemDto.setDiscount(orderItem.getDiscount());
         orderItemDto.setStatus(orderItem.getStatus().name());
         orderItemDto.setCreatedAt(orderItem.getCreatedAt());
         return orderItemDto;
@@ -79,7 +93,6 @@ public class EntityDtoMapper {
     }
 
     public UserDto mapUserToDtoPlusAddress(User user) {
-        System.out.println("mapUserToDtoPlusAddress is called");
         UserDto userDto = mapUserToDtoBasic(user);
         if (user.getAddress() != null) {
 
@@ -90,11 +103,15 @@ public class EntityDtoMapper {
         return userDto;
     }
 
-    // orderItem to DTO plus product
+    // orderItem to DTO plus the product as it was bought, from the line's snapshot
     public OrderItemDto mapOrderItemToDtoPlusProduct(OrderItem orderItem) {
         OrderItemDto orderItemDto = mapOrderItemToDtoBasic(orderItem);
-        if (orderItem.getProduct() != null) {
-            ProductDto productDto = mapProductToDtoBasic(orderItem.getProduct());
+        if (orderItem.getProductId() != null) {
+            ProductDto productDto = new ProductDto();
+            productDto.setId(orderItem.getProductId());
+            productDto.setName(orderItem.getProductName());
+            productDto.setImageUrl(orderItem.getProductImageUrl());
+            productDto.setPrice(orderItem.getUnitPrice());
             orderItemDto.setProduct(productDto);
         }
         return orderItemDto;
@@ -110,15 +127,30 @@ public class EntityDtoMapper {
         return orderItemDto;
     }
 
-    // USer to DTO with Address and Order Items History
-    public UserDto mapUserToDtoPlusAddressAndOrderHistory(User user) {
-        UserDto userDto = mapUserToDtoPlusAddress(user);
-        if (user.getOrderItemList() != null && !user.getOrderItemList().isEmpty()) {
-            userDto.setOrderItemList(user.getOrderItemList()
-                    .stream()
-                    .map(this::mapOrderItemToDtoPlusProduct)
-                    .collect(Collectors.toList()));
+    // order history projection row to DTO plus product
+    public OrderItemDto mapOrderHistoryRowToDto(OrderHistoryRow row) {
+        OrderItemDto orderItemDto = new OrderItemDto();
+        orderItemDto.setId(row.id());
+        orderItemDto.setQuantity(row.quantity());
+        orderItemDto.setPrice(row.price());
+        orderItemDto.setStatus(row.status().name());
+        orderItemDto.setCreatedAt(row.createdAt());
+        if (row.productId() != null) {
+            ProductDto productDto = new ProductDto();
+            productDto.setId(row.productId());
+            productDto.setName(row.productName());
+            productDto.setImageUrl(row.productImageUrl());
+            productDto.setPrice(row.productPrice());
+            orderItemDto.setProduct(productDto);
         }
-        return userDto;
+        return orderItemDto;
+    }
+
+    // Promotion to DTO
+    public PromotionDto mapPromotionToDto(Promotion promotion) {
+        return new PromotionDto(promotion.getId(), promotion.getName(), promotion.getType(), promotion.getCode(),
+                promotion.getProductId(), promotion.getCategoryId(), promotion.getPercentOff(),
+                promotion.getAmountOff(), promotion.getBuyQuantity(), promotion.getGetQuantity(),
+                promotion.getMinQuantity(), promotion.getStartsAt(), promotion.getEndsAt());
     }
 }
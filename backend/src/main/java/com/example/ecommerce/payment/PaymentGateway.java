@@ -0,0 +1,33 @@
+/*
+    Payment gateway, where payments are authorized.
+    Calls block and always run on a virtual thread with a timeout around them, so an implementation
+    can use a plain blocking client. The payment id is the idempotency key: a call retried after a
+    timeout, or resubmitted after a restart, has to authorize the payment at most once.
+    A declined payment is a result, a failed call is a PaymentGatewayException or any other exception.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.payment;
+
+import java.math.BigDecimal;
+
+public interface PaymentGateway {
+
+    AuthorizationResult authorize(AuthorizationRequest request) throws Exception;
+
+    record AuthorizationRequest(Long paymentId, Long orderId, BigDecimal amount, String method) {
+    }
+
+    record AuthorizationResult(boolean approved, String reference, String declineReason) {
+
+        public static AuthorizationResult approved(String reference) {
+            return new AuthorizationResult(true, reference, null);
+        }
+
+        public static AuthorizationResult declined(String reason) {
+            return new AuthorizationResult(false, null, reason);
+        }
+    }
+}
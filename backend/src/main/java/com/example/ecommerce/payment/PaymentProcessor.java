@@ -0,0 +1,172 @@
+/*
+    Payment processor, runs gateway authorizations off the request path.
+    Every submitted payment gets its own virtual thread, so a slow gateway costs parked virtual
+    threads rather than request threads or pooled connections. A bulkhead caps the calls in flight to
+    the gateway; the wait for a slot has its own bound, so a payment that gets one always has the full
+    call timeout. Failed, timed out and refused calls are retried here with a backoff under the same
+    payment id; declines are final. Authorizing the order again after that is a new attempt with a new
+    payment id, which PaymentService starts. The number of payments being processed is capped, past it
+    submit refuses and the caller decides what to tell the client.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.payment;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.payment.PaymentGateway.AuthorizationRequest;
+import com.example.ecommerce.payment.PaymentGateway.AuthorizationResult;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentProcessor {
+
+    private final PaymentGateway paymentGateway;
+
+    @Value("${payment.gateway.timeout:2s}")
+    private Duration timeout;
+    @Value("${payment.gateway.max-concurrent:200}")
+    private int maxConcurrent;
+    @Value("${payment.gateway.bulkhead-wait:5s}")
+    private Duration bulkheadWait;
+    @Value("${payment.gateway.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${payment.gateway.retry-backoff:250ms}")
+    private Duration retryBackoff;
+    @Value("${payment.max-pending:20000}")
+    private int maxPending;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger pending = new AtomicInteger();
+    private Semaphore bulkhead;
+
+    @PostConstruct
+    void start() {
+        bulkhead = new Semaphore(maxConcurrent);
+    }
+
+    // payments still in flight stay pending and are submitted again on the next start
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean isSaturated() {
+        return pending.get() >= maxPending;
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    // false when too many payments are already being processed, onDone is then never called
+    public boolean submit(AuthorizationRequest request, Consumer<Outcome> onDone) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                Outcome outcome;
+                try {
+                    outcome = process(request);
+                } catch (RuntimeException e) {
+                    log.warn("Could not process payment {}", request.paymentId(), e);
+                    outcome = null;
+                } finally {
+                    // no longer pending by the time anyone is told the outcome
+                    pending.decrementAndGet();
+                }
+                if (outcome == null) {
+                    return;
+                }
+                try {
+                    onDone.accept(outcome);
+                } catch (RuntimeException e) {
+                    log.warn("Could not record the outcome of payment {}", request.paymentId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // null when interrupted by shutdown, the payment is left pending for the next start
+    private Outcome process(AuthorizationRequest request) {
+        String failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                if (attempt > 1) {
+                    Thread.sleep(retryBackoff.toMillis() * (attempt - 1));
+                }
+                if (bulkhead.tryAcquire(bulkheadWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                    AuthorizationResult result = call(request);
+                    return result.approved()
+                            ? new Outcome(PaymentStatus.AUTHORIZED, result.reference(), null, attempt)
+                            : new Outcome(PaymentStatus.DECLINED, null, result.declineReason(), attempt);
+                }
+                failure = "Payment gateway is busy";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (TimeoutException e) {
+                failure = "Payment gateway timed out";
+            } catch (ExecutionException e) {
+                failure = e.getCause().getMessage() != null ? e.getCause().getMessage() : "Payment gateway error";
+            }
+            log.debug("Payment {} attempt {} failed: {}", request.paymentId(), attempt, failure);
+        }
+        return new Outcome(PaymentStatus.FAILED, null, failure, maxAttempts);
+    }
+
+    // on its own virtual thread, so the timeout holds even for a gateway that ignores interrupts. The
+    // bulkhead slot is given back when the gateway call really ends, not when the payment stops waiting
+    private AuthorizationResult call(AuthorizationRequest request)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Future<AuthorizationResult> call;
+        try {
+            call = executor.submit(() -> {
+                try {
+                    return paymentGateway.authorize(request);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            throw e;
+        }
+        try {
+            return call.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            call.cancel(true);
+            throw e;
+        }
+    }
+
+    public record Outcome(PaymentStatus status, String gatewayReference, String failureReason, int attempts) {
+    }
+}
@@ -0,0 +1,270 @@
+/*
+    Payment service, authorizes orders against the payment gateway.
+    Starting a payment is one short insert and a hand off to the payment processor, the request
+    returns with the payment pending and is never held while the gateway answers. Outcomes are queued
+    and written back by one flusher in batched updates: a gateway spike ends in a burst of timeouts,
+    and written one by one those would take every pooled connection away from checkout.
+    Every authorization of an order is its own payment row, numbered per order. A declined or failed
+    payment is authorized again as the next attempt with a new payment id, so the gateway sees a new
+    idempotency key, and the earlier attempts stay on record. Payments left pending by a restart are
+    submitted again on startup under the same payment id, so the gateway does not authorize them
+    twice. A payment started inside a transaction only goes to the gateway once that transaction
+    commits.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.payment;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.ecommerce.dto.PaymentDto;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.exception.TooManyRequestsException;
+import com.example.ecommerce.id.SnowflakeIds;
+import com.example.ecommerce.payment.PaymentGateway.AuthorizationRequest;
+import com.example.ecommerce.payment.PaymentProcessor.Outcome;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentService {
+
+    private static final String DEFAULT_METHOD = "CARD";
+    private static final int MAX_METHOD_LENGTH = 32;
+    private static final int FLUSH_BATCH = 500;
+
+    private static final String INSERT_PAYMENT = "insert into payments (id, amount, method, status, order_id, "
+            + "attempt_number, attempts, created_at, updated_at) values (?, ?, ?, ?, ?, ?, 0, ?, ?)";
+    private static final String FINISH_PAYMENT = "update payments set status = ?, gateway_reference = ?, "
+            + "failure_reason = ?, attempts = ?, updated_at = ? where id = ? and status = ?";
+    private static final String PAYMENT_COLUMNS = "select p.id, p.order_id, p.amount, p.method, p.status, "
+            + "p.attempt_number, p.gateway_reference, p.failure_reason, p.attempts, p.updated_at from payments p ";
+    private static final String LATEST = " order by p.attempt_number desc limit 1";
+    private static final String FIND_LATEST_BY_ORDER = PAYMENT_COLUMNS + "where p.order_id = ?" + LATEST;
+    private static final String FIND_PENDING = PAYMENT_COLUMNS + "where p.status = ?";
+    // an order belongs to whoever its lines belong to, orders carry no user of their own
+    private static final String OWNED = " and exists (select 1 from order_items oi where oi.order_id = p.order_id "
+            + "and oi.user_id = ?)";
+    private static final String FIND_OWNED = PAYMENT_COLUMNS + "where p.id = ?" + OWNED;
+    private static final String FIND_OWNED_BY_ORDER = PAYMENT_COLUMNS + "where p.order_id = ?" + OWNED;
+    private static final String FIND_OWNED_LATEST_BY_ORDER = FIND_OWNED_BY_ORDER + LATEST;
+    private static final String FIND_OWNED_ATTEMPTS = FIND_OWNED_BY_ORDER + " order by p.attempt_number";
+    private static final String OWNED_ORDER_TOTAL = "select o.total_price from orders o where o.id = ? "
+            + "and exists (select 1 from order_items oi where oi.order_id = o.id and oi.user_id = ?)";
+
+    private static final RowMapper<PaymentDto> PAYMENT_ROW = (rs, rowNum) -> {
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new PaymentDto(rs.getLong("id"), rs.getLong("order_id"), rs.getBigDecimal("amount"),
+                rs.getString("method"), PaymentStatus.valueOf(rs.getString("status")), rs.getInt("attempt_number"),
+                rs.getString("gateway_reference"), rs.getString("failure_reason"), rs.getInt("attempts"),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PaymentProcessor paymentProcessor;
+
+    @Value("${payment.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    private final Queue<Finished> finished = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void start() {
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        Thread.ofVirtual().name("payment-recovery").start(this::resubmitPending);
+    }
+
+    // outcomes that arrive after this stay pending in the table and are resubmitted on the next start
+    @PreDestroy
+    void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flushQuietly();
+    }
+
+    // for an order that was just stored: never throws over the gateway, a busy processor fails the payment
+    public PaymentDto startPayment(Long orderId, BigDecimal amount, String method) {
+        return begin(orderId, amount, validMethod(method));
+    }
+
+    // for the client, the order has to be theirs
+    public PaymentDto authorize(Long userId, Long orderId, String method) {
+        String validMethod = validMethod(method);
+        List<BigDecimal> total = jdbcTemplate.queryForList(OWNED_ORDER_TOTAL, BigDecimal.class, orderId, userId);
+        if (total.isEmpty()) {
+            throw new NotFoundException("Order Not Found");
+        }
+        if (paymentProcessor.isSaturated()) {
+            throw new TooManyRequestsException("Payments are busy, try again shortly");
+        }
+        return begin(orderId, total.get(0), validMethod);
+    }
+
+    public PaymentDto getPayment(Long userId, Long paymentId) {
+        return jdbcTemplate.query(FIND_OWNED, PAYMENT_ROW, paymentId, userId).stream().findFirst()
+                .orElseThrow(() -> new NotFoundException("Payment Not Found"));
+    }
+
+    // the latest attempt
+    public PaymentDto getOrderPayment(Long userId, Long orderId) {
+        return jdbcTemplate.query(FIND_OWNED_LATEST_BY_ORDER, PAYMENT_ROW, orderId, userId).stream().findFirst()
+                .orElseThrow(() -> new NotFoundException("Payment Not Found"));
+    }
+
+    // every attempt, first one first
+    public List<PaymentDto> getOrderPayments(Long userId, Long orderId) {
+        List<PaymentDto> attempts = jdbcTemplate.query(FIND_OWNED_ATTEMPTS, PAYMENT_ROW, orderId, userId);
+        if (attempts.isEmpty()) {
+            throw new NotFoundException("Payment Not Found");
+        }
+        return attempts;
+    }
+
+    private PaymentDto begin(Long orderId, BigDecimal amount, String method) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        Long paymentId = SnowflakeIds.next();
+        int attemptNumber = 1;
+        while (true) {
+            try {
+                jdbcTemplate.update(INSERT_PAYMENT, paymentId, amount, method, PaymentStatus.PENDING.name(), orderId,
+                        attemptNumber, timestamp, timestamp);
+                break;
+            } catch (DuplicateKeyException e) {
+                // the attempt exists, only one that did not go through is followed by another; two requests
+                // racing for the same next attempt leave one insert, the other returns that attempt
+                PaymentDto latest = jdbcTemplate.query(FIND_LATEST_BY_ORDER, PAYMENT_ROW, orderId).get(0);
+                if (latest.getStatus() != PaymentStatus.DECLINED && latest.getStatus() != PaymentStatus.FAILED) {
+                    return latest;
+                }
+                attemptNumber = latest.getAttemptNumber() + 1;
+            }
+        }
+
+        PaymentDto payment = new PaymentDto(paymentId, orderId, amount, method, PaymentStatus.PENDING, attemptNumber,
+                null, null, 0, now);
+        // the outcome can only be written back to a committed row
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(payment);
+                }
+            });
+        } else {
+            submit(payment);
+        }
+        return payment;
+    }
+
+    private void submit(PaymentDto payment) {
+        AuthorizationRequest request = new AuthorizationRequest(payment.getId(), payment.getOrderId(),
+                payment.getAmount(), payment.getMethod());
+        if (!paymentProcessor.submit(request, outcome -> finish(payment.getId(), outcome))) {
+            Outcome busy = new Outcome(PaymentStatus.FAILED, null, "Payments were busy, authorize again", 0);
+            finish(payment.getId(), busy);
+            payment.setStatus(busy.status());
+            payment.setFailureReason(busy.failureReason());
+        }
+    }
+
+    private void finish(Long paymentId, Outcome outcome) {
+        finished.add(new Finished(paymentId, outcome, Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Payment outcome flush failed", e);
+        }
+    }
+
+    void flush() {
+        List<Finished> batch = new ArrayList<>(FLUSH_BATCH);
+        Finished next;
+        while ((next = finished.poll()) != null) {
+            batch.add(next);
+            if (batch.size() == FLUSH_BATCH) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Finished> batch) {
+        try {
+            jdbcTemplate.batchUpdate(FINISH_PAYMENT, batch.stream().map(Finished::row).toList());
+        } catch (DataAccessException e) {
+            // kept for the next interval, the update only applies to a payment that is still pending
+            finished.addAll(batch);
+            throw e;
+        }
+    }
+
+    private void resubmitPending() {
+        try {
+            List<PaymentDto> pending = jdbcTemplate.query(FIND_PENDING, PAYMENT_ROW, PaymentStatus.PENDING.name());
+            pending.forEach(this::submit);
+            if (!pending.isEmpty()) {
+                log.info("Resubmitted {} pending payments", pending.size());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not resubmit pending payments, they are picked up on the next start", e);
+        }
+    }
+
+    private record Finished(Long paymentId, Outcome outcome, Timestamp at) {
+
+        private Object[] row() {
+            return new Object[] { outcome.status().name(), outcome.gatewayReference(), outcome.failureReason(),
+                    outcome.attempts(), at, paymentId, PaymentStatus.PENDING.name() };
+        }
+    }
+
+    private static String validMethod(String method) {
+        if (method == null || method.isBlank()) {
+            return DEFAULT_METHOD;
+        }
+        if (method.length() > MAX_METHOD_LENGTH) {
+            throw new InvalidCredentialsException("Payment method is too long");
+        }
+        return method.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+    Stub payment gateway, a local stand-in for a real one.
+    Answers after the configured latency plus a random jitter, fails a share of calls and declines a
+    share of payments, so timeouts, retries and declines can be tried without a provider. Used unless
+    payment.gateway.provider names another gateway.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.payment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.exception.PaymentGatewayException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+@ConditionalOnProperty(name = "payment.gateway.provider", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+
+    @Value("${payment.stub.latency:150ms}")
+    private Duration latency;
+    @Value("${payment.stub.latency-jitter:100ms}")
+    private Duration latencyJitter;
+    @Value("${payment.stub.failure-rate:0.02}")
+    private double failureRate;
+    @Value("${payment.stub.decline-rate:0.05}")
+    private double declineRate;
+
+    @Override
+    public AuthorizationResult authorize(AuthorizationRequest request) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long jitter = latencyJitter.toMillis();
+        Thread.sleep(latency.toMillis() + (jitter > 0 ? random.nextLong(jitter + 1) : 0));
+
+        double roll = random.nextDouble();
+        if (roll < failureRate) {
+            throw new PaymentGatewayException("Stub gateway error");
+        }
+        if (roll < failureRate + declineRate) {
+            return AuthorizationResult.declined("Declined by stub gateway");
+        }
+        return AuthorizationResult.approved("stub-" + request.paymentId());
+    }
+}
@@ -0,0 +1,263 @@
+/*
+    Compiled promotions, the promotions laid out for evaluation at order time.
+    Compiled once whenever promotions change and never modified after. Rules are held column-wise in
+    primitive arrays, and indexed by product id and by category id in open addressing tables; rules for
+    every product are kept apart. A basket line only looks at the rules that can match it, so the cost
+    of a basket follows its lines and not the number of promotions. Evaluation only reads these arrays
+    and writes into the basket, it allocates nothing.
+    Each line gets the single best promotion that applies to it, promotions do not stack. Coupon
+    promotions only apply when their code is given.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.promotion;
+
+import com.example.ecommerce.cart.PriceBook;
+import com.example.ecommerce.entity.Promotion;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CompiledPromotions {
+
+    public static final long NO_CATEGORY = -1;
+
+    static final CompiledPromotions EMPTY = compile(List.of());
+
+    private static final int NO_COUPON = -1;
+    private static final byte PERCENT_OFF = 0;
+    private static final byte AMOUNT_OFF = 1;
+    private static final byte BUY_X_GET_Y = 2;
+    private static final long BASIS_POINTS = 10_000;
+
+    private final long[] ids;
+    private final byte[] types;
+    // basis points for PERCENT_OFF, cents per unit for AMOUNT_OFF
+    private final long[] values;
+    private final int[] buyQuantities;
+    private final int[] getQuantities;
+    private final int[] minQuantities;
+    private final long[] startsAt;
+    private final long[] endsAt;
+    private final int[] coupons;
+
+    private final Map<String, Integer> couponIds;
+    // set once by compile, before the instance is handed out
+    private RuleIndex byProduct;
+    private RuleIndex byCategory;
+    private int[] everywhere;
+
+    private CompiledPromotions(int size, Map<String, Integer> couponIds) {
+        ids = new long[size];
+        types = new byte[size];
+        values = new long[size];
+        buyQuantities = new int[size];
+        getQuantities = new int[size];
+        minQuantities = new int[size];
+        startsAt = new long[size];
+        endsAt = new long[size];
+        coupons = new int[size];
+        this.couponIds = couponIds;
+    }
+
+    // promotions are expected to be valid, the promotion service checks them when they are created
+    public static CompiledPromotions compile(List<Promotion> promotions) {
+        Map<String, Integer> couponIds = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            if (promotion.getCode() != null) {
+                couponIds.putIfAbsent(promotion.getCode(), couponIds.size());
+            }
+        }
+
+        CompiledPromotions rules = new CompiledPromotions(promotions.size(), couponIds);
+        Map<Long, List<Integer>> productRules = new LinkedHashMap<>();
+        Map<Long, List<Integer>> categoryRules = new LinkedHashMap<>();
+        List<Integer> everywhereRules = new ArrayList<>();
+        ZoneId zone = ZoneId.systemDefault();
+        for (int rule = 0; rule < promotions.size(); rule++) {
+            Promotion promotion = promotions.get(rule);
+            rules.ids[rule] = promotion.getId();
+            switch (promotion.getType()) {
+                case PERCENT_OFF -> {
+                    rules.types[rule] = PERCENT_OFF;
+                    rules.values[rule] = promotion.getPercentOff().movePointRight(2).longValue();
+                }
+                case AMOUNT_OFF -> {
+                    rules.types[rule] = AMOUNT_OFF;
+                    rules.values[rule] = PriceBook.toCents(promotion.getAmountOff());
+                }
+                case BUY_X_GET_Y -> {
+                    rules.types[rule] = BUY_X_GET_Y;
+                    rules.buyQuantities[rule] = promotion.getBuyQuantity();
+                    rules.getQuantities[rule] = promotion.getGetQuantity();
+                }
+            }
+            rules.minQuantities[rule] = promotion.getMinQuantity() != null ? promotion.getMinQuantity() : 1;
+            rules.startsAt[rule] = millis(promotion.getStartsAt(), zone, Long.MIN_VALUE);
+            rules.endsAt[rule] = millis(promotion.getEndsAt(), zone, Long.MAX_VALUE);
+            rules.coupons[rule] = promotion.getCode() != null ? couponIds.get(promotion.getCode()) : NO_COUPON;
+
+            if (promotion.getProductId() != null) {
+                productRules.computeIfAbsent(promotion.getProductId(), id -> new ArrayList<>()).add(rule);
+            } else if (promotion.getCategoryId() != null) {
+                categoryRules.computeIfAbsent(promotion.getCategoryId(), id -> new ArrayList<>()).add(rule);
+            } else {
+                everywhereRules.add(rule);
+            }
+        }
+        rules.byProduct = RuleIndex.of(productRules);
+        rules.byCategory = RuleIndex.of(categoryRules);
+        rules.everywhere = everywhereRules.stream().mapToInt(Integer::intValue).toArray();
+        return rules;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean hasCoupon(String code) {
+        return couponIds.containsKey(code);
+    }
+
+    // sets every line's discount and returns the basket's total discount in cents
+    public long apply(PromotionBasket basket, String coupon, long now) {
+        Integer couponId = coupon != null ? couponIds.get(coupon) : null;
+        int activeCoupon = couponId != null ? couponId : NO_COUPON;
+        long total = 0;
+        for (int line = 0; line < basket.size; line++) {
+            int quantity = basket.quantities[line];
+            long unitCents = basket.unitCents[line];
+            long best = 0;
+            int bestRule = -1;
+
+            int slot = byProduct.find(basket.productIds[line]);
+            if (slot >= 0) {
+                for (int i = byProduct.from[slot]; i < byProduct.to[slot]; i++) {
+                    int rule = byProduct.rules[i];
+                    long discount = discount(rule, quantity, unitCents, activeCoupon, now);
+                    if (discount > best) {
+                        best = discount;
+                        bestRule = rule;
+                    }
+                }
+            }
+            slot = byCategory.find(basket.categoryIds[line]);
+            if (slot >= 0) {
+                for (int i = byCategory.from[slot]; i < byCategory.to[slot]; i++) {
+                    int rule = byCategory.rules[i];
+                    long discount = discount(rule, quantity, unitCents, activeCoupon, now);
+                    if (discount > best) {
+                        best = discount;
+                        bestRule = rule;
+                    }
+                }
+            }
+            for (int rule : everywhere) {
+                long discount = discount(rule, quantity, unitCents, activeCoupon, now);
+                if (discount > best) {
+                    best = discount;
+                    bestRule = rule;
+                }
+            }
+
+            basket.discountCents[line] = best;
+            basket.promotionIds[line] = bestRule >= 0 ? ids[bestRule] : 0;
+            total += best;
+        }
+        return total;
+    }
+
+    // never more than the line is worth
+    private long discount(int rule, int quantity, long unitCents, int activeCoupon, long now) {
+        if (coupons[rule] != NO_COUPON && coupons[rule] != activeCoupon) {
+            return 0;
+        }
+        if (now < startsAt[rule] || now >= endsAt[rule] || quantity < minQuantities[rule]) {
+            return 0;
+        }
+        long lineCents = unitCents * quantity;
+        long discount = switch (types[rule]) {
+            case PERCENT_OFF -> lineCents * values[rule] / BASIS_POINTS;
+            case AMOUNT_OFF -> Math.min(values[rule], unitCents) * quantity;
+            default -> (long) (quantity / (buyQuantities[rule] + getQuantities[rule])) * getQuantities[rule]
+                    * unitCents;
+        };
+        return Math.min(discount, lineCents);
+    }
+
+    private static long millis(LocalDateTime time, ZoneId zone, long unset) {
+        return time != null ? time.atZone(zone).toInstant().toEpochMilli() : unset;
+    }
+
+    // key -> a run of rule numbers, open addressing with linear probing; keys are ids, never Long.MIN_VALUE
+    private static final class RuleIndex {
+
+        private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+        private final long[] keys;
+        private final int[] from;
+        private final int[] to;
+        private final int[] rules;
+        private final int mask;
+
+        private RuleIndex(long[] keys, int[] from, int[] to, int[] rules) {
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+            this.rules = rules;
+            this.mask = keys.length - 1;
+        }
+
+        private static RuleIndex of(Map<Long, List<Integer>> rulesByKey) {
+            // at most half full, so probes stay short
+            int capacity = Integer.highestOneBit(Math.max(1, rulesByKey.size()) * 2 - 1) << 1;
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY_KEY);
+            int[] from = new int[capacity];
+            int[] to = new int[capacity];
+            int[] rules = new int[rulesByKey.values().stream().mapToInt(List::size).sum()];
+
+            int next = 0;
+            for (Map.Entry<Long, List<Integer>> entry : rulesByKey.entrySet()) {
+                int slot = hash(entry.getKey()) & (capacity - 1);
+                while (keys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = entry.getKey();
+                from[slot] = next;
+                for (int rule : entry.getValue()) {
+                    rules[next++] = rule;
+                }
+                to[slot] = next;
+            }
+            return new RuleIndex(keys, from, to, rules);
+        }
+
+        private int find(long key) {
+            int slot = hash(key) & mask;
+            while (true) {
+                long found = keys[slot];
+                if (found == key) {
+                    return slot;
+                }
+                if (found == EMPTY_KEY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private static int hash(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
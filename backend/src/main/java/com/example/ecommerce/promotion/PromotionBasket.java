@@ -0,0 +1,67 @@
+/*
+    Promotion basket, the order lines promotions are evaluated against.
+    Parallel primitive arrays that are cleared and filled again for every evaluation, so a thread
+    reuses one basket and evaluating allocates nothing once it has grown to the largest basket seen.
+    Evaluation writes each line's discount and the promotion that gave it back into the basket.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.promotion;
+
+import java.util.Arrays;
+
+public final class PromotionBasket {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    long[] productIds = new long[INITIAL_CAPACITY];
+    long[] categoryIds = new long[INITIAL_CAPACITY];
+    int[] quantities = new int[INITIAL_CAPACITY];
+    long[] unitCents = new long[INITIAL_CAPACITY];
+    long[] discountCents = new long[INITIAL_CAPACITY];
+    long[] promotionIds = new long[INITIAL_CAPACITY];
+    int size;
+
+    public void clear() {
+        size = 0;
+    }
+
+    // categoryId is CompiledPromotions.NO_CATEGORY for a product without one
+    public void add(long productId, long categoryId, int quantity, long unitCents) {
+        if (size == productIds.length) {
+            grow();
+        }
+        productIds[size] = productId;
+        categoryIds[size] = categoryId;
+        quantities[size] = quantity;
+        this.unitCents[size] = unitCents;
+        discountCents[size] = 0;
+        promotionIds[size] = 0;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long discountCents(int line) {
+        return discountCents[line];
+    }
+
+    // 0 when no promotion applied to the line
+    public long promotionId(int line) {
+        return promotionIds[line];
+    }
+
+    private void grow() {
+        int capacity = productIds.length * 2;
+        productIds = Arrays.copyOf(productIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        unitCents = Arrays.copyOf(unitCents, capacity);
+        discountCents = Arrays.copyOf(discountCents, capacity);
+        promotionIds = Arrays.copyOf(promotionIds, capacity);
+    }
+}
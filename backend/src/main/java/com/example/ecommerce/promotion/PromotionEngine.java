@@ -0,0 +1,101 @@
+/*
+    Promotion engine, prices order lines against the promotions that have not ended.
+    Holds the compiled promotions and swaps in a newly compiled set whenever promotions are created or
+    deleted, and on an interval so promotions changed on another instance and ones that ended drop
+    in. Callers fill a per-thread basket and apply it; the request path never touches the table.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.promotion;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.repository.PromotionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PromotionEngine implements SmartInitializingSingleton {
+
+    private final PromotionRepository promotionRepo;
+
+    @Value("${promotion.refresh-interval:1m}")
+    private Duration refreshInterval;
+
+    private volatile CompiledPromotions compiled = CompiledPromotions.EMPTY;
+    private final ThreadLocal<PromotionBasket> baskets = ThreadLocal.withInitial(PromotionBasket::new);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "promotion-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+        long interval = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void reload() {
+        long start = System.currentTimeMillis();
+        compiled = CompiledPromotions.compile(promotionRepo.findNotEnded(LocalDateTime.now()));
+        log.debug("Compiled {} promotions in {} ms", compiled.size(), System.currentTimeMillis() - start);
+    }
+
+    // this thread's basket, emptied
+    public PromotionBasket basket() {
+        PromotionBasket basket = baskets.get();
+        basket.clear();
+        return basket;
+    }
+
+    // the code as promotions are stored with it, null for none; throws for a code no promotion has
+    public String coupon(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        String coupon = normalize(code);
+        if (!compiled.hasCoupon(coupon)) {
+            throw new InvalidCredentialsException("Coupon code is not valid");
+        }
+        return coupon;
+    }
+
+    // coupon as returned by coupon(), returns the total discount in cents
+    public long apply(PromotionBasket basket, String coupon) {
+        return compiled.apply(basket, coupon, System.currentTimeMillis());
+    }
+
+    public static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh promotions, keeping the ones compiled before", e);
+        }
+    }
+}
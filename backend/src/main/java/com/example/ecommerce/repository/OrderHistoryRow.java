@@ -0,0 +1,17 @@
+/*
+ * Order history row, one order item and its product snapshot read by a single projection query
+ * @author teshan_kalhara
+ * @create 10/18/2026
+ * @modify 10/18/2026
+ */
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// product columns are null for lines stored before snapshots that have no product left to copy from
+public record OrderHistoryRow(Long id, int quantity, BigDecimal price, OrderStatus status, LocalDateTime createdAt,
+        Long productId, String productName, String productImageUrl, BigDecimal productPrice) {
+}
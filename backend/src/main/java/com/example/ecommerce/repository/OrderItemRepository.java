@@ -2,14 +2,40 @@
  * Order item Repository
  * @author teshan_kalhara
  * @create 4/29/2025
- * @modify 4/29/2025
+ * @modify 10/18/2026
  */
 package com.example.ecommerce.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.ecommerce.entity.OrderItem;
 
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, JpaSpecificationExecutor<OrderItem> {
-}
\ No newline at end of file
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, JpaSpecificationExecutor<OrderItem>,
+        OrderItemRepositoryCustom {
+
+    // [productId, number of order items]
+    @Query("select oi.product.id, count(oi) from OrderItem oi where oi.product is not null group by oi.product.id")
+    List<Object[]> countOrderItemsByProduct();
+
+    boolean existsByOrderIdAndUserId(Long orderId, Long userId);
+
+    // a user's history newest first, rows come straight from the (user_id, created_at, id) index and the
+    // product columns from the line's own snapshot
+    @Query("select new com.example.ecommerce.repository.OrderHistoryRow(oi.id, oi.quantity, oi.price, oi.status, "
+            + "oi.createdAt, oi.productId, oi.productName, oi.productImageUrl, oi.unitPrice) from OrderItem oi "
+            + "where oi.user.id = :userId order by oi.createdAt desc, oi.id desc")
+    List<OrderHistoryRow> findHistory(Long userId, Limit limit);
+
+    // next page, strictly after (createdAt, id) of the last row already sent
+    @Query("select new com.example.ecommerce.repository.OrderHistoryRow(oi.id, oi.quantity, oi.price, oi.status, "
+            + "oi.createdAt, oi.productId, oi.productName, oi.productImageUrl, oi.unitPrice) from OrderItem oi "
+            + "where oi.user.id = :userId and (oi.createdAt < :createdAt or (oi.createdAt = :createdAt and oi.id < :id)) "
+            + "order by oi.createdAt desc, oi.id desc")
+    List<OrderHistoryRow> findHistoryBefore(Long userId, LocalDateTime createdAt, Long id, Limit limit);
+}
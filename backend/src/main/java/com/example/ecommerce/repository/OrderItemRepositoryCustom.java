@@ -0,0 +1,27 @@
+/*
+ * Order item Repository custom queries
+ * @author teshan_kalhara
+ * @create 10/18/2026
+ * @modify 10/18/2026
+ */
+package com.example.ecommerce.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.ecommerce.entity.OrderItem;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OrderItemRepositoryCustom {
+
+    // server side cursor over the matching items with product, user and address fetched in the same row
+    Stream<OrderItem> streamAll(Specification<OrderItem> spec, Sort sort);
+
+    // one page of matching items with the same fetch plan as streamAll
+    List<OrderItem> findPage(Specification<OrderItem> spec, Sort sort, int offset, int limit);
+
+    // ids of the matching items in id order, without loading the items
+    List<Long> findIds(Specification<OrderItem> spec, int limit);
+}
@@ -0,0 +1,84 @@
+/*
+ * Order item Repository custom queries implementation
+ * @author teshan_kalhara
+ * @create 10/18/2026
+ * @modify 10/18/2026
+ */
+package com.example.ecommerce.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.entity.User;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class OrderItemRepositoryCustomImpl implements OrderItemRepositoryCustom {
+
+    static final int FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<OrderItem> streamAll(Specification<OrderItem> spec, Sort sort) {
+        return entityManager.createQuery(withFetchPlan(spec, sort))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // only to-one associations are fetched, so the limit is still applied by the database
+    @Override
+    public List<OrderItem> findPage(Specification<OrderItem> spec, Sort sort, int offset, int limit) {
+        return entityManager.createQuery(withFetchPlan(spec, sort))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    // products are not joined, order lines carry their own product snapshot
+    private CriteriaQuery<OrderItem> withFetchPlan(Specification<OrderItem> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderItem> query = cb.createQuery(OrderItem.class);
+        Root<OrderItem> root = query.from(OrderItem.class);
+        Fetch<OrderItem, User> user = root.fetch("user", JoinType.LEFT);
+        user.fetch("address", JoinType.LEFT);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return query.select(root).orderBy(QueryUtils.toOrders(sort, root, cb));
+    }
+
+    @Override
+    public List<Long> findIds(Specification<OrderItem> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<OrderItem> root = query.from(OrderItem.class);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root.get("id")).orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -2,18 +2,79 @@
  * Product Repository
  * @author teshan_kalhara
  * @create 4/29/2025
- * @modify 4/29/2025
+ * @modify 10/18/2026
  */
 package com.example.ecommerce.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.example.ecommerce.entity.Product;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategoryId(Long categoryId);
 
-    List<Product> findByNameContainingOrDescriptionContaining(String name, String description);
+    @Query("select p from Product p left join fetch p.category")
+    List<Product> findAllWithCategory();
+
+    @Query("select p from Product p left join fetch p.category where p.id in :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id from Product p where p.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // bulk update, runs in the database without loading the products
+    @Modifying
+    @Query("update Product p set p.price = round(p.price * :factor, 2) where p.category.id = :categoryId and p.price is not null")
+    int scalePricesByCategory(@Param("categoryId") Long categoryId, @Param("factor") BigDecimal factor);
+
+    // server side cursor, must be consumed inside a transaction
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("select p from Product p order by p.id desc")
+    Stream<Product> streamAllNewestFirst();
+
+    // keyset pages, pass PageRequest.of(0, size) so only a LIMIT is applied (no offset, no count query)
+    @Query("select p from Product p order by p.id desc")
+    List<Product> findNewest(Pageable limit);
+
+    @Query("select p from Product p where p.id < :id order by p.id desc")
+    List<Product> findNewestAfter(@Param("id") Long id, Pageable limit);
+
+    @Query("select p from Product p where p.price is not null order by p.price asc, p.id asc")
+    List<Product> findByPriceAsc(Pageable limit);
+
+    @Query("select p from Product p where p.price > :price or (p.price = :price and p.id > :id) order by p.price asc, p.id asc")
+    List<Product> findByPriceAscAfter(@Param("price") BigDecimal price, @Param("id") Long id, Pageable limit);
+
+    @Query("select p from Product p where p.price is not null order by p.price desc, p.id desc")
+    List<Product> findByPriceDesc(Pageable limit);
+
+    @Query("select p from Product p where p.price < :price or (p.price = :price and p.id < :id) order by p.price desc, p.id desc")
+    List<Product> findByPriceDescAfter(@Param("price") BigDecimal price, @Param("id") Long id, Pageable limit);
+
+    // products without a price, listed after the priced ones in either price order
+    @Query("select p from Product p where p.price is null and p.id > :id order by p.id asc")
+    List<Product> findUnpricedAfter(@Param("id") Long id, Pageable limit);
+
+    @Query("select p from Product p where p.name is not null and p.name <> '' order by p.name asc, p.id asc")
+    List<Product> findByNameAsc(Pageable limit);
+
+    @Query("select p from Product p where p.name > :name or (p.name = :name and p.id > :id) order by p.name asc, p.id asc")
+    List<Product> findByNameAscAfter(@Param("name") String name, @Param("id") Long id, Pageable limit);
+
+    // products without a name, listed after the named ones
+    @Query("select p from Product p where (p.name is null or p.name = '') and p.id > :id order by p.id asc")
+    List<Product> findUnnamedAfter(@Param("id") Long id, Pageable limit);
 }
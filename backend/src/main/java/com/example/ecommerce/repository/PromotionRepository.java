@@ -0,0 +1,23 @@
+/*
+ * Promotion Repository
+ * @author teshan_kalhara
+ * @create 10/18/2026
+ * @modify 10/18/2026
+ */
+package com.example.ecommerce.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.ecommerce.entity.Promotion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+
+    // running now or starting later, ended promotions are never compiled
+    @Query("select p from Promotion p where p.endsAt is null or p.endsAt > :now")
+    List<Promotion> findNotEnded(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,21 @@
+/*
+ * Review Repository
+ * @author teshan_kalhara
+ * @create 10/18/2026
+ * @modify 10/18/2026
+ */
+package com.example.ecommerce.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.ecommerce.entity.Review;
+
+import java.util.List;
+
+public interface ReviewRepository extends JpaRepository<Review, Long> {
+
+    // [productId, average rating]
+    @Query("select r.product.id, avg(r.rating) from Review r where r.product is not null group by r.product.id")
+    List<Object[]> averageRatingByProduct();
+}
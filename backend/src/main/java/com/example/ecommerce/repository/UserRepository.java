@@ -2,17 +2,32 @@
  * User Repository
  * @author teshan_kalhara
  * @create 4/29/2025
- * @modify 4/29/2025
+ * @modify 10/18/2026
  */
 package com.example.ecommerce.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.ecommerce.entity.User;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
+
+    // profile only, the address comes in the same query and the order items are never touched
+    @Query("select u from User u left join fetch u.address where u.email = :email")
+    Optional<User> findProfileByEmail(String email);
+
+    // server side cursor, must be consumed inside a transaction
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("select u from User u left join fetch u.address order by u.id")
+    Stream<User> streamAll();
 }
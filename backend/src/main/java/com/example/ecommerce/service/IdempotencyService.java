@@ -0,0 +1,284 @@
+/*
+    Idempotency service for requests sent with an Idempotency-Key header.
+    The first request with a key runs and its response is kept; a repeat gets the kept response back
+    without running again. Recent responses are answered from a bounded in-memory map; older ones come
+    from the idempotency_keys table. The table row is claimed before the request runs, so its unique
+    key also keeps two instances from running the same key. The request's own writes join the
+    transaction that keeps its response, so an order is never committed without the response that
+    describes it. A duplicate that arrives while the first request is still running waits for its
+    result. A request that failed before committing is not kept and can be retried; a claim whose
+    outcome is unknown, because its owner died or its commit failed, is never run again and answers
+    409 until it expires.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.entity.IdempotencyRecord;
+import com.example.ecommerce.exception.ConflictException;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.exception.TooManyRequestsException;
+import com.example.ecommerce.repository.IdempotencyRecordRepository;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long POLL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository idempotencyRepo;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${idempotency.cache-size:10000}")
+    private int cacheSize;
+    @Value("${idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+    @Value("${idempotency.retention:24h}")
+    private Duration retention;
+
+    // requests running on this instance, duplicates wait on the same future
+    private final Map<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+    private Map<String, Stored> recent;
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void start() {
+        // most recent keys only, oldest are dropped first
+        recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        purger.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        purger.shutdownNow();
+    }
+
+    // runs the action once per key and caller, without a key it just runs. A retry has to send the same
+    // request, so it must not carry anything the server sets
+    public ResponseEntity<?> execute(String operation, String key, Object request,
+            Supplier<ResponseEntity<Response>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidCredentialsException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = caller() + ":" + operation + ":" + key;
+        String requestHash = hash(request);
+
+        Stored done = recent.get(scopedKey);
+        if (done != null) {
+            return replay(done, requestHash);
+        }
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            return replay(await(running), requestHash);
+        }
+        try {
+            Outcome outcome = run(scopedKey, requestHash, action);
+            mine.complete(outcome.stored());
+            recent.put(scopedKey, outcome.stored());
+            return outcome.response() != null ? outcome.response() : replay(outcome.stored(), requestHash);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    private Outcome run(String scopedKey, String requestHash, Supplier<ResponseEntity<Response>> action) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Optional<IdempotencyRecord> existing = idempotencyRepo.findByKey(scopedKey);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                if (record.getResponseStatus() != 0) {
+                    return new Outcome(stored(record), null);
+                }
+                // still running elsewhere, or its owner died without an answer: wait, but never run it again
+                if (System.nanoTime() > deadline) {
+                    throw new ConflictException("A request with this Idempotency-Key has not finished, "
+                            + "check your orders before retrying with a new key");
+                }
+                pause();
+                continue;
+            }
+
+            IdempotencyRecord claim = new IdempotencyRecord();
+            claim.setKey(scopedKey);
+            claim.setRequestHash(requestHash);
+            try {
+                claim = idempotencyRepo.saveAndFlush(claim);
+            } catch (DataIntegrityViolationException e) {
+                continue; // someone else claimed it first
+            }
+
+            // a failure inside the callback rolls everything back, so the claim can go; a failed commit
+            // leaves the outcome unknown and the claim stays
+            IdempotencyRecord running = claim;
+            boolean[] rolledBack = new boolean[1];
+            ResponseEntity<Response> response;
+            try {
+                response = new TransactionTemplate(transactionManager).execute(status -> {
+                    try {
+                        ResponseEntity<Response> result = action.get();
+                        running.setResponseStatus(result.getStatusCode().value());
+                        running.setResponseBody(toJson(result.getBody()));
+                        idempotencyRepo.save(running);
+                        return result;
+                    } catch (RuntimeException e) {
+                        rolledBack[0] = true;
+                        throw e;
+                    }
+                });
+            } catch (RuntimeException e) {
+                if (rolledBack[0]) {
+                    idempotencyRepo.delete(running);
+                } else {
+                    log.error("Commit of idempotent request {} failed, its key stays claimed", scopedKey, e);
+                }
+                throw e;
+            }
+            return new Outcome(stored(running), response);
+        }
+    }
+
+    private Stored await(CompletableFuture<Stored> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // the first request failed, its duplicates fail the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new TooManyRequestsException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        }
+    }
+
+    private ResponseEntity<?> replay(Stored stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new InvalidCredentialsException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return ResponseEntity.status(stored.status())
+                    .header(REPLAYED_HEADER, "true")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(objectMapper.readTree(stored.body()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response is not valid json", e);
+        }
+    }
+
+    private void purge() {
+        try {
+            Integer removed = new TransactionTemplate(transactionManager)
+                    .execute(status -> idempotencyRepo.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+            if (removed != null && removed > 0) {
+                log.info("Purged {} expired idempotency keys", removed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not purge idempotency keys", e);
+        }
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint the request", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store the response", e);
+        }
+    }
+
+    private static Stored stored(IdempotencyRecord record) {
+        return new Stored(record.getRequestHash(), record.getResponseStatus(), record.getResponseBody());
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        }
+    }
+
+    private record Stored(String requestHash, int status, String body) {
+    }
+
+    // response is only set for the request that actually ran
+    private record Outcome(Stored stored, ResponseEntity<Response> response) {
+    }
+}
@@ -0,0 +1,83 @@
+/*
+    NDJSON stream service for the large list endpoints.
+    Rows are pulled from a database cursor inside a read-only transaction and written one JSON
+    document per line, so memory stays flat and clients can render while the rest is still coming.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NdjsonStreamService {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 100;
+    private static final int CLEAR_EVERY = 500;
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public static ResponseEntity<StreamingResponseBody> response(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> rows, Function<T, ?> mapper) {
+        return outputStream -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                try (Stream<T> stream = rows.get()) {
+                    write(stream.iterator(), mapper, outputStream);
+                } catch (IOException e) {
+                    // client went away, the transaction and cursor are closed on the way out
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    private <T> void write(Iterator<T> rows, Function<T, ?> mapper, OutputStream outputStream) throws IOException {
+        long count = 0;
+        while (rows.hasNext()) {
+            outputStream.write(objectMapper.writeValueAsBytes(mapper.apply(rows.next())));
+            outputStream.write('\n');
+            count++;
+            if (count % FLUSH_EVERY == 0) {
+                outputStream.flush();
+            }
+            // rows already written are not needed any more, keep the persistence context small
+            if (count % CLEAR_EVERY == 0) {
+                entityManager.clear();
+            }
+        }
+        outputStream.flush();
+        log.debug("Streamed {} rows", count);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+    Order event service, pushes order item status changes to their owners over Server-Sent Events.
+    Open streams are registered per user id in memory; an idle stream is an async servlet request
+    and holds no thread. Each stream has a small bounded buffer drained on a virtual thread, so a
+    slow client never blocks the status update that produced the event; a client that lets its
+    buffer fill up is disconnected and reloads its orders when it reconnects. A heartbeat comment
+    keeps proxies from closing idle streams.
+    Events only reach streams open on this instance.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.ecommerce.dto.OrderStatusEventDto;
+import com.example.ecommerce.exception.TooManyRequestsException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class OrderEventService {
+
+    public static final String STATUS_EVENT = "order-status";
+
+    private static final Object HEARTBEAT = new Object();
+    private static final long RECONNECT_MILLIS = 3000;
+
+    @Value("${orders.events.timeout:30m}")
+    private Duration timeout;
+    @Value("${orders.events.heartbeat:25s}")
+    private Duration heartbeat;
+    @Value("${orders.events.buffer-size:64}")
+    private int bufferSize;
+    @Value("${orders.events.max-connections:20000}")
+    private int maxConnections;
+    @Value("${orders.events.max-per-user:5}")
+    private int maxPerUser;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-events-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void start() {
+        long interval = heartbeat.toMillis();
+        heartbeats.scheduleWithFixedDelay(this::beat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+        senders.shutdown();
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new TooManyRequestsException("Too many open event streams, retry shortly");
+        }
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeout.toMillis()));
+        try {
+            subscribers.compute(userId, (id, set) -> {
+                Set<Subscriber> open = set != null ? set : ConcurrentHashMap.newKeySet();
+                if (open.size() >= maxPerUser) {
+                    throw new TooManyRequestsException("Too many open event streams for this user");
+                }
+                open.add(subscriber);
+                return open;
+            });
+        } catch (TooManyRequestsException e) {
+            connections.decrementAndGet();
+            throw e;
+        }
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onError(error -> remove(subscriber));
+        // first frame commits the response, so the client and any proxy know the stream is live
+        subscriber.offer(HEARTBEAT);
+        return subscriber.emitter;
+    }
+
+    // called once the status change is committed, users without an open stream cost one map lookup
+    public void publish(Long userId, OrderStatusEventDto event) {
+        if (userId == null) {
+            return;
+        }
+        Set<Subscriber> open = subscribers.get(userId);
+        if (open != null) {
+            open.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    private void beat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Object frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(frame)) {
+                log.info("Order event stream for user {} is not keeping up, closing it", userId);
+                close();
+                return;
+            }
+            // one drain at a time per stream keeps frames in order
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Object frame;
+                while (!closed.get() && (frame = buffer.poll()) != null) {
+                    send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client went away or the stream already completed
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed.get() && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void send(Object frame) throws IOException {
+            if (frame == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat").reconnectTime(RECONNECT_MILLIS));
+            } else {
+                emitter.send(SseEmitter.event().name(STATUS_EVENT).data(frame, MediaType.APPLICATION_JSON));
+            }
+        }
+
+        private void close() {
+            remove(this);
+            buffer.clear();
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+    Order ingestion service for the async order mode.
+    Accepted orders wait in a bounded queue and a single writer persists them in groups: everything
+    waiting (up to the group size) is written in one transaction with one product lookup, one batched
+    orders insert and one batched order items insert, so a burst costs a handful of commits on one
+    connection instead of a connection per request. A full queue is refused with 429 rather than
+    letting requests pile up on the pool. Statuses are kept in memory for the most recent orders and
+    are only shown to the user who placed the order.
+    Promotions are applied when the order is written, with the prices it is written at. An order that
+    came with payment info has its payment started once its group has committed, its outcome is read
+    from the payment endpoints like any other.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.cart.PriceBook;
+import com.example.ecommerce.dto.OrderIngestDto;
+import com.example.ecommerce.dto.OrderItemRequest;
+import com.example.ecommerce.entity.Payment;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.enums.IngestStatus;
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.exception.TooManyRequestsException;
+import com.example.ecommerce.id.SnowflakeIds;
+import com.example.ecommerce.inventory.InventoryService;
+import com.example.ecommerce.inventory.StockLine;
+import com.example.ecommerce.payment.PaymentService;
+import com.example.ecommerce.promotion.CompiledPromotions;
+import com.example.ecommerce.promotion.PromotionBasket;
+import com.example.ecommerce.promotion.PromotionEngine;
+import com.example.ecommerce.repository.OrderItemRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.service.SalesRollupService.RollupLine;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderIngestionService {
+
+    private static final String INSERT_ORDER = "insert into orders (id, total_price, created_at) values (?, ?, ?)";
+    // status is stored as the enum ordinal, like the OrderItem mapping
+    private static final String INSERT_ORDER_ITEM = "insert into order_items "
+            + "(id, quantity, price, status, user_id, product_id, order_id, created_at, "
+            + "product_name, unit_price, product_image_url, category_id, discount, promotion_id) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_TRACKED = 100_000;
+
+    private final ProductRepository productRepo;
+    private final OrderItemRepository orderItemRepo;
+    private final InventoryService inventoryService;
+    private final SalesRollupService salesRollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final PromotionEngine promotionEngine;
+    private final PaymentService paymentService;
+
+    @Value("${orders.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${orders.ingest.group-size:500}")
+    private int groupSize;
+
+    private BlockingQueue<PendingOrder> queue;
+    private Thread writer;
+
+    // most recent orders only, oldest are dropped first
+    private final Map<Long, Tracked> statuses = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tracked> eldest) {
+            return size() > MAX_TRACKED;
+        }
+    });
+
+    // stock is already held for the lines, it is given back if the order cannot be queued or stored;
+    // coupon as returned by PromotionEngine.coupon, paymentInfo null when the order is paid later
+    public OrderIngestDto submit(Long userId, List<OrderItemRequest> lines, List<StockLine> stockLines,
+            String coupon, Payment paymentInfo) {
+        PendingOrder order = new PendingOrder(SnowflakeIds.next(), userId, lines, stockLines, coupon, paymentInfo,
+                LocalDateTime.now());
+        OrderIngestDto status = new OrderIngestDto(order.id(), IngestStatus.QUEUED, null, order.createdAt());
+        statuses.put(order.id(), new Tracked(userId, status));
+        if (!queue.offer(order)) {
+            statuses.remove(order.id());
+            inventoryService.release(stockLines);
+            throw new TooManyRequestsException("Order queue is full, retry shortly");
+        }
+        return copy(status);
+    }
+
+    // someone else's order is reported as not found, so order ids cannot be probed
+    public OrderIngestDto status(Long orderId, Long userId) {
+        Tracked tracked = statuses.get(orderId);
+        if (tracked != null) {
+            if (!tracked.userId().equals(userId)) {
+                throw new NotFoundException("Order Not Found");
+            }
+            synchronized (tracked.status()) {
+                return copy(tracked.status());
+            }
+        }
+        // no longer tracked, the table still knows whether it made it
+        if (orderItemRepo.existsByOrderIdAndUserId(orderId, userId)) {
+            return new OrderIngestDto(orderId, IngestStatus.PERSISTED, null, null);
+        }
+        throw new NotFoundException("Order Not Found");
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::drain, "order-ingest");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        writer.interrupt();
+        writer.join(30_000);
+    }
+
+    private void drain() {
+        List<PendingOrder> group = new ArrayList<>(groupSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            // whatever piled up while the last group was written goes into the next commit
+            queue.drainTo(group, groupSize - 1);
+            write(group);
+            group.clear();
+        }
+        // shutting down, accepted orders are still written
+        queue.drainTo(group);
+        if (!group.isEmpty()) {
+            write(group);
+        }
+    }
+
+    private void write(List<PendingOrder> group) {
+        try {
+            List<RollupLine> rollupLines = new ArrayList<>();
+            Map<Long, BigDecimal> totals = new HashMap<>();
+            List<PendingOrder> stored = new TransactionTemplate(transactionManager)
+                    .execute(status -> persist(group, rollupLines, totals));
+            stored.forEach(order -> settle(order, IngestStatus.PERSISTED, null));
+            salesRollupService.placed(rollupLines);
+            stored.stream().filter(order -> order.paymentInfo() != null)
+                    .forEach(order -> startPayment(order, totals.get(order.id())));
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                log.warn("Could not store order {}", group.get(0).id(), e);
+                fail(group.get(0), "Order could not be stored");
+                return;
+            }
+            // one bad order must not sink the rest, retry them one commit each
+            group.forEach(order -> write(List.of(order)));
+        }
+    }
+
+    // orders with unknown or unpriced products fail on their own, the rest are written together
+    private List<PendingOrder> persist(List<PendingOrder> group, List<RollupLine> rollupLines,
+            Map<Long, BigDecimal> totals) {
+        Set<Long> productIds = group.stream().flatMap(order -> order.lines().stream())
+                .map(OrderItemRequest::getProductId).collect(Collectors.toSet());
+        Map<Long, Product> products = productRepo.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<PendingOrder> stored = new ArrayList<>(group.size());
+        List<Object[]> orderRows = new ArrayList<>(group.size());
+        List<Object[]> itemRows = new ArrayList<>();
+        PromotionBasket basket = promotionEngine.basket();
+        for (PendingOrder order : group) {
+            String problem = null;
+            basket.clear();
+            for (OrderItemRequest line : order.lines()) {
+                Product product = products.get(line.getProductId());
+                if (product == null || product.getPrice() == null) {
+                    problem = "Product Not Found: " + line.getProductId();
+                    break;
+                }
+                basket.add(product.getId(), product.getCategory() != null ? product.getCategory().getId()
+                        : CompiledPromotions.NO_CATEGORY, line.getQuantity(), PriceBook.toCents(product.getPrice()));
+            }
+            if (problem != null) {
+                fail(order, problem);
+                continue;
+            }
+            promotionEngine.apply(basket, order.coupon());
+
+            BigDecimal totalPrice = BigDecimal.ZERO;
+            List<BigDecimal> linePrices = new ArrayList<>(order.lines().size());
+            for (int i = 0; i < order.lines().size(); i++) {
+                OrderItemRequest line = order.lines().get(i);
+                BigDecimal linePrice = products.get(line.getProductId()).getPrice()
+                        .multiply(BigDecimal.valueOf(line.getQuantity()));
+                if (basket.promotionId(i) != 0) {
+                    linePrice = linePrice.subtract(PriceBook.fromCents(basket.discountCents(i)));
+                }
+                linePrices.add(linePrice);
+                totalPrice = totalPrice.add(linePrice);
+            }
+
+            Timestamp createdAt = Timestamp.valueOf(order.createdAt());
+            orderRows.add(new Object[] { order.id(), totalPrice, createdAt });
+            totals.put(order.id(), totalPrice);
+            for (int i = 0; i < order.lines().size(); i++) {
+                OrderItemRequest line = order.lines().get(i);
+                Product product = products.get(line.getProductId());
+                BigDecimal discount = basket.promotionId(i) != 0 ? PriceBook.fromCents(basket.discountCents(i)) : null;
+                Long promotionId = basket.promotionId(i) != 0 ? basket.promotionId(i) : null;
+                Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+                itemRows.add(new Object[] { order.stockLines().get(i).orderItemId(), line.getQuantity(),
+                        linePrices.get(i), OrderStatus.PENDING.ordinal(), order.userId(), line.getProductId(),
+                        order.id(), createdAt, product.getName(), product.getPrice(), product.getImageUrl(),
+                        categoryId, discount, promotionId });
+                rollupLines.add(new RollupLine(order.createdAt().toLocalDate(), line.getProductId(), categoryId,
+                        line.getQuantity(), linePrices.get(i)));
+            }
+            stored.add(order);
+        }
+        if (!orderRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ORDER, orderRows);
+            jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, itemRows);
+        }
+        return stored;
+    }
+
+    // the order stands even if its payment could not be started, the client can authorize it again
+    private void startPayment(PendingOrder order, BigDecimal totalPrice) {
+        try {
+            paymentService.startPayment(order.id(), totalPrice, order.paymentInfo().getMethod());
+        } catch (RuntimeException e) {
+            log.warn("Could not start the payment of order {}", order.id(), e);
+        }
+    }
+
+    private void fail(PendingOrder order, String message) {
+        inventoryService.release(order.stockLines());
+        settle(order, IngestStatus.FAILED, message);
+    }
+
+    private void settle(PendingOrder order, IngestStatus result, String message) {
+        Tracked tracked = statuses.get(order.id());
+        if (tracked != null) {
+            OrderIngestDto status = tracked.status();
+            synchronized (status) {
+                status.setStatus(result);
+                status.setMessage(message);
+            }
+        }
+    }
+
+    private static OrderIngestDto copy(OrderIngestDto status) {
+        return new OrderIngestDto(status.getOrderId(), status.getStatus(), status.getMessage(),
+                status.getAcceptedAt());
+    }
+
+    private record Tracked(Long userId, OrderIngestDto status) {
+    }
+
+    private record PendingOrder(Long id, Long userId, List<OrderItemRequest> lines, List<StockLine> stockLines,
+            String coupon, Payment paymentInfo, LocalDateTime createdAt) {
+    }
+}
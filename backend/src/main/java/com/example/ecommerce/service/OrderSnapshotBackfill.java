@@ -0,0 +1,72 @@
+/*
+    Order snapshot backfill, fills the product snapshot on order lines stored before lines carried one.
+    Runs once after startup on a background thread, a chunk of lines per statement, so it never holds
+    long locks and the application serves requests while it runs. The unit price is what the line
+    actually paid; name, image and category come from the product as it is now, the best that is
+    left for old lines. Lines without a product keep an empty snapshot.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderSnapshotBackfill {
+
+    private static final int CHUNK = 1000;
+
+    // the derived table works around MySQL not allowing LIMIT on a multi-table update
+    private static final String FILL_CHUNK = "update order_items oi "
+            + "join (select id from order_items where product_name is null and product_id is not null limit "
+            + CHUNK + ") pending on pending.id = oi.id "
+            + "join products p on p.id = oi.product_id "
+            + "set oi.product_name = coalesce(p.name, ''), oi.product_image_url = p.image_url, "
+            + "oi.category_id = p.category_id, "
+            + "oi.unit_price = case when oi.quantity > 0 then oi.price / oi.quantity else p.price end";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private Thread worker;
+
+    @PostConstruct
+    void start() {
+        worker = new Thread(this::fill, "order-snapshot-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.interrupt();
+    }
+
+    private void fill() {
+        long start = System.currentTimeMillis();
+        long filled = 0;
+        try {
+            int updated;
+            do {
+                updated = jdbcTemplate.update(FILL_CHUNK);
+                filled += updated;
+            } while (updated == CHUNK && !Thread.currentThread().isInterrupted());
+        } catch (DataAccessException e) {
+            log.warn("Order snapshot backfill stopped after {} lines, it resumes on the next start", filled, e);
+            return;
+        }
+        if (filled > 0) {
+            log.info("Backfilled product snapshots on {} order lines in {} ms", filled,
+                    System.currentTimeMillis() - start);
+        }
+    }
+}
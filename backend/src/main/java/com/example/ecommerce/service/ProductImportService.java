@@ -0,0 +1,468 @@
+/*
+    Product import service for supplier feeds.
+    The upload is spooled to a temp file and imported by a single background worker: rows are read one
+    at a time, categories are resolved from the in-memory category snapshot and valid rows are written
+    with JDBC batch inserts, one transaction per chunk. A chunk the database rejects is rolled back and
+    inserted again row by row, so bad rows are reported with their line number and never stop the
+    import. Images are not fetched here, rows carry an image url or get one later
+    through /product/update.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.ecommerce.dto.ImportErrorDto;
+import com.example.ecommerce.dto.ImportJobDto;
+import com.example.ecommerce.enums.ImportFormat;
+import com.example.ecommerce.enums.ImportStatus;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.id.SnowflakeIds;
+import com.example.ecommerce.index.CatalogIndexer;
+import com.example.ecommerce.index.CategorySnapshot.CategoryView;
+import com.example.ecommerce.index.CategorySnapshotIndex;
+import com.example.ecommerce.util.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final String INSERT_PRODUCT = "insert into products "
+            + "(id, name, description, image_url, price, category_id, created_at) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_JOBS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final CategorySnapshotIndex categorySnapshotIndex;
+    private final CatalogIndexer catalogIndexer;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+    @Value("${catalog.import.chunk-size:10000}")
+    private int chunkSize;
+
+    // most recent jobs only, oldest are dropped first
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    });
+    // one import at a time, later uploads wait as QUEUED
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImportJobDto submit(MultipartFile file, ImportFormat format) {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidCredentialsException("Import file is required");
+        }
+        // the multipart temp file is gone once the request ends, keep our own copy for the worker
+        Path upload;
+        try {
+            upload = Files.createTempFile("product-import-", ".tmp");
+            file.transferTo(upload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store the import file", e);
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), format);
+        jobs.put(job.id, job);
+        worker.submit(() -> run(job, upload));
+        return job.toDto();
+    }
+
+    public ImportJobDto getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException("Import Job Not Found");
+        }
+        return job.toDto();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void run(ImportJob job, Path upload) {
+        job.started();
+        ImportStatus outcome = ImportStatus.COMPLETED;
+        String error = null;
+        try (BufferedReader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+            Categories categories = new Categories(categorySnapshotIndex.current().all());
+            Iterator<Row> rows = job.format == ImportFormat.NDJSON ? ndjsonRows(reader) : csvRows(reader);
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                job.read();
+                if (row.error != null) {
+                    job.failed(row.line, row.error, 1);
+                    continue;
+                }
+                try {
+                    chunk.add(toParams(row.line, row.fields, categories));
+                } catch (InvalidCredentialsException e) {
+                    job.failed(row.line, e.getMessage(), 1);
+                }
+                if (chunk.size() >= chunkSize) {
+                    insert(job, chunk);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                insert(job, chunk);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Product import {} failed", job.id, e);
+            outcome = ImportStatus.FAILED;
+            error = e.getMessage();
+        } finally {
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", upload, e);
+            }
+        }
+        // one reload instead of an index update per row, so the job only reports done once the
+        // imported products are visible
+        try {
+            if (job.imported() > 0) {
+                catalogIndexer.reload();
+            }
+        } catch (RuntimeException e) {
+            log.error("Catalog reload after product import {} failed", job.id, e);
+            outcome = ImportStatus.FAILED;
+            error = error != null ? error : "Imported products could not be loaded: " + e.getMessage();
+        }
+        job.finished(outcome, error);
+        log.info("Product import {} {}: {} imported, {} failed", job.id, job.status, job.imported(),
+                job.rowsFailed);
+    }
+
+    // a failing chunk is rolled back and inserted again one row at a time, so each bad row is reported
+    // with its own line and cause and the good rows of the chunk still get in
+    private void insert(ImportJob job, List<Object[]> chunk) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_PRODUCT, chunk, batchSize,
+                    ProductImportService::bind));
+            job.inserted(chunk.size());
+        } catch (DataAccessException e) {
+            log.warn("Product import {} lines {}-{} rolled back, retrying them one by one: {}", job.id,
+                    line(chunk.get(0)), line(chunk.get(chunk.size() - 1)), e.getMostSpecificCause().getMessage());
+            for (Object[] params : chunk) {
+                try {
+                    jdbcTemplate.update(INSERT_PRODUCT, statement -> bind(statement, params));
+                    job.inserted(1);
+                } catch (DataAccessException rowError) {
+                    job.failed(line(params), rowError.getMostSpecificCause().getMessage(), 1);
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+        statement.setLong(1, SnowflakeIds.next());
+        statement.setString(2, (String) params[0]);
+        statement.setString(3, (String) params[1]);
+        statement.setString(4, (String) params[2]);
+        statement.setBigDecimal(5, (BigDecimal) params[3]);
+        statement.setLong(6, (Long) params[4]);
+        statement.setTimestamp(7, (Timestamp) params[5]);
+    }
+
+    private static long line(Object[] params) {
+        return (Long) params[6];
+    }
+
+    // insert parameters for one row, same required fields as /product/create except the image
+    // the source line rides along last, for the row by row retry
+    private Object[] toParams(long line, Map<String, String> fields, Categories categories) {
+        String name = text(fields, "name");
+        if (name == null) {
+            throw new InvalidCredentialsException("Name is required");
+        }
+        String price = text(fields, "price");
+        if (price == null) {
+            throw new InvalidCredentialsException("Price is required");
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(price).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            throw new InvalidCredentialsException("Invalid price: " + price);
+        }
+        if (amount.signum() < 0) {
+            throw new InvalidCredentialsException("Price must not be negative");
+        }
+        Long categoryId = categories.resolve(text(fields, "categoryid"), text(fields, "category"));
+        return new Object[] { name, text(fields, "description"), text(fields, "imageurl"), amount, categoryId,
+                Timestamp.valueOf(LocalDateTime.now()), line };
+    }
+
+    private static String text(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        if (value.length() > MAX_TEXT_LENGTH) {
+            throw new InvalidCredentialsException(key + " is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    // header names are matched ignoring case and underscores, so category_id and categoryId both work
+    private static String key(String name) {
+        return name.trim().replace("_", "").toLowerCase();
+    }
+
+    private Iterator<Row> csvRows(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return Collections.emptyIterator();
+        }
+        List<String> keys = header.stream().map(ProductImportService::key).toList();
+        return new Iterator<>() {
+            private List<String> next = read();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Row next() {
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < keys.size() && i < next.size(); i++) {
+                    fields.put(keys.get(i), next.get(i));
+                }
+                Row row = next.size() == keys.size() ? new Row(csv.line(), fields, null)
+                        : new Row(csv.line(), fields, "Expected " + keys.size() + " fields but got " + next.size());
+                next = read();
+                return row;
+            }
+
+            private List<String> read() {
+                try {
+                    return csv.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    // blank lines are skipped, line numbers still count them
+    private Iterator<Row> ndjsonRows(BufferedReader reader) {
+        Iterator<String> lines = reader.lines().iterator();
+        return new Iterator<>() {
+            private long line;
+            private String next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Row next() {
+                Row row = parse(line, next);
+                next = advance();
+                return row;
+            }
+
+            private String advance() {
+                while (lines.hasNext()) {
+                    String text = lines.next();
+                    line++;
+                    if (!text.isBlank()) {
+                        return text;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private Row parse(long line, String text) {
+        Map<String, String> fields = new HashMap<>();
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            if (!node.isObject()) {
+                return new Row(line, fields, "Expected a JSON object");
+            }
+            node.fields().forEachRemaining(field -> {
+                if (field.getValue().isValueNode() && !field.getValue().isNull()) {
+                    fields.put(key(field.getKey()), field.getValue().asText());
+                }
+            });
+            return new Row(line, fields, null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, fields, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private record Row(long line, Map<String, String> fields, String error) {
+    }
+
+    // categories by id and by lower case name, taken from the snapshot once per import
+    private static final class Categories {
+        private final Map<Long, Long> byId = new HashMap<>();
+        private final Map<String, Long> byName = new HashMap<>();
+
+        Categories(Iterable<CategoryView> categories) {
+            for (CategoryView category : categories) {
+                byId.put(category.getId(), category.getId());
+                if (category.getName() != null) {
+                    byName.putIfAbsent(category.getName().trim().toLowerCase(), category.getId());
+                }
+            }
+        }
+
+        Long resolve(String id, String name) {
+            if (id != null) {
+                try {
+                    Long categoryId = byId.get(Long.valueOf(id));
+                    if (categoryId != null) {
+                        return categoryId;
+                    }
+                } catch (NumberFormatException e) {
+                    throw new InvalidCredentialsException("Invalid category id: " + id);
+                }
+                throw new InvalidCredentialsException("Category Not Found: " + id);
+            }
+            if (name != null) {
+                Long categoryId = byName.get(name.toLowerCase());
+                if (categoryId == null) {
+                    throw new InvalidCredentialsException("Category Not Found: " + name);
+                }
+                return categoryId;
+            }
+            throw new InvalidCredentialsException("Category is required");
+        }
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final ImportFormat format;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+        private ImportStatus status = ImportStatus.QUEUED;
+        private String message;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private long startNanos;
+        private long finishNanos;
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsFailed;
+
+        ImportJob(String id, String fileName, ImportFormat format) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        synchronized void started() {
+            status = ImportStatus.RUNNING;
+            startedAt = LocalDateTime.now();
+            startNanos = System.nanoTime();
+        }
+
+        synchronized void read() {
+            rowsRead++;
+        }
+
+        synchronized void inserted(int rows) {
+            rowsImported += rows;
+        }
+
+        synchronized long imported() {
+            return rowsImported;
+        }
+
+        synchronized void failed(long line, String error, int rows) {
+            rowsFailed += rows;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportErrorDto(line, error));
+            }
+        }
+
+        synchronized void finished(ImportStatus finalStatus, String error) {
+            status = finalStatus;
+            message = error;
+            finishedAt = LocalDateTime.now();
+            finishNanos = System.nanoTime();
+        }
+
+        synchronized ImportJobDto toDto() {
+            ImportJobDto dto = new ImportJobDto();
+            dto.setId(id);
+            dto.setFileName(fileName);
+            dto.setFormat(format);
+            dto.setStatus(status);
+            dto.setMessage(message);
+            dto.setRowsRead(rowsRead);
+            dto.setRowsImported(rowsImported);
+            dto.setRowsFailed(rowsFailed);
+            dto.setCreatedAt(createdAt);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            if (startedAt != null) {
+                long elapsed = (finishedAt != null ? finishNanos : System.nanoTime()) - startNanos;
+                dto.setRowsPerSecond(elapsed > 0 ? rowsRead * 1_000_000_000L / elapsed : 0);
+            }
+            dto.setErrors(List.copyOf(errors));
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+    Sales rollup service, keeps sales_rollups in step with order items for the admin dashboard.
+    Placed orders and status moves are added to in-memory deltas once their transaction has committed;
+    the deltas are upserted in one JDBC batch per interval, so the order paths never wait on the rollup
+    table. Deltas not yet flushed are lost if the node dies; rebuild recomputes a day range from
+    order_items, both to backfill history and to repair such gaps.
+    Rows are keyed by the day the items were ordered, so a status move shifts totals between statuses
+    within that day. The category is the one snapshotted on the order line when it was placed, so moving a
+    product to another category never shifts its past sales.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.dto.SalesRollupDto;
+import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.entity.SalesRollupKey;
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.RollupDimension;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private static final String UPSERT_ROLLUP = "insert into sales_rollups "
+            + "(day, product_id, category_id, status, item_count, quantity, revenue) values (?, ?, ?, ?, ?, ?, ?) "
+            + "on duplicate key update item_count = item_count + values(item_count), "
+            + "quantity = quantity + values(quantity), revenue = revenue + values(revenue)";
+    private static final String DELETE_DAYS = "delete from sales_rollups where day between ? and ?";
+    private static final String REBUILD_DAYS = "insert into sales_rollups "
+            + "(day, product_id, category_id, status, item_count, quantity, revenue) "
+            + "select date(oi.created_at), oi.product_id, coalesce(oi.category_id, 0), oi.status, "
+            + "count(*), sum(oi.quantity), sum(oi.price) "
+            + "from order_items oi "
+            + "where oi.product_id is not null and oi.created_at >= ? and oi.created_at < ? "
+            + "group by date(oi.created_at), oi.product_id, coalesce(oi.category_id, 0), oi.status";
+
+    private static final long MAX_REBUILD_DAYS = 3660;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${rollup.flush-interval:5s}")
+    private Duration flushInterval;
+
+    private final Map<SalesRollupKey, Delta> deltas = new ConcurrentHashMap<>();
+    // flushes and rebuilds take turns, so a rebuilt range's deltas are dropped before any flush adds them
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sales-rollup-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void start() {
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    // new order items, all PENDING
+    public void placed(List<RollupLine> lines) {
+        afterCommit(() -> lines.forEach(line -> add(line, OrderStatus.PENDING, 1)));
+    }
+
+    public void moved(RollupLine line, OrderStatus from, OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            add(line, from, -1);
+            add(line, to, 1);
+        });
+    }
+
+    public List<SalesRollupDto> query(LocalDate startDate, LocalDate endDate, Set<RollupDimension> groupBy,
+            OrderStatus status, Long categoryId, Long productId) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new InvalidCredentialsException("A start and end date are required, start first");
+        }
+        // column names only ever come from the enum
+        String columns = groupBy.stream().map(RollupDimension::getColumn).collect(Collectors.joining(", "));
+        StringBuilder sql = new StringBuilder("select ")
+                .append(columns.isEmpty() ? "" : columns + ", ")
+                .append("sum(item_count) item_count, sum(quantity) quantity, sum(revenue) revenue ")
+                .append("from sales_rollups where day between ? and ?");
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(startDate), Date.valueOf(endDate)));
+        if (status != null) {
+            sql.append(" and status = ?");
+            args.add(status.ordinal());
+        }
+        if (categoryId != null) {
+            sql.append(" and category_id = ?");
+            args.add(categoryId);
+        }
+        if (productId != null) {
+            sql.append(" and product_id = ?");
+            args.add(productId);
+        }
+        if (!columns.isEmpty()) {
+            sql.append(" group by ").append(columns).append(" order by ").append(columns);
+        }
+
+        OrderStatus[] statuses = OrderStatus.values();
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new SalesRollupDto(
+                groupBy.contains(RollupDimension.DAY) ? rs.getDate("day").toLocalDate() : null,
+                groupBy.contains(RollupDimension.PRODUCT) ? rs.getLong("product_id") : null,
+                groupBy.contains(RollupDimension.CATEGORY) ? rs.getLong("category_id") : null,
+                groupBy.contains(RollupDimension.STATUS) ? statuses[rs.getInt("status")] : null,
+                rs.getLong("item_count"),
+                rs.getLong("quantity"),
+                rs.getBigDecimal("revenue") != null ? rs.getBigDecimal("revenue") : BigDecimal.ZERO),
+                args.toArray());
+    }
+
+    // recomputes whole days from order_items, returns the number of rollup rows written
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new InvalidCredentialsException("A start and end date are required, start first");
+        }
+        if (startDate.plusDays(MAX_REBUILD_DAYS).isBefore(endDate)) {
+            throw new InvalidCredentialsException("Rebuild at most " + MAX_REBUILD_DAYS + " days at a time");
+        }
+        synchronized (writeLock) {
+            long start = System.currentTimeMillis();
+            Integer rows = new TransactionTemplate(transactionManager).execute(status -> {
+                jdbcTemplate.update(DELETE_DAYS, Date.valueOf(startDate), Date.valueOf(endDate));
+                return jdbcTemplate.update(REBUILD_DAYS, Timestamp.valueOf(startDate.atStartOfDay()),
+                        Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            });
+            // the range's pending deltas are from orders already in order_items, so the rebuilt rows hold
+            // them. Only an order committing while the rebuild runs can be missed or counted twice;
+            // rebuilding a range no one is ordering in is exact
+            deltas.keySet().removeIf(key -> !key.getDay().isBefore(startDate) && !key.getDay().isAfter(endDate));
+            log.info("Rebuilt sales rollups {} to {}: {} rows in {} ms", startDate, endDate, rows,
+                    System.currentTimeMillis() - start);
+            return rows == null ? 0 : rows;
+        }
+    }
+
+    void flush() {
+        synchronized (writeLock) {
+            List<Object[]> rows = new ArrayList<>(deltas.size());
+            List<Map.Entry<SalesRollupKey, Delta>> drained = new ArrayList<>(deltas.size());
+            for (SalesRollupKey key : deltas.keySet()) {
+                Delta delta = deltas.remove(key);
+                if (delta == null || delta.isEmpty()) {
+                    continue;
+                }
+                drained.add(Map.entry(key, delta));
+                rows.add(new Object[] { Date.valueOf(key.getDay()), key.getProductId(), key.getCategoryId(),
+                        key.getStatus(), delta.itemCount(), delta.quantity(), delta.revenue() });
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_ROLLUP, rows);
+            } catch (DataAccessException e) {
+                // put them back for the next interval
+                drained.forEach(entry -> deltas.merge(entry.getKey(), entry.getValue(), Delta::plus));
+                log.warn("Sales rollup flush failed for {} rows, retrying next interval", rows.size(), e);
+            }
+        }
+    }
+
+    // a caller's own transaction may have joined an outer one, such as an idempotent request's, and
+    // only the outer commit makes the order items real
+    private void afterCommit(Runnable record) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record.run();
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
+
+    private void add(RollupLine line, OrderStatus status, int sign) {
+        if (line.productId() == null || line.day() == null) {
+            return;
+        }
+        SalesRollupKey key = new SalesRollupKey(line.day(), line.productId(),
+                line.categoryId() != null ? line.categoryId() : 0L, status.ordinal());
+        BigDecimal revenue = line.price() != null ? line.price() : BigDecimal.ZERO;
+        Delta delta = sign > 0 ? new Delta(1, line.quantity(), revenue)
+                : new Delta(-1, -line.quantity(), revenue.negate());
+        deltas.merge(key, delta, Delta::plus);
+    }
+
+    // one order item as the rollups see it, price is the line price
+    public record RollupLine(LocalDate day, Long productId, Long categoryId, int quantity, BigDecimal price) {
+
+        public static RollupLine of(LocalDate day, OrderItem orderItem) {
+            return new RollupLine(day, orderItem.getProductId(), orderItem.getCategoryId(), orderItem.getQuantity(),
+                    orderItem.getPrice());
+        }
+    }
+
+    private record Delta(long itemCount, long quantity, BigDecimal revenue) {
+
+        private Delta plus(Delta other) {
+            return new Delta(itemCount + other.itemCount, quantity + other.quantity, revenue.add(other.revenue));
+        }
+
+        private boolean isEmpty() {
+            return itemCount == 0 && quantity == 0 && revenue.signum() == 0;
+        }
+    }
+}
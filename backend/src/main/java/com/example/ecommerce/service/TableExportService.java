@@ -0,0 +1,161 @@
+/*
+    Table export service for the CSV and XLSX downloads.
+    Rows are pulled from a database cursor inside a read-only transaction and written straight to the
+    response, clearing the persistence context as they go, so an export of millions of rows needs no
+    more heap than a few hundred. Each export holds one pooled connection for its whole run, so only a
+    few may run at once and further requests are turned away with 429.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.ecommerce.enums.ExportFormat;
+import com.example.ecommerce.exception.TooManyRequestsException;
+import com.example.ecommerce.util.CsvWriter;
+import com.example.ecommerce.util.TableWriter;
+import com.example.ecommerce.util.XlsxWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TableExportService {
+
+    private static final int FLUSH_EVERY = 1000;
+    private static final int CLEAR_EVERY = 500;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Value("${export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Semaphore running;
+
+    @PostConstruct
+    void start() {
+        running = new Semaphore(maxConcurrent);
+    }
+
+    public static ResponseEntity<StreamingResponseBody> response(ExportFormat format, String baseName,
+            StreamingResponseBody body) {
+        String fileName = baseName + "-" + LocalDateTime.now().format(FILE_STAMP) + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    // the slot is taken now, so a refused export fails before the response starts
+    public <T> StreamingResponseBody export(ExportFormat format, List<String> header, Supplier<Stream<T>> rows,
+            Function<T, List<?>> mapper) {
+        if (!running.tryAcquire()) {
+            throw new TooManyRequestsException("Too many exports running, retry shortly");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                running.release();
+            }
+        };
+        releaseWhenRequestEnds(release);
+        return outputStream -> {
+            try {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.setReadOnly(true);
+                transaction.executeWithoutResult(status -> {
+                    try (Stream<T> stream = rows.get()) {
+                        write(stream.iterator(), mapper, writer(format, header, outputStream), header, format);
+                    } catch (IOException e) {
+                        // client went away, the transaction and cursor are closed on the way out
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                release.run();
+            }
+        };
+    }
+
+    // the body may never run, the async request can time out or fail before it starts; the request still
+    // ends and gives the slot back then
+    private static void releaseWhenRequestEnds(Runnable release) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(
+                    TableExportService.class.getName(), new CallableProcessingInterceptor() {
+                        @Override
+                        public <C> void afterCompletion(NativeWebRequest request, Callable<C> task) {
+                            release.run();
+                        }
+                    });
+        }
+    }
+
+    private static TableWriter writer(ExportFormat format, List<String> header, OutputStream outputStream) {
+        return switch (format) {
+            case CSV -> new CsvWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+            case XLSX -> new XlsxWriter(outputStream, header);
+        };
+    }
+
+    private <T> void write(Iterator<T> rows, Function<T, List<?>> mapper, TableWriter writer, List<String> header,
+            ExportFormat format) throws IOException {
+        // the xlsx writer repeats the header on every sheet itself
+        if (format == ExportFormat.CSV) {
+            writer.writeRow(header);
+        }
+        long count = 0;
+        while (rows.hasNext()) {
+            writer.writeRow(mapper.apply(rows.next()));
+            count++;
+            if (count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+            // rows already written are not needed any more, keep the persistence context small
+            if (count % CLEAR_EVERY == 0) {
+                entityManager.clear();
+            }
+        }
+        writer.finish();
+        log.info("Exported {} rows as {}", count, format);
+    }
+}
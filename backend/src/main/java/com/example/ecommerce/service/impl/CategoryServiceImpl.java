@@ -3,7 +3,7 @@
     
     @author teshan_kalhara
     @create 5/7/2025
-    @update 5/10/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.service.impl;
 
@@ -14,7 +14,11 @@ import org.springframework.stereotype.Service;
 import com.example.ecommerce.dto.CategoryDto;
 import com.example.ecommerce.dto.Response;
 import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
 import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.index.CatalogIndexer;
+import com.example.ecommerce.index.CategorySnapshot;
+import com.example.ecommerce.index.CategorySnapshotIndex;
 import com.example.ecommerce.mapper.EntityDtoMapper;
 import com.example.ecommerce.repository.CategoryRepository;
 import com.example.ecommerce.service.interf.CategoryService;
@@ -28,6 +32,8 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
         private final CategoryRepository categoryRepo;
+        private final CatalogIndexer catalogIndexer;
+        private final CategorySnapshotIndex categorySnapshotIndex;
         private final EntityDtoMapper entityDtoMapper;
 
         @Override
@@ -35,6 +41,7 @@ public class CategoryServiceImpl implements CategoryService {
                 Category category = new Category();
                 category.setName(categoryRequest.getName());
                 categoryRepo.save(category);
+                catalogIndexer.categorySaved(category);
                 return Response.builder()
                                 .status(200)
                                 .message("Category created successfully")
@@ -47,6 +54,7 @@ public class CategoryServiceImpl implements CategoryService {
                                 .orElseThrow(() -> new NotFoundException("Category Not Found"));
                 category.setName(categoryRequest.getName());
                 categoryRepo.save(category);
+                catalogIndexer.categorySaved(category);
                 return Response.builder()
                                 .status(200)
                                 .message("category updated successfully")
@@ -55,9 +63,8 @@ public class CategoryServiceImpl implements CategoryService {
 
         @Override
         public Response getAllCategories() {
-                List<Category> categories = categoryRepo.findAll();
-                List<CategoryDto> categoryDtoList = categories.stream()
-                                .map(entityDtoMapper::mapCategoryToDtoBasic)
+                List<CategoryDto> categoryDtoList = categorySnapshotIndex.current().all().stream()
+                                .map(entityDtoMapper::mapCategoryViewToDto)
                                 .collect(Collectors.toList());
 
                 return Response.builder()
@@ -68,9 +75,11 @@ public class CategoryServiceImpl implements CategoryService {
 
         @Override
         public Response getCategoryById(Long categoryId) {
-                Category category = categoryRepo.findById(categoryId)
-                                .orElseThrow(() -> new NotFoundException("Category Not Found"));
-                CategoryDto categoryDto = entityDtoMapper.mapCategoryToDtoBasic(category);
+                CategorySnapshot.CategoryView categoryView = categorySnapshotIndex.current().get(categoryId);
+                if (categoryView == null) {
+                        throw new NotFoundException("Category Not Found");
+                }
+                CategoryDto categoryDto = entityDtoMapper.mapCategoryViewToDto(categoryView);
                 return Response.builder()
                                 .status(200)
                                 .category(categoryDto)
@@ -81,7 +90,12 @@ public class CategoryServiceImpl implements CategoryService {
         public Response deleteCategory(Long categoryId) {
                 Category category = categoryRepo.findById(categoryId)
                                 .orElseThrow(() -> new NotFoundException("Category Not Found"));
+                // products are removed with the category (cascade), drop them from the indexes too
+                List<Long> productIds = category.getProductList().stream()
+                                .map(Product::getId)
+                                .collect(Collectors.toList());
                 categoryRepo.delete(category);
+                catalogIndexer.categoryDeleted(categoryId, productIds);
                 return Response.builder()
                                 .status(200)
                                 .message("Category was deleted successfully")
@@ -3,37 +3,84 @@
     
     @author teshan_kalhara
     @create 5/7/2025
-    @update 5/10/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.ecommerce.cart.CartService;
+import com.example.ecommerce.cart.CartService.CheckoutLine;
+import com.example.ecommerce.cart.PriceBook;
+import com.example.ecommerce.dto.OrderIngestDto;
 import com.example.ecommerce.dto.OrderItemDto;
+import com.example.ecommerce.dto.OrderItemRequest;
 import com.example.ecommerce.dto.OrderRequest;
+import com.example.ecommerce.dto.OrderStatusEventDto;
+import com.example.ecommerce.dto.PaymentDto;
+import com.example.ecommerce.dto.OrderStatusUpdateRequest;
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.dto.SalesRollupDto;
+import com.example.ecommerce.dto.StatusUpdateResultDto;
+import com.example.ecommerce.entity.Address;
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.entity.Payment;
 import com.example.ecommerce.entity.Product;
 import com.example.ecommerce.entity.User;
+import com.example.ecommerce.enums.CountMode;
+import com.example.ecommerce.enums.ExportFormat;
 import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.RollupDimension;
+import com.example.ecommerce.enums.StatusUpdateOutcome;
+import com.example.ecommerce.exception.InvalidCredentialsException;
 import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.id.SnowflakeIds;
+import com.example.ecommerce.inventory.InventoryService;
+import com.example.ecommerce.inventory.StockLine;
 import com.example.ecommerce.mapper.EntityDtoMapper;
+import com.example.ecommerce.payment.PaymentService;
+import com.example.ecommerce.promotion.CompiledPromotions;
+import com.example.ecommerce.promotion.PromotionBasket;
+import com.example.ecommerce.promotion.PromotionEngine;
 import com.example.ecommerce.repository.OrderItemRepository;
 import com.example.ecommerce.repository.OrderRepository;
 import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.service.NdjsonStreamService;
+import com.example.ecommerce.service.OrderEventService;
+import com.example.ecommerce.service.OrderIngestionService;
+import com.example.ecommerce.service.SalesRollupService;
+import com.example.ecommerce.service.SalesRollupService.RollupLine;
+import com.example.ecommerce.service.TableExportService;
 import com.example.ecommerce.service.interf.OrderItemService;
 import com.example.ecommerce.service.interf.UserService;
 import com.example.ecommerce.specification.OrderItemSpecification;
+import com.example.ecommerce.util.CursorCodec;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,57 +88,254 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderItemServiceImpl implements OrderItemService {
 
+        // status is stored as the enum ordinal, like the OrderItem mapping
+        private static final String INSERT_ORDER_ITEM = "insert into order_items "
+                        + "(id, quantity, price, status, user_id, product_id, order_id, created_at, "
+                        + "product_name, unit_price, product_image_url, category_id, discount, promotion_id) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        // the rows stay locked until the chunk's transaction commits, so the statuses read are the ones updated
+        private static final String LOCK_ORDER_ITEMS = "select oi.id, oi.status, oi.product_id, oi.quantity, "
+                        + "oi.price, oi.created_at, oi.order_id, oi.user_id, oi.category_id from order_items oi "
+                        + "where oi.id in (:ids) for update";
+        private static final String UPDATE_ORDER_ITEM_STATUS = "update order_items set status = :status "
+                        + "where id in (:ids) and status in (:allowed)";
+
+        private static final String ORDER_ITEMS_ROW_ESTIMATE = "select table_rows from information_schema.tables "
+                        + "where table_schema = database() and table_name = 'order_items'";
+
+        private static final int DEFAULT_FILTER_PAGE_SIZE = 50;
+        private static final int MAX_FILTER_PAGE_SIZE = 200;
+        private static final int ESTIMATE_CAP = 10_000;
+        private static final String FILTER_CURSOR = "ORDER_ITEMS";
+        private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+        private static final List<String> EXPORT_HEADER = List.of("order_item_id", "order_id", "created_at",
+                        "status", "quantity", "price", "product_id", "product_name", "user_id", "user_name",
+                        "user_email", "street", "city", "state", "zip_code", "country");
+
+        private static final int MAX_STATUS_UPDATES = 10_000;
+        private static final int STATUS_UPDATE_CHUNK = 1000;
+
         private final OrderRepository orderRepo;
         private final OrderItemRepository orderItemRepo;
         private final ProductRepository productRepo;
         private final UserService userService;
         private final EntityDtoMapper entityDtoMapper;
+        private final NdjsonStreamService ndjsonStreamService;
+        private final JdbcTemplate jdbcTemplate;
+        private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+        private final PlatformTransactionManager transactionManager;
+        private final InventoryService inventoryService;
+        private final OrderIngestionService orderIngestionService;
+        private final TableExportService tableExportService;
+        private final SalesRollupService salesRollupService;
+        private final OrderEventService orderEventService;
+        private final CartService cartService;
+        private final PaymentService paymentService;
+        private final PromotionEngine promotionEngine;
 
+        // a fixed number of statements whatever the basket size: one user lookup, one product lookup,
+        // one order insert and one batched order item insert, committed together
         @Override
         public Response placeOrder(OrderRequest orderRequest) {
-
+                List<OrderItemRequest> lines = validLines(orderRequest);
+                String coupon = promotionEngine.coupon(orderRequest.getCouponCode());
                 User user = userService.getLoginUser();
-                // map order request items to order entities
-
-                List<OrderItem> orderItems = orderRequest.getItems().stream().map(orderItemRequest -> {
-                        Product product = productRepo.findById(orderItemRequest.getProductId())
-                                        .orElseThrow(() -> new NotFoundException("Product Not Found"));
-
-                        OrderItem orderItem = new OrderItem();
-                        orderItem.setProduct(product);
-                        orderItem.setQuantity(orderItemRequest.getQuantity());
-                        orderItem.setPrice(product.getPrice()
-                                        .multiply(BigDecimal.valueOf(orderItemRequest.getQuantity()))); // set price
-                                                                                                        // according to
-                                                                                                        // the quantity
-                        orderItem.setStatus(OrderStatus.PENDING);
-                        orderItem.setUser(user);
-                        return orderItem;
-
-                }).collect(Collectors.toList());
-
-                // calculate the total price
-                BigDecimal totalPrice = orderRequest.getTotalPrice() != null
-                                && orderRequest.getTotalPrice().compareTo(BigDecimal.ZERO) > 0
-                                                ? orderRequest.getTotalPrice()
-                                                : orderItems.stream().map(OrderItem::getPrice).reduce(BigDecimal.ZERO,
-                                                                BigDecimal::add);
-
-                // create order entity
-                Order order = new Order();
-                order.setOrderItemList(orderItems);
-                order.setTotalPrice(totalPrice);
-
-                // set the order reference in each orderitem
-                orderItems.forEach(orderItem -> orderItem.setOrder(order));
-
-                orderRepo.save(order);
+                List<PricedLine> pricedLines = promoted(priceLines(lines), coupon);
+
+                // stock is held before anything is written and given back if the order is not stored
+                List<StockLine> stockLines = holdStock(pricedLines, PricedLine::productId, PricedLine::quantity);
+                StoredOrder order;
+                try {
+                        order = storeOrder(user.getId(), pricedLines, stockLines);
+                } catch (RuntimeException e) {
+                        inventoryService.release(stockLines);
+                        throw e;
+                }
+                salesRollupService.placed(order.rollupLines());
 
+                Payment paymentInfo = orderRequest.getPaymentInfo();
                 return Response.builder()
                                 .status(200)
                                 .message("Order was successfully placed")
+                                .payment(paymentInfo != null ? startPayment(order, paymentInfo.getMethod()) : null)
+                                .build();
+        }
+
+        // the cart is already priced from memory, so the only statements are the two inserts
+        @Override
+        public Response checkoutCart(String paymentMethod, String couponCode) {
+                String coupon = promotionEngine.coupon(couponCode);
+                Long userId = userService.getLoginUserId();
+                List<CheckoutLine> cartLines = cartService.checkoutLines(userId);
+                List<PricedLine> pricedLines = promoted(cartLines.stream()
+                                .map(line -> PricedLine.of(line.product().productId(), line.product().categoryId(),
+                                                line.quantity(), line.product().price(), line.product().name(),
+                                                line.product().imageUrl()))
+                                .toList(), coupon);
+
+                List<StockLine> stockLines = holdStock(pricedLines, PricedLine::productId, PricedLine::quantity);
+                StoredOrder order;
+                try {
+                        order = storeOrder(userId, pricedLines, stockLines);
+                } catch (RuntimeException e) {
+                        inventoryService.release(stockLines);
+                        throw e;
+                }
+                salesRollupService.placed(order.rollupLines());
+                cartService.checkedOut(userId, cartLines);
+
+                return Response.builder()
+                                .status(200)
+                                .message("Order was successfully placed")
+                                .payment(paymentMethod != null ? startPayment(order, paymentMethod) : null)
+                                .build();
+        }
+
+        // the gateway answers later, the response carries the payment as pending. The order stands even
+        // if its payment could not be started, the client can authorize it again
+        private PaymentDto startPayment(StoredOrder order, String method) {
+                try {
+                        return paymentService.startPayment(order.orderId(), order.totalPrice(), method);
+                } catch (RuntimeException e) {
+                        log.warn("Could not start the payment of order {}", order.orderId(), e);
+                        return null;
+                }
+        }
+
+        // the status is already committed, so a ledger that cannot follow is logged rather than failing
+        // the request; that only happens when the hold expired between the hold check and the commit
+        private void settleStock(StockLine line, OrderStatus previous, OrderStatus next) {
+                try {
+                        inventoryService.statusChanged(line, previous, next);
+                } catch (InvalidCredentialsException e) {
+                        log.warn("Stock for order item {} did not follow its move to {}: {}", line.orderItemId(), next,
+                                        e.getMessage());
+                }
+        }
+
+        // same checks and stock hold as placeOrder, the write is left to the ingestion queue
+        @Override
+        public Response placeOrderAsync(OrderRequest orderRequest) {
+                List<OrderItemRequest> lines = validLines(orderRequest);
+                String coupon = promotionEngine.coupon(orderRequest.getCouponCode());
+                User user = userService.getLoginUser();
+                List<StockLine> stockLines = holdStock(lines, OrderItemRequest::getProductId, OrderItemRequest::getQuantity);
+                OrderIngestDto ingest = orderIngestionService.submit(user.getId(), lines, stockLines, coupon,
+                                orderRequest.getPaymentInfo());
+                return Response.builder()
+                                .status(202)
+                                .message("Order was accepted")
+                                .orderIngest(ingest)
                                 .build();
+        }
+
+        @Override
+        public Response getOrderIngestStatus(Long orderId) {
+                return Response.builder()
+                                .status(200)
+                                .orderIngest(orderIngestionService.status(orderId, userService.getLoginUserId()))
+                                .build();
+        }
+
+        private List<OrderItemRequest> validLines(OrderRequest orderRequest) {
+                List<OrderItemRequest> lines = orderRequest.getItems();
+                if (lines == null || lines.isEmpty()) {
+                        throw new InvalidCredentialsException("Order has no items");
+                }
+                for (OrderItemRequest line : lines) {
+                        if (line.getProductId() == null || line.getQuantity() <= 0) {
+                                throw new InvalidCredentialsException("Every item needs a productId and a positive quantity");
+                        }
+                }
+                return lines;
+        }
 
+        // order item ids are assigned here so the holds can be keyed by them
+        private <T> List<StockLine> holdStock(List<T> lines, Function<T, Long> productId, ToIntFunction<T> quantity) {
+                List<StockLine> stockLines = new ArrayList<>(lines.size());
+                for (T line : lines) {
+                        stockLines.add(new StockLine(SnowflakeIds.next(), productId.apply(line), quantity.applyAsInt(line)));
+                }
+                inventoryService.reserve(stockLines);
+                return stockLines;
+        }
+
+        // line prices come from the current catalog prices, never from the client
+        private List<PricedLine> priceLines(List<OrderItemRequest> lines) {
+                Set<Long> productIds = lines.stream().map(OrderItemRequest::getProductId)
+                                .collect(Collectors.toSet());
+                Map<Long, Product> products = productRepo.findAllById(productIds).stream()
+                                .collect(Collectors.toMap(Product::getId, Function.identity()));
+                if (products.size() < productIds.size()) {
+                        productIds.removeAll(products.keySet());
+                        throw new NotFoundException("Product Not Found: " + productIds);
+                }
+
+                List<PricedLine> pricedLines = new ArrayList<>(lines.size());
+                for (OrderItemRequest line : lines) {
+                        Product product = products.get(line.getProductId());
+                        if (product.getPrice() == null) {
+                                throw new InvalidCredentialsException("Product has no price: " + product.getId());
+                        }
+                        pricedLines.add(PricedLine.of(product.getId(),
+                                        product.getCategory() != null ? product.getCategory().getId() : null,
+                                        line.getQuantity(), product.getPrice(), product.getName(), product.getImageUrl()));
+                }
+                return pricedLines;
+        }
+
+        // automatic promotions and the coupon's, evaluated in memory against the compiled promotions
+        private List<PricedLine> promoted(List<PricedLine> lines, String coupon) {
+                PromotionBasket basket = promotionEngine.basket();
+                for (PricedLine line : lines) {
+                        basket.add(line.productId(),
+                                        line.categoryId() != null ? line.categoryId() : CompiledPromotions.NO_CATEGORY,
+                                        line.quantity(), PriceBook.toCents(line.unitPrice()));
+                }
+                if (promotionEngine.apply(basket, coupon) == 0) {
+                        return lines;
+                }
+                List<PricedLine> promoted = new ArrayList<>(lines.size());
+                for (int i = 0; i < lines.size(); i++) {
+                        PricedLine line = lines.get(i);
+                        promoted.add(basket.promotionId(i) == 0 ? line
+                                        : new PricedLine(line.productId(), line.categoryId(), line.quantity(),
+                                                        line.unitPrice(), line.productName(), line.productImageUrl(),
+                                                        PriceBook.fromCents(basket.discountCents(i)), basket.promotionId(i)));
+                }
+                return promoted;
+        }
+
+        // the stored lines go to the sales rollups, which only hear about them once committed
+        private StoredOrder storeOrder(Long userId, List<PricedLine> lines, List<StockLine> stockLines) {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                return transaction.execute(status -> {
+                        BigDecimal totalPrice = lines.stream().map(PricedLine::linePrice)
+                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+                        Order order = new Order();
+                        order.setTotalPrice(totalPrice);
+                        // the order row has to exist before the items that reference it
+                        orderRepo.saveAndFlush(order);
+
+                        Timestamp createdAt = Timestamp.valueOf(order.getCreatedAt());
+                        List<Object[]> rows = new ArrayList<>(lines.size());
+                        List<RollupLine> rollupLines = new ArrayList<>(lines.size());
+                        for (int i = 0; i < lines.size(); i++) {
+                                PricedLine line = lines.get(i);
+                                rows.add(new Object[] { stockLines.get(i).orderItemId(), line.quantity(), line.linePrice(),
+                                                OrderStatus.PENDING.ordinal(), userId, line.productId(), order.getId(),
+                                                createdAt, line.productName(), line.unitPrice(), line.productImageUrl(),
+                                                line.categoryId(), line.discount(), line.promotionId() });
+                                rollupLines.add(new RollupLine(order.getCreatedAt().toLocalDate(), line.productId(),
+                                                line.categoryId(), line.quantity(), line.linePrice()));
+                        }
+                        // with rewriteBatchedStatements the driver sends this as one multi-row INSERT
+                        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, rows);
+                        return new StoredOrder(order.getId(), totalPrice, rollupLines);
+                });
         }
 
         @Override
@@ -99,36 +343,349 @@ public class OrderItemServiceImpl implements OrderItemService {
                 OrderItem orderItem = orderItemRepo.findById(orderItemId)
                                 .orElseThrow(() -> new NotFoundException("Order Item not found"));
 
-                orderItem.setStatus(OrderStatus.valueOf(status.toUpperCase()));
-                orderItemRepo.save(orderItem);
+                OrderStatus previous = orderItem.getStatus();
+                OrderStatus next = OrderStatus.valueOf(status.toUpperCase());
+                if (previous != next) {
+                        if (!previous.canMoveTo(next)) {
+                                throw new InvalidCredentialsException(transitionMessage(previous, next));
+                        }
+                        StockLine line = orderItem.getProduct() != null ? new StockLine(orderItem.getId(),
+                                        orderItem.getProduct().getId(), orderItem.getQuantity()) : null;
+                        // stock for a sale is held up front, the ledger only moves once the status is committed
+                        boolean held = line != null && inventoryService.holdForStatus(line, previous, next);
+                        orderItem.setStatus(next);
+                        try {
+                                new TransactionTemplate(transactionManager)
+                                                .executeWithoutResult(transaction -> orderItemRepo.save(orderItem));
+                        } catch (RuntimeException e) {
+                                if (held) {
+                                        inventoryService.release(List.of(line));
+                                }
+                                throw e;
+                        }
+                        if (line != null) {
+                                settleStock(line, previous, next);
+                        }
+                        if (orderItem.getProductId() != null) {
+                                salesRollupService.moved(RollupLine.of(orderItem.getCreatedAt().toLocalDate(), orderItem),
+                                                previous, next);
+                        }
+                        if (orderItem.getUser() != null) {
+                                orderEventService.publish(orderItem.getUser().getId(), new OrderStatusEventDto(
+                                                orderItem.getId(), orderItem.getOrder() != null ? orderItem.getOrder().getId() : null,
+                                                previous, next, LocalDateTime.now()));
+                        }
+                }
                 return Response.builder()
                                 .status(200)
                                 .message("Order status updated successfully")
                                 .build();
         }
 
+        // items are never loaded as entities: each chunk locks its rows, checks every move against the
+        // state machine and moves the valid ones with a single UPDATE, one transaction per chunk. The
+        // ledger and the UPDATED results only follow a committed chunk; a chunk that rolls back gives
+        // its new holds back and reports its items as FAILED
         @Override
-        public Response filterOrderItems(OrderStatus status, LocalDateTime startDate, LocalDateTime endDate,
-                        Long itemId, Pageable pageable) {
-                Specification<OrderItem> spec = Specification.where(OrderItemSpecification.hasStatus(status))
-                                .and(OrderItemSpecification.createdBetween(startDate, endDate))
-                                .and(OrderItemSpecification.hasItemId(itemId));
+        public Response bulkUpdateOrderItemStatus(OrderStatusUpdateRequest request) {
+                OrderStatus target = request.getStatus();
+                if (target == null) {
+                        throw new InvalidCredentialsException("Target status is required");
+                }
+                List<Long> ids = bulkStatusIds(request);
 
-                Page<OrderItem> orderItemPage = orderItemRepo.findAll(spec, pageable);
+                Map<Long, StatusUpdateResultDto> results = new LinkedHashMap<>();
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                for (int from = 0; from < ids.size(); from += STATUS_UPDATE_CHUNK) {
+                        List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + STATUS_UPDATE_CHUNK));
+                        List<StockLine> held = new ArrayList<>();
+                        List<StatusMove> moved;
+                        try {
+                                moved = transaction.execute(status -> moveChunk(chunk, target, results, held));
+                        } catch (RuntimeException e) {
+                                log.warn("Status update of {} order items to {} rolled back", chunk.size(), target, e);
+                                inventoryService.release(held);
+                                for (Long id : chunk) {
+                                        results.putIfAbsent(id, new StatusUpdateResultDto(id, StatusUpdateOutcome.FAILED,
+                                                        null, "Order item could not be updated, nothing was changed"));
+                                }
+                                continue;
+                        }
+                        // only committed moves reach the ledger, the rollups and the owners' event streams
+                        LocalDateTime changedAt = LocalDateTime.now();
+                        for (StatusMove move : moved) {
+                                if (move.stockLine() != null) {
+                                        settleStock(move.stockLine(), move.previous(), target);
+                                }
+                                results.put(move.orderItemId(), new StatusUpdateResultDto(move.orderItemId(),
+                                                StatusUpdateOutcome.UPDATED, move.previous(), null));
+                                if (move.rollupLine() != null) {
+                                        salesRollupService.moved(move.rollupLine(), move.previous(), target);
+                                }
+                                orderEventService.publish(move.userId(), new OrderStatusEventDto(move.orderItemId(),
+                                                move.orderId(), move.previous(), target, changedAt));
+                        }
+                }
+
+                long updated = results.values().stream()
+                                .filter(result -> result.getOutcome() == StatusUpdateOutcome.UPDATED).count();
+                return Response.builder()
+                                .status(200)
+                                .message(updated + " of " + ids.size() + " order items moved to " + target)
+                                .totalElement(updated)
+                                .statusUpdateList(new ArrayList<>(results.values()))
+                                .build();
+        }
+
+        private List<Long> bulkStatusIds(OrderStatusUpdateRequest request) {
+                List<Long> ids;
+                if (request.getOrderItemIds() != null && !request.getOrderItemIds().isEmpty()) {
+                        ids = request.getOrderItemIds().stream().filter(Objects::nonNull).distinct().toList();
+                } else {
+                        if (request.getCurrentStatus() == null && request.getStartDate() == null
+                                        && request.getEndDate() == null) {
+                                throw new InvalidCredentialsException("Give order item ids or a filter");
+                        }
+                        ids = orderItemRepo.findIds(filterSpec(request.getCurrentStatus(), request.getStartDate(),
+                                        request.getEndDate(), null), MAX_STATUS_UPDATES + 1);
+                }
+                if (ids.size() > MAX_STATUS_UPDATES) {
+                        throw new InvalidCredentialsException(
+                                        "At most " + MAX_STATUS_UPDATES + " order items per update, narrow the filter");
+                }
+                return ids;
+        }
+
+        // the stock a sale needs is held here, so a short item is refused before anything is written;
+        // held collects the new holds for the caller to give back if the chunk does not commit
+        private List<StatusMove> moveChunk(List<Long> chunk, OrderStatus target,
+                        Map<Long, StatusUpdateResultDto> results, List<StockLine> held) {
+                OrderStatus[] statuses = OrderStatus.values();
+                Map<Long, StockLine> lines = new HashMap<>();
+                Map<Long, RollupLine> rollupLines = new HashMap<>();
+                Map<Long, OrderStatus> current = new HashMap<>();
+                Map<Long, Long> orderIds = new HashMap<>();
+                Map<Long, Long> userIds = new HashMap<>();
+                namedParameterJdbcTemplate.query(LOCK_ORDER_ITEMS, Map.of("ids", chunk), rs -> {
+                        long id = rs.getLong("id");
+                        current.put(id, statuses[rs.getInt("status")]);
+                        orderIds.put(id, rs.getObject("order_id", Long.class));
+                        userIds.put(id, rs.getObject("user_id", Long.class));
+                        long productId = rs.getLong("product_id");
+                        if (!rs.wasNull()) {
+                                int quantity = rs.getInt("quantity");
+                                lines.put(id, new StockLine(id, productId, quantity));
+                                long categoryId = rs.getLong("category_id");
+                                Long category = rs.wasNull() ? null : categoryId;
+                                Timestamp createdAt = rs.getTimestamp("created_at");
+                                rollupLines.put(id, new RollupLine(
+                                                createdAt != null ? createdAt.toLocalDateTime().toLocalDate() : null,
+                                                productId, category, quantity, rs.getBigDecimal("price")));
+                        }
+                });
+
+                List<Long> moving = new ArrayList<>(chunk.size());
+                for (Long id : chunk) {
+                        OrderStatus previous = current.get(id);
+                        if (previous == null) {
+                                results.put(id, new StatusUpdateResultDto(id, StatusUpdateOutcome.NOT_FOUND, null,
+                                                "Order Item not found"));
+                        } else if (previous == target) {
+                                results.put(id, new StatusUpdateResultDto(id, StatusUpdateOutcome.UNCHANGED, previous,
+                                                null));
+                        } else if (!previous.canMoveTo(target)) {
+                                results.put(id, new StatusUpdateResultDto(id, StatusUpdateOutcome.INVALID_TRANSITION,
+                                                previous, transitionMessage(previous, target)));
+                        } else {
+                                try {
+                                        StockLine line = lines.get(id);
+                                        if (line != null && inventoryService.holdForStatus(line, previous, target)) {
+                                                held.add(line);
+                                        }
+                                        moving.add(id);
+                                } catch (InvalidCredentialsException e) {
+                                        results.put(id, new StatusUpdateResultDto(id, StatusUpdateOutcome.OUT_OF_STOCK,
+                                                        previous, e.getMessage()));
+                                }
+                        }
+                }
+                List<StatusMove> moved = new ArrayList<>(moving.size());
+                if (!moving.isEmpty()) {
+                        List<Integer> allowed = OrderStatus.sourcesOf(target).stream().map(Enum::ordinal).toList();
+                        namedParameterJdbcTemplate.update(UPDATE_ORDER_ITEM_STATUS,
+                                        Map.of("status", target.ordinal(), "ids", moving, "allowed", allowed));
+                        for (Long id : moving) {
+                                moved.add(new StatusMove(id, orderIds.get(id), userIds.get(id), rollupLines.get(id),
+                                                lines.get(id), current.get(id)));
+                        }
+                }
+                return moved;
+        }
 
-                if (orderItemPage.isEmpty()) {
+        private record StoredOrder(Long orderId, BigDecimal totalPrice, List<RollupLine> rollupLines) {
+        }
+
+        // one order line priced and ready to store, with the product snapshot it is stored with
+        // discount and promotionId are null when no promotion applies
+        private record PricedLine(Long productId, Long categoryId, int quantity, BigDecimal unitPrice,
+                        String productName, String productImageUrl, BigDecimal discount, Long promotionId) {
+
+                private static PricedLine of(Long productId, Long categoryId, int quantity, BigDecimal unitPrice,
+                                String productName, String productImageUrl) {
+                        return new PricedLine(productId, categoryId, quantity, unitPrice, productName, productImageUrl,
+                                        null, null);
+                }
+
+                private BigDecimal linePrice() {
+                        BigDecimal linePrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+                        return discount != null ? linePrice.subtract(discount) : linePrice;
+                }
+        }
+
+        // a committed bulk move, rollupLine and stockLine are null for items whose product is gone
+        private record StatusMove(Long orderItemId, Long orderId, Long userId, RollupLine rollupLine,
+                        StockLine stockLine, OrderStatus previous) {
+        }
+
+        private static String transitionMessage(OrderStatus from, OrderStatus to) {
+                return "Order item cannot move from " + from + " to " + to + ", allowed: " + from.next();
+        }
+
+        // one query with product, user and address joined in, newest first on (createdAt, id); a cursor
+        // continues after the last row of the previous page, the total is only counted when asked for
+        @Override
+        public Response filterOrderItems(OrderStatus status, LocalDateTime startDate, LocalDateTime endDate,
+                        Long itemId, int page, int size, String after, CountMode countMode) {
+                int pageSize = size <= 0 ? DEFAULT_FILTER_PAGE_SIZE : Math.min(size, MAX_FILTER_PAGE_SIZE);
+                Specification<OrderItem> spec = filterSpec(status, startDate, endDate, itemId);
+
+                Specification<OrderItem> pageSpec = spec;
+                int offset = 0;
+                if (after != null && !after.isBlank()) {
+                        CursorCodec.Position position = CursorCodec.decode(FILTER_CURSOR, after);
+                        pageSpec = spec.and(OrderItemSpecification.before(position.sortKeyAsTime(), position.id()));
+                } else {
+                        offset = Math.max(page, 0) * pageSize;
+                }
+                // one extra row tells whether there is a next page
+                List<OrderItem> orderItems = orderItemRepo.findPage(pageSpec, NEWEST_FIRST, offset, pageSize + 1);
+                if (orderItems.isEmpty()) {
                         throw new NotFoundException("No Order Found");
                 }
-                List<OrderItemDto> orderItemDtos = orderItemPage.getContent().stream()
+                String nextCursor = null;
+                if (orderItems.size() > pageSize) {
+                        orderItems = orderItems.subList(0, pageSize);
+                        OrderItem last = orderItems.get(pageSize - 1);
+                        nextCursor = CursorCodec.encode(FILTER_CURSOR, last.getCreatedAt().toString(), last.getId());
+                }
+                List<OrderItemDto> orderItemDtos = orderItems.stream()
                                 .map(entityDtoMapper::mapOrderItemToDtoPlusProductAndUser)
                                 .collect(Collectors.toList());
 
-                return Response.builder()
+                Response.ResponseBuilder response = Response.builder()
                                 .status(200)
                                 .orderItemList(orderItemDtos)
-                                .totalPage(orderItemPage.getTotalPages())
-                                .totalElement(orderItemPage.getTotalElements())
+                                .nextCursor(nextCursor);
+                if (countMode == CountMode.NONE) {
+                        return response.build();
+                }
+                long total;
+                if (countMode == CountMode.ESTIMATE) {
+                        total = estimateCount(spec, status == null && startDate == null && endDate == null
+                                        && itemId == null);
+                        response.totalEstimated(true);
+                } else {
+                        total = orderItemRepo.count(spec);
+                }
+                return response
+                                .totalPage((int) ((total + pageSize - 1) / pageSize))
+                                .totalElement(total)
                                 .build();
         }
 
+        // table statistics for the whole table, otherwise a count that stops at the cap
+        private long estimateCount(Specification<OrderItem> spec, boolean unfiltered) {
+                if (unfiltered) {
+                        Long rows = jdbcTemplate.queryForObject(ORDER_ITEMS_ROW_ESTIMATE, Long.class);
+                        if (rows != null) {
+                                return rows;
+                        }
+                }
+                return orderItemRepo.findIds(spec, ESTIMATE_CAP).size();
+        }
+
+        @Override
+        public StreamingResponseBody streamOrderItems(OrderStatus status, LocalDateTime startDate,
+                        LocalDateTime endDate, Long itemId) {
+                Specification<OrderItem> spec = filterSpec(status, startDate, endDate, itemId);
+                return ndjsonStreamService.stream(
+                                () -> orderItemRepo.streamAll(spec, Sort.by(Sort.Direction.DESC, "id")),
+                                entityDtoMapper::mapOrderItemToDtoPlusProductAndUser);
+        }
+
+        // same predicates and fetch plan as the ndjson stream, written as csv or xlsx rows
+        @Override
+        public StreamingResponseBody exportOrderItems(OrderStatus status, LocalDateTime startDate,
+                        LocalDateTime endDate, Long itemId, ExportFormat format) {
+                Specification<OrderItem> spec = filterSpec(status, startDate, endDate, itemId);
+                return tableExportService.export(format, EXPORT_HEADER,
+                                () -> orderItemRepo.streamAll(spec, Sort.by(Sort.Direction.DESC, "id")),
+                                OrderItemServiceImpl::exportRow);
+        }
+
+        // product columns come from the line's snapshot, the catalog is not read
+        private static List<?> exportRow(OrderItem item) {
+                User user = item.getUser();
+                Address address = user != null ? user.getAddress() : null;
+                return Arrays.asList(item.getId(),
+                                item.getOrder() != null ? item.getOrder().getId() : null,
+                                item.getCreatedAt() != null ? item.getCreatedAt().toString() : null,
+                                item.getStatus() != null ? item.getStatus().name() : null,
+                                item.getQuantity(),
+                                item.getPrice(),
+                                item.getProductId(),
+                                item.getProductName(),
+                                user != null ? user.getId() : null,
+                                user != null ? user.getName() : null,
+                                user != null ? user.getEmail() : null,
+                                address != null ? address.getStreet() : null,
+                                address != null ? address.getCity() : null,
+                                address != null ? address.getState() : null,
+                                address != null ? address.getZipCode() : null,
+                                address != null ? address.getCountry() : null);
+        }
+
+        private Specification<OrderItem> filterSpec(OrderStatus status, LocalDateTime startDate,
+                        LocalDateTime endDate, Long itemId) {
+                return Specification.where(OrderItemSpecification.hasStatus(status))
+                                .and(OrderItemSpecification.createdBetween(startDate, endDate))
+                                .and(OrderItemSpecification.hasItemId(itemId));
+        }
+
+        // dashboard totals come from the rollup table, never from a scan of order_items
+        @Override
+        public Response getSalesRollup(LocalDate startDate, LocalDate endDate, List<String> groupBy, OrderStatus status,
+                        Long categoryId, Long productId) {
+                Set<RollupDimension> dimensions = EnumSet.noneOf(RollupDimension.class);
+                if (groupBy != null) {
+                        groupBy.stream().filter(value -> !value.isBlank()).map(RollupDimension::resolve)
+                                        .forEach(dimensions::add);
+                }
+                List<SalesRollupDto> rollups = salesRollupService.query(startDate, endDate, dimensions, status,
+                                categoryId, productId);
+                return Response.builder()
+                                .status(200)
+                                .totalElement(rollups.size())
+                                .salesRollupList(rollups)
+                                .build();
+        }
+
+        @Override
+        public Response rebuildSalesRollup(LocalDate startDate, LocalDate endDate) {
+                int rows = salesRollupService.rebuild(startDate, endDate);
+                return Response.builder()
+                                .status(200)
+                                .message("Sales rollups rebuilt from " + startDate + " to " + endDate + ", " + rows + " rows")
+                                .build();
+        }
 }
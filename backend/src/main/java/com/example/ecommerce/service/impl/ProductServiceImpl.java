@@ -3,29 +3,58 @@
     
     @author teshan_kalhara
     @create 5/7/2025
-    @update 5/7/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.ecommerce.cache.CatalogCache;
+import com.example.ecommerce.dto.BulkPriceUpdateRequest;
+import com.example.ecommerce.dto.FacetCountDto;
+import com.example.ecommerce.dto.PriceBucketDto;
+import com.example.ecommerce.dto.PriceUpdateRequest;
 import com.example.ecommerce.dto.ProductDto;
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.dto.SuggestionDto;
 import com.example.ecommerce.entity.Category;
 import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.enums.ProductSort;
+import com.example.ecommerce.exception.InvalidCredentialsException;
 import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.index.CatalogIndexer;
+import com.example.ecommerce.index.CategorySnapshot;
+import com.example.ecommerce.index.CategorySnapshotIndex;
+import com.example.ecommerce.index.ProductFacetIndex;
+import com.example.ecommerce.index.ProductSearchIndex;
+import com.example.ecommerce.index.SuggestionIndex;
+import com.example.ecommerce.inventory.InventoryService;
 import com.example.ecommerce.mapper.EntityDtoMapper;
 import com.example.ecommerce.repository.CategoryRepository;
 import com.example.ecommerce.repository.ProductRepository;
 import com.example.ecommerce.service.AwsS3Service;
+import com.example.ecommerce.service.NdjsonStreamService;
 import com.example.ecommerce.service.interf.ProductService;
+import com.example.ecommerce.util.CursorCodec;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,10 +62,28 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_HISTOGRAM_BINS = 50;
+    private static final int MAX_BULK_PRICES = 10000;
+    private static final int BULK_BATCH_SIZE = 1000;
+    private static final String UPDATE_PRICE = "update products set price = ? where id = ?";
+
     private final ProductRepository productRepo;
     private final CategoryRepository categoryRepo;
     private final EntityDtoMapper entityDtoMapper;
     private final AwsS3Service awsS3Service;
+    private final CatalogIndexer catalogIndexer;
+    private final ProductSearchIndex productSearchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final CatalogCache catalogCache;
+    private final CategorySnapshotIndex categorySnapshotIndex;
+    private final NdjsonStreamService ndjsonStreamService;
+    private final ProductFacetIndex productFacetIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final InventoryService inventoryService;
 
     @Override
     public Response createProduct(Long categoryId, MultipartFile image, String name, String description,
@@ -53,6 +100,7 @@ public class ProductServiceImpl implements ProductService {
         product.setImageUrl(productImageUrl);
 
         productRepo.save(product);
+        catalogIndexer.productSaved(product);
         return Response.builder()
                 .status(200)
                 .message("Product successfully created")
@@ -86,6 +134,7 @@ public class ProductServiceImpl implements ProductService {
             product.setImageUrl(productImageUrl);
 
         productRepo.save(product);
+        catalogIndexer.productSaved(product);
         return Response.builder()
                 .status(200)
                 .message("Product updated successfully")
@@ -93,10 +142,91 @@ public class ProductServiceImpl implements ProductService {
 
     }
 
+    @Override
+    public Response bulkUpdatePrices(BulkPriceUpdateRequest request) {
+        boolean byList = request.getPrices() != null && !request.getPrices().isEmpty();
+        boolean byRule = request.getCategoryId() != null || request.getPercent() != null;
+        if (byList == byRule) {
+            throw new InvalidCredentialsException("Send either a list of prices or a categoryId with a percent");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> changedIds = new ArrayList<>();
+        int updated;
+        if (byList) {
+            List<PriceUpdateRequest> prices = request.getPrices();
+            if (prices.size() > MAX_BULK_PRICES) {
+                throw new InvalidCredentialsException("At most " + MAX_BULK_PRICES + " prices per request");
+            }
+            for (PriceUpdateRequest price : prices) {
+                if (price.getProductId() == null || price.getPrice() == null || price.getPrice().signum() < 0) {
+                    throw new InvalidCredentialsException("Every price needs a productId and a non negative price");
+                }
+            }
+            // batched single row UPDATEs, one transaction for the whole list
+            int[][] counts = transaction.execute(status -> jdbcTemplate.batchUpdate(UPDATE_PRICE, prices,
+                    BULK_BATCH_SIZE, (statement, price) -> {
+                        statement.setBigDecimal(1, price.getPrice().setScale(2, RoundingMode.HALF_UP));
+                        statement.setLong(2, price.getProductId());
+                    }));
+            updated = 0;
+            int i = 0;
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    // a rewritten batch may only report that the statement ran, not whether it matched a
+                    // row: refresh those products anyway but only count the confirmed updates
+                    if (count > 0) {
+                        updated++;
+                    }
+                    if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                        changedIds.add(prices.get(i).getProductId());
+                    }
+                    i++;
+                }
+            }
+        } else {
+            if (request.getCategoryId() == null || request.getPercent() == null) {
+                throw new InvalidCredentialsException("A price rule needs both categoryId and percent");
+            }
+            if (request.getPercent().compareTo(BigDecimal.valueOf(-100)) <= 0) {
+                throw new InvalidCredentialsException("Percent must be greater than -100");
+            }
+            if (categorySnapshotIndex.current().get(request.getCategoryId()) == null) {
+                throw new NotFoundException("Category not found");
+            }
+            BigDecimal factor = BigDecimal.ONE.add(request.getPercent().movePointLeft(2));
+            // one set based UPDATE, the ids are only read to refresh the catalog indexes afterwards
+            updated = transaction.execute(status -> {
+                changedIds.addAll(productRepo.findIdsByCategoryId(request.getCategoryId()));
+                return productRepo.scalePricesByCategory(request.getCategoryId(), factor);
+            });
+        }
+        catalogIndexer.productsChanged(changedIds);
+
+        return Response.builder()
+                .status(200)
+                .message(updated + " product prices updated")
+                .totalElement(updated)
+                .build();
+    }
+
+    // the ledger takes the new level at once, the column follows with the next write-behind flush
+    @Override
+    public Response updateStock(Long productId, int stock) {
+        if (!productRepo.existsById(productId)) {
+            throw new NotFoundException("Product Not Found");
+        }
+        inventoryService.setStock(productId, stock);
+        return Response.builder()
+                .status(200)
+                .message("Stock updated successfully")
+                .build();
+    }
+
     @Override
     public Response deleteProduct(Long productId) {
         Product product = productRepo.findById(productId).orElseThrow(() -> new NotFoundException("Product Not Found"));
         productRepo.delete(product);
+        catalogIndexer.productDeleted(productId);
 
         return Response.builder()
                 .status(200)
@@ -106,8 +236,7 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Response getProductById(Long productId) {
-        Product product = productRepo.findById(productId).orElseThrow(() -> new NotFoundException("Product Not Found"));
-        ProductDto productDto = entityDtoMapper.mapProductToDtoBasic(product);
+        ProductDto productDto = catalogCache.getProduct(productId);
 
         return Response.builder()
                 .status(200)
@@ -130,36 +259,181 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public Response getProductsByCategory(Long categoryId) {
-        List<Product> products = productRepo.findByCategoryId(categoryId);
-        if (products.isEmpty()) {
-            throw new NotFoundException("No Products found for this category");
+    public StreamingResponseBody streamAllProducts() {
+        return ndjsonStreamService.stream(productRepo::streamAllNewestFirst, entityDtoMapper::mapProductToDtoBasic);
+    }
+
+    @Override
+    public Response getProductsPage(String after, int size, ProductSort sort) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        // fetch one extra row to know whether there is a next page
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        CursorCodec.Position position = after == null || after.isBlank() ? null
+                : CursorCodec.decode(sort.name(), after);
+
+        List<Product> products = switch (sort) {
+            case NEWEST -> position == null ? productRepo.findNewest(limit)
+                    : productRepo.findNewestAfter(position.id(), limit);
+            case PRICE_ASC, PRICE_DESC -> byPrice(sort, position, limit);
+            case NAME_ASC -> byName(position, limit);
+        };
+
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            Product last = products.get(pageSize - 1);
+            nextCursor = CursorCodec.encode(sort.name(), sortKeyOf(last, sort), last.getId());
         }
-        List<ProductDto> productDtoList = products.stream()
+        List<ProductDto> productList = products.stream()
                 .map(entityDtoMapper::mapProductToDtoBasic)
                 .collect(Collectors.toList());
 
+        return Response.builder()
+                .status(200)
+                .productList(productList)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // products without a price come last in both directions, in id order; their cursors carry an empty sort key
+    private List<Product> byPrice(ProductSort sort, CursorCodec.Position position, Pageable limit) {
+        boolean unpricedTail = position != null && position.sortKey().isEmpty();
+        List<Product> products = new ArrayList<>(limit.getPageSize());
+        if (!unpricedTail) {
+            boolean ascending = sort == ProductSort.PRICE_ASC;
+            if (position == null) {
+                products.addAll(ascending ? productRepo.findByPriceAsc(limit) : productRepo.findByPriceDesc(limit));
+            } else {
+                BigDecimal price = position.sortKeyAsDecimal();
+                products.addAll(ascending ? productRepo.findByPriceAscAfter(price, position.id(), limit)
+                        : productRepo.findByPriceDescAfter(price, position.id(), limit));
+            }
+        }
+        if (products.size() < limit.getPageSize()) {
+            products.addAll(productRepo.findUnpricedAfter(unpricedTail ? position.id() : Long.MIN_VALUE,
+                    PageRequest.of(0, limit.getPageSize() - products.size())));
+        }
+        return products;
+    }
+
+    // products without a name come last, in id order; their cursors carry an empty sort key
+    private List<Product> byName(CursorCodec.Position position, Pageable limit) {
+        boolean unnamedTail = position != null && position.sortKey().isEmpty();
+        List<Product> products = new ArrayList<>(limit.getPageSize());
+        if (!unnamedTail) {
+            products.addAll(position == null ? productRepo.findByNameAsc(limit)
+                    : productRepo.findByNameAscAfter(position.sortKey(), position.id(), limit));
+        }
+        if (products.size() < limit.getPageSize()) {
+            products.addAll(productRepo.findUnnamedAfter(unnamedTail ? position.id() : Long.MIN_VALUE,
+                    PageRequest.of(0, limit.getPageSize() - products.size())));
+        }
+        return products;
+    }
+
+    private String sortKeyOf(Product product, ProductSort sort) {
+        return switch (sort) {
+            case NEWEST -> null;
+            case PRICE_ASC, PRICE_DESC -> product.getPrice() != null ? product.getPrice().toPlainString() : null;
+            case NAME_ASC -> product.getName();
+        };
+    }
+
+    @Override
+    public Response getProductsByCategory(Long categoryId, int page, int size) {
+        CategorySnapshot.CategoryView categoryView = categorySnapshotIndex.current().get(categoryId);
+        if (categoryView == null) {
+            throw new NotFoundException("Category Not Found");
+        }
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        List<Long> productIds = categoryView.productIds(offset(page, pageSize), pageSize);
+        List<ProductDto> productDtoList = catalogCache.getProducts(productIds);
+
         return Response.builder()
                 .status(200)
                 .productList(productDtoList)
+                .totalElement(categoryView.getProductCount())
+                .totalPage((categoryView.getProductCount() + pageSize - 1) / pageSize)
                 .build();
 
     }
 
     @Override
-    public Response searchProduct(String searchValue) {
-        List<Product> products = productRepo.findByNameContainingOrDescriptionContaining(searchValue, searchValue);
+    public Response searchProduct(String searchValue, int page, int size) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        ProductSearchIndex.SearchResult result = productSearchIndex.search(searchValue,
+                offset(page, pageSize), pageSize);
 
-        if (products.isEmpty()) {
+        if (result.total() == 0) {
             throw new NotFoundException("No Products Found");
         }
-        List<ProductDto> productDtoList = products.stream()
+        // load the page by primary key and keep the ranking order of the index
+        List<Long> productIds = result.productIds();
+        Map<Long, Product> products = productRepo.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductDto> productDtoList = productIds.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
                 .map(entityDtoMapper::mapProductToDtoBasic)
                 .collect(Collectors.toList());
 
         return Response.builder()
                 .status(200)
                 .productList(productDtoList)
+                .totalElement(result.total())
+                .totalPage((result.total() + pageSize - 1) / pageSize)
+                .build();
+    }
+
+    // deep pages past the last int stay empty instead of wrapping around
+    private static int offset(int page, int pageSize) {
+        return (int) Math.min((long) Math.max(page, 0) * pageSize, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Response suggestProducts(String prefix, int limit, boolean fuzzy) {
+        List<SuggestionDto> suggestions = suggestionIndex.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS), fuzzy)
+                .stream()
+                .map(entry -> new SuggestionDto(entry.getText(), entry.getType(), entry.getId()))
+                .collect(Collectors.toList());
+
+        return Response.builder()
+                .status(200)
+                .suggestionList(suggestions)
+                .build();
+    }
+
+    @Override
+    public Response filterProducts(List<Long> categoryIds, BigDecimal minPrice, BigDecimal maxPrice, Integer minRating,
+            ProductSort sort, int page, int size, int bins) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        ProductFacetIndex.FacetResult result = productFacetIndex.query(new ProductFacetIndex.FacetQuery(
+                categoryIds, minPrice, maxPrice, minRating, sort, offset(page, pageSize), pageSize,
+                Math.max(0, Math.min(bins, MAX_HISTOGRAM_BINS))));
+
+        CategorySnapshot categories = categorySnapshotIndex.current();
+        List<FacetCountDto> categoryFacets = new ArrayList<>();
+        result.categoryCounts().forEach((categoryId, count) -> {
+            CategorySnapshot.CategoryView view = categories.get(categoryId);
+            categoryFacets.add(new FacetCountDto(categoryId, view != null ? view.getName() : null, count));
+        });
+        // rating facets read as "rated N or better"
+        List<FacetCountDto> ratingFacets = new ArrayList<>();
+        for (int rating = ProductFacetIndex.MAX_RATING; rating >= 1; rating--) {
+            ratingFacets.add(new FacetCountDto((long) rating, null, result.ratingCounts()[rating]));
+        }
+        List<PriceBucketDto> priceHistogram = result.priceHistogram().stream()
+                .map(bin -> new PriceBucketDto(bin.from(), bin.to(), bin.count()))
+                .collect(Collectors.toList());
+
+        return Response.builder()
+                .status(200)
+                .productList(catalogCache.getProducts(result.productIds()))
+                .totalElement(result.total())
+                .totalPage((result.total() + pageSize - 1) / pageSize)
+                .categoryFacets(categoryFacets)
+                .ratingFacets(ratingFacets)
+                .priceHistogram(priceHistogram)
                 .build();
     }
 }
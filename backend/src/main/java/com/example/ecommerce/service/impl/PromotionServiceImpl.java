@@ -0,0 +1,131 @@
+/*
+    Promotion service implementation for the e-commerce application.
+    Promotions are checked here when they are created, so the compiled form never meets a rule it
+    cannot evaluate, and the engine recompiles after every change.
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.example.ecommerce.dto.PromotionDto;
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.entity.Promotion;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.mapper.EntityDtoMapper;
+import com.example.ecommerce.promotion.PromotionEngine;
+import com.example.ecommerce.repository.PromotionRepository;
+import com.example.ecommerce.service.interf.PromotionService;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionServiceImpl implements PromotionService {
+
+        private static final int MAX_CODE_LENGTH = 32;
+
+        private final PromotionRepository promotionRepo;
+        private final PromotionEngine promotionEngine;
+        private final EntityDtoMapper entityDtoMapper;
+
+        @Override
+        public Response createPromotion(PromotionDto promotionRequest) {
+                Promotion promotion = validPromotion(promotionRequest);
+                promotionRepo.save(promotion);
+                promotionEngine.reload();
+                return Response.builder()
+                                .status(200)
+                                .message("Promotion created successfully")
+                                .promotion(entityDtoMapper.mapPromotionToDto(promotion))
+                                .build();
+        }
+
+        @Override
+        public Response getAllPromotions() {
+                List<PromotionDto> promotionList = promotionRepo.findAll(Sort.by(Sort.Direction.DESC, "id")).stream()
+                                .map(entityDtoMapper::mapPromotionToDto)
+                                .toList();
+                return Response.builder()
+                                .status(200)
+                                .promotionList(promotionList)
+                                .build();
+        }
+
+        @Override
+        public Response deletePromotion(Long promotionId) {
+                Promotion promotion = promotionRepo.findById(promotionId)
+                                .orElseThrow(() -> new NotFoundException("Promotion Not Found"));
+                promotionRepo.delete(promotion);
+                promotionEngine.reload();
+                return Response.builder()
+                                .status(200)
+                                .message("Promotion was deleted successfully")
+                                .build();
+        }
+
+        private Promotion validPromotion(PromotionDto request) {
+                if (request.getName() == null || request.getName().isBlank() || request.getType() == null) {
+                        throw new InvalidCredentialsException("Name and type are required");
+                }
+                if (request.getProductId() != null && request.getCategoryId() != null) {
+                        throw new InvalidCredentialsException("A promotion applies to a product or a category, not both");
+                }
+                if (request.getStartsAt() != null && request.getEndsAt() != null
+                                && !request.getEndsAt().isAfter(request.getStartsAt())) {
+                        throw new InvalidCredentialsException("Promotion has to end after it starts");
+                }
+                if (request.getMinQuantity() != null && request.getMinQuantity() < 1) {
+                        throw new InvalidCredentialsException("Minimum quantity must be positive");
+                }
+                switch (request.getType()) {
+                        case PERCENT_OFF -> {
+                                BigDecimal percent = request.getPercentOff();
+                                if (percent == null || percent.signum() <= 0 || percent.compareTo(BigDecimal.valueOf(100)) > 0
+                                                || percent.scale() > 2) {
+                                        throw new InvalidCredentialsException("Percent off must be above 0 and at most 100");
+                                }
+                        }
+                        case AMOUNT_OFF -> {
+                                if (request.getAmountOff() == null || request.getAmountOff().signum() <= 0) {
+                                        throw new InvalidCredentialsException("Amount off must be positive");
+                                }
+                        }
+                        case BUY_X_GET_Y -> {
+                                if (request.getBuyQuantity() == null || request.getBuyQuantity() < 1
+                                                || request.getGetQuantity() == null || request.getGetQuantity() < 1) {
+                                        throw new InvalidCredentialsException("Buy and get quantities must be positive");
+                                }
+                        }
+                }
+                String code = request.getCode() == null || request.getCode().isBlank() ? null
+                                : PromotionEngine.normalize(request.getCode());
+                if (code != null && code.length() > MAX_CODE_LENGTH) {
+                        throw new InvalidCredentialsException("Coupon code is too long");
+                }
+
+                Promotion promotion = new Promotion();
+                promotion.setName(request.getName());
+                promotion.setType(request.getType());
+                promotion.setCode(code);
+                promotion.setProductId(request.getProductId());
+                promotion.setCategoryId(request.getCategoryId());
+                promotion.setPercentOff(request.getPercentOff());
+                promotion.setAmountOff(request.getAmountOff());
+                promotion.setBuyQuantity(request.getBuyQuantity());
+                promotion.setGetQuantity(request.getGetQuantity());
+                promotion.setMinQuantity(request.getMinQuantity());
+                promotion.setStartsAt(request.getStartsAt());
+                promotion.setEndsAt(request.getEndsAt());
+                return promotion;
+        }
+}
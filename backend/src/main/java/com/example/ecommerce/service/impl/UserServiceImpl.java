@@ -3,19 +3,22 @@
     
     @author teshan_kalhara
     @create 5/7/2025
-    @update 5/10/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.ecommerce.dto.LoginRequest;
+import com.example.ecommerce.dto.OrderItemDto;
 import com.example.ecommerce.dto.Response;
 import com.example.ecommerce.dto.UserDto;
 import com.example.ecommerce.entity.User;
@@ -23,9 +26,14 @@ import com.example.ecommerce.enums.UserRole;
 import com.example.ecommerce.exception.InvalidCredentialsException;
 import com.example.ecommerce.exception.NotFoundException;
 import com.example.ecommerce.mapper.EntityDtoMapper;
+import com.example.ecommerce.repository.OrderHistoryRow;
+import com.example.ecommerce.repository.OrderItemRepository;
 import com.example.ecommerce.repository.UserRepository;
+import com.example.ecommerce.security.AuthUser;
 import com.example.ecommerce.security.JwtUtils;
+import com.example.ecommerce.service.NdjsonStreamService;
 import com.example.ecommerce.service.interf.UserService;
+import com.example.ecommerce.util.CursorCodec;
 
 import java.util.*;
 
@@ -34,10 +42,16 @@ import java.util.*;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final String HISTORY_CURSOR = "ORDER_HISTORY";
+
     private final UserRepository userRepo;
+    private final OrderItemRepository orderItemRepo;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
     private final EntityDtoMapper entityDtoMapper;
+    private final NdjsonStreamService ndjsonStreamService;
 
     @Override
     public Response registerUser(UserDto registrationRequest) {
@@ -99,6 +113,11 @@ public class UserServiceImpl implements UserService {
                 .build();
     }
 
+    @Override
+    public StreamingResponseBody streamAllUsers() {
+        return ndjsonStreamService.stream(userRepo::streamAll, entityDtoMapper::mapUserToDtoBasic);
+    }
+
     @Override
     public User getLoginUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -109,13 +128,55 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public Response getUserInfoAndOrderHistory() {
-        User user = getLoginUser();
-        UserDto userDto = entityDtoMapper.mapUserToDtoPlusAddressAndOrderHistory(user);
+    public Response getUserInfo() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepo.findProfileByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User Not found"));
+        UserDto userDto = entityDtoMapper.mapUserToDtoPlusAddress(user);
 
         return Response.builder()
                 .status(200)
                 .user(userDto)
                 .build();
     }
+
+    // keyset paged on (createdAt, id) so a deep page costs the same as the first
+    @Override
+    public Response getOrderHistory(int size, String after) {
+        int pageSize = size <= 0 ? DEFAULT_HISTORY_PAGE_SIZE : Math.min(size, MAX_HISTORY_PAGE_SIZE);
+        Long userId = getLoginUserId();
+        // one extra row tells whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        List<OrderHistoryRow> rows;
+        if (after != null && !after.isBlank()) {
+            CursorCodec.Position position = CursorCodec.decode(HISTORY_CURSOR, after);
+            rows = orderItemRepo.findHistoryBefore(userId, position.sortKeyAsTime(), position.id(), limit);
+        } else {
+            rows = orderItemRepo.findHistory(userId, limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            OrderHistoryRow last = rows.get(pageSize - 1);
+            nextCursor = CursorCodec.encode(HISTORY_CURSOR, last.createdAt().toString(), last.id());
+        }
+        List<OrderItemDto> orderItemDtos = rows.stream().map(entityDtoMapper::mapOrderHistoryRowToDto).toList();
+
+        return Response.builder()
+                .status(200)
+                .orderItemList(orderItemDtos)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // the id is already on the authenticated principal, no need to load the user
+    @Override
+    public Long getLoginUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof AuthUser authUser) {
+            return authUser.getUser().getId();
+        }
+        return getLoginUser().getId();
+    }
 }
@@ -3,22 +3,46 @@
     
     @author teshan_kalhara
     @create 5/7/2025
-    @update 5/7/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.service.interf;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import com.example.ecommerce.dto.OrderRequest;
+import com.example.ecommerce.dto.OrderStatusUpdateRequest;
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.enums.CountMode;
+import com.example.ecommerce.enums.ExportFormat;
 import com.example.ecommerce.enums.OrderStatus;
-import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public interface OrderItemService {
     Response placeOrder(OrderRequest orderRequest);
 
+    Response placeOrderAsync(OrderRequest orderRequest);
+
+    Response checkoutCart(String paymentMethod, String couponCode);
+
+    Response getOrderIngestStatus(Long orderId);
+
     Response updateOrderItemStatus(Long orderItemId, String status);
 
+    Response bulkUpdateOrderItemStatus(OrderStatusUpdateRequest request);
+
     Response filterOrderItems(OrderStatus status, LocalDateTime startDate, LocalDateTime endDate, Long itemId,
-            Pageable pageable);
+            int page, int size, String after, CountMode countMode);
+
+    StreamingResponseBody streamOrderItems(OrderStatus status, LocalDateTime startDate, LocalDateTime endDate,
+            Long itemId);
+
+    StreamingResponseBody exportOrderItems(OrderStatus status, LocalDateTime startDate, LocalDateTime endDate,
+            Long itemId, ExportFormat format);
+
+    Response getSalesRollup(LocalDate startDate, LocalDate endDate, List<String> groupBy, OrderStatus status,
+            Long categoryId, Long productId);
+
+    Response rebuildSalesRollup(LocalDate startDate, LocalDate endDate);
 }
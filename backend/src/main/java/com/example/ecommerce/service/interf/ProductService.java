@@ -3,15 +3,19 @@
     
     @author teshan_kalhara
     @create 5/7/2025
-    @update 5/7/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.service.interf;
 
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.ecommerce.dto.BulkPriceUpdateRequest;
 import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.enums.ProductSort;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface ProductService {
 
@@ -20,13 +24,26 @@ public interface ProductService {
     Response updateProduct(Long productId, Long categoryId, MultipartFile image, String name, String description,
             BigDecimal price);
 
+    Response bulkUpdatePrices(BulkPriceUpdateRequest request);
+
+    Response updateStock(Long productId, int stock);
+
     Response deleteProduct(Long productId);
 
     Response getProductById(Long productId);
 
     Response getAllProducts();
 
-    Response getProductsByCategory(Long categoryId);
+    StreamingResponseBody streamAllProducts();
+
+    Response getProductsPage(String after, int size, ProductSort sort);
+
+    Response getProductsByCategory(Long categoryId, int page, int size);
+
+    Response searchProduct(String searchValue, int page, int size);
+
+    Response suggestProducts(String prefix, int limit, boolean fuzzy);
 
-    Response searchProduct(String searchValue);
+    Response filterProducts(List<Long> categoryIds, BigDecimal minPrice, BigDecimal maxPrice, Integer minRating,
+            ProductSort sort, int page, int size, int bins);
 }
@@ -0,0 +1,20 @@
+/*
+    Promotion service interface
+    
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service.interf;
+
+import com.example.ecommerce.dto.PromotionDto;
+import com.example.ecommerce.dto.Response;
+
+public interface PromotionService {
+
+    Response createPromotion(PromotionDto promotionRequest);
+
+    Response getAllPromotions();
+
+    Response deletePromotion(Long promotionId);
+}
@@ -3,10 +3,12 @@
     
     @author teshan_kalhara
     @create 5/7/2025
-    @update 5/7/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.service.interf;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
 import com.example.ecommerce.dto.LoginRequest;
 import com.example.ecommerce.dto.Response;
 import com.example.ecommerce.dto.UserDto;
@@ -19,7 +21,13 @@ public interface UserService {
 
     Response getAllUsers();
 
+    StreamingResponseBody streamAllUsers();
+
     User getLoginUser();
 
-    Response getUserInfoAndOrderHistory();
+    Long getLoginUserId();
+
+    Response getUserInfo();
+
+    Response getOrderHistory(int size, String after);
 }
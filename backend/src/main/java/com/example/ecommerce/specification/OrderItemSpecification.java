@@ -3,14 +3,16 @@
     
     @author teshan_kalhara
     @create 5/5/2025
-    @update 5/5/2025
+    @update 10/18/2026
 */
 package com.example.ecommerce.specification;
 
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
 import com.example.ecommerce.entity.OrderItem;
 import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.id.SnowflakeIds;
 
 import java.time.LocalDateTime;
 
@@ -22,16 +24,24 @@ public class OrderItemSpecification {
     }
 
     // Specification to filter order items by data range
+    // ids grow with created_at, so the same range on the primary key lets the database seek instead of
+    // scanning; rows from before snowflake ids keep their small ids and are matched by created_at alone
     public static Specification<OrderItem> createdBetween(LocalDateTime startDate, LocalDateTime endDate) {
         return ((root, query, criteriaBuilder) -> {
+            if (startDate == null && endDate == null) {
+                return null;
+            }
+            long minId = startDate != null ? SnowflakeIds.minIdAt(startDate) : 0;
+            long maxId = endDate != null ? SnowflakeIds.maxIdAt(endDate) : Long.MAX_VALUE;
+            Predicate idRange = criteriaBuilder.or(
+                    criteriaBuilder.lessThan(root.get("id"), SnowflakeIds.LEGACY_ID_LIMIT),
+                    criteriaBuilder.between(root.get("id"), minId, maxId));
             if (startDate != null && endDate != null) {
-                return criteriaBuilder.between(root.get("createdAt"), startDate, endDate);
+                return criteriaBuilder.and(idRange, criteriaBuilder.between(root.get("createdAt"), startDate, endDate));
             } else if (startDate != null) {
-                return criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), startDate);
-            } else if (endDate != null) {
-                return criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), endDate);
+                return criteriaBuilder.and(idRange, criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), startDate));
             } else {
-                return null;
+                return criteriaBuilder.and(idRange, criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), endDate));
             }
         });
     }
@@ -41,4 +51,13 @@ public class OrderItemSpecification {
         return ((root, query, criteriaBuilder) -> itemId != null ? criteriaBuilder.equal(root.get("id"), itemId)
                 : null);
     }
-}
\ No newline at end of file
+
+    // keyset position for newest first paging on (createdAt, id)
+    public static Specification<OrderItem> before(LocalDateTime createdAt, Long id) {
+        return ((root, query, criteriaBuilder) -> createdAt == null ? null
+                : criteriaBuilder.or(
+                        criteriaBuilder.lessThan(root.get("createdAt"), createdAt),
+                        criteriaBuilder.and(criteriaBuilder.equal(root.get("createdAt"), createdAt),
+                                criteriaBuilder.lessThan(root.get("id"), id))));
+    }
+}
@@ -0,0 +1,39 @@
+/*
+    Conditional GET helper.
+    Answers If-None-Match from a precomputed ETag, so a 304 is sent before the body is loaded.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    // no-cache lets clients keep the body but makes them revalidate it every time
+    public static <T> ResponseEntity<T> respond(WebRequest request, String eTag, Supplier<T> body) {
+        if (eTag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
+    }
+}
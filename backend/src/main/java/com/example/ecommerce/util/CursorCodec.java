@@ -0,0 +1,64 @@
+/*
+    Cursor codec for keyset pagination.
+    Cursors are opaque to clients: base64url("<tag>|<sort key>|<id>")
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.example.ecommerce.exception.InvalidCredentialsException;
+
+public final class CursorCodec {
+
+    private CursorCodec() {
+    }
+
+    public static String encode(String tag, String sortKey, Long id) {
+        String raw = tag + "|" + (sortKey == null ? "" : sortKey) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // decode a cursor created with the same tag, the sort key may itself contain '|'
+    public static Position decode(String tag, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || first == last || !raw.substring(0, first).equals(tag)) {
+                throw new InvalidCredentialsException("Invalid cursor");
+            }
+            return new Position(raw.substring(first + 1, last), Long.parseLong(raw.substring(last + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCredentialsException("Invalid cursor");
+        }
+    }
+
+    public record Position(String sortKey, Long id) {
+
+        // for cursors whose sort key is a price
+        public BigDecimal sortKeyAsDecimal() {
+            try {
+                return new BigDecimal(sortKey);
+            } catch (NumberFormatException e) {
+                throw new InvalidCredentialsException("Invalid cursor");
+            }
+        }
+
+        // for cursors whose sort key is a LocalDateTime
+        public LocalDateTime sortKeyAsTime() {
+            try {
+                return LocalDateTime.parse(sortKey);
+            } catch (DateTimeParseException e) {
+                throw new InvalidCredentialsException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/*
+    Table writer, the row sink shared by the CSV and XLSX exports.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.util;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface TableWriter {
+
+    // numbers are written as numbers, anything else as text, null as an empty cell
+    void writeRow(List<?> values) throws IOException;
+
+    void flush() throws IOException;
+
+    // completes the document, the underlying stream is left open
+    void finish() throws IOException;
+}
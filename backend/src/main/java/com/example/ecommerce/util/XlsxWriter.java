@@ -0,0 +1,175 @@
+/*
+    XLSX writer.
+    Streams a minimal SpreadsheetML workbook straight into a zip: rows go into the open sheet entry as
+    they come, with inline strings so no shared string table has to be held in memory. A sheet that
+    reaches the Excel row limit is closed and the rest continues on a new sheet with the same header.
+    The workbook parts that list the sheets are written last, once the sheet count is known.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public final class XlsxWriter implements TableWriter {
+
+    static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String DOC_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final List<?> header;
+    private final int rowsPerSheet;
+    private int sheets;
+    private int rowsInSheet;
+
+    public XlsxWriter(OutputStream outputStream, List<?> header) {
+        this(outputStream, header, MAX_ROWS_PER_SHEET);
+    }
+
+    XlsxWriter(OutputStream outputStream, List<?> header, int rowsPerSheet) {
+        // finish() closes the zip, the response stream itself stays open
+        this.zip = new ZipOutputStream(new FilterOutputStream(outputStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+        this.writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        this.header = header;
+        this.rowsPerSheet = rowsPerSheet;
+    }
+
+    @Override
+    public void writeRow(List<?> values) throws IOException {
+        if (sheets == 0 || rowsInSheet == rowsPerSheet) {
+            startSheet();
+        }
+        appendRow(values);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (sheets == 0) {
+            startSheet();
+        }
+        endSheet();
+
+        StringBuilder contentTypes = new StringBuilder(XML_HEADER)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        StringBuilder workbook = new StringBuilder(XML_HEADER)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(DOC_REL).append("\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder(XML_HEADER)
+                .append("<Relationships xmlns=\"").append(REL_NS).append("\">");
+        for (int sheet = 1; sheet <= sheets; sheet++) {
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(sheet)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbook.append("<sheet name=\"Sheet").append(sheet).append("\" sheetId=\"").append(sheet)
+                    .append("\" r:id=\"rId").append(sheet).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(sheet).append("\" Type=\"").append(DOC_REL)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(sheet).append(".xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("</Relationships>");
+
+        part("[Content_Types].xml", contentTypes.toString());
+        part("_rels/.rels", XML_HEADER + "<Relationships xmlns=\"" + REL_NS + "\"><Relationship Id=\"rId1\" Type=\""
+                + DOC_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>");
+        part("xl/workbook.xml", workbook.toString());
+        part("xl/_rels/workbook.xml.rels", workbookRels.toString());
+        zip.close();
+    }
+
+    private void startSheet() throws IOException {
+        if (sheets > 0) {
+            endSheet();
+        }
+        sheets++;
+        rowsInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        writer.write(XML_HEADER);
+        writer.write("<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>");
+        if (header != null) {
+            appendRow(header);
+        }
+    }
+
+    private void endSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private void appendRow(List<?> values) throws IOException {
+        writer.write("<row>");
+        for (Object value : values) {
+            if (value == null) {
+                writer.write("<c/>");
+            } else if (value instanceof Number number) {
+                writer.write("<c><v>");
+                writer.write(number instanceof BigDecimal decimal ? decimal.toPlainString() : number.toString());
+                writer.write("</v></c>");
+            } else {
+                writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writeEscaped(value.toString());
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+        rowsInSheet++;
+    }
+
+    // xml escaping, characters xml 1.0 cannot carry are dropped
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '&' -> writer.write("&amp;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private void part(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+    Cart service test.
+    Carts are priced through the real price book and promotion engine, only the stored carts, the
+    promotions table and the stock ledger are mocked. Covers the discounts a shown cart carries:
+    the best promotion per line, coupons only with their code, ended promotions left out, and
+    a repriced line discounted at its new price.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.cart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.ecommerce.dto.CartDto;
+import com.example.ecommerce.dto.CartLineDto;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.Promotion;
+import com.example.ecommerce.enums.PromotionType;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.inventory.InventoryService;
+import com.example.ecommerce.promotion.PromotionEngine;
+import com.example.ecommerce.repository.PromotionRepository;
+
+class CartServiceTest {
+
+    private static final long USER = 7L;
+
+    private final PriceBook priceBook = new PriceBook();
+    private final PromotionRepository promotionRepo = mock(PromotionRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final PromotionEngine promotionEngine = new PromotionEngine(promotionRepo);
+    private final CartService cartService = new CartService(new CartStore(mock(JdbcTemplate.class)), priceBook,
+            inventoryService, promotionEngine);
+
+    @BeforeEach
+    void setUp() {
+        priceBook.rebuild(List.of(), List.of(product(1L, 5L, "10.00"), product(2L, 6L, "4.00")));
+        Promotion couponOnly = promotion(3L, PromotionType.PERCENT_OFF, 2L, null);
+        couponOnly.setPercentOff(new BigDecimal("50"));
+        couponOnly.setCode("SPRING10");
+        Promotion ended = promotion(4L, PromotionType.PERCENT_OFF, null, null);
+        ended.setPercentOff(new BigDecimal("90"));
+        ended.setEndsAt(LocalDateTime.now().minusMinutes(1));
+        Promotion onProduct = promotion(1L, PromotionType.PERCENT_OFF, 1L, null);
+        onProduct.setPercentOff(new BigDecimal("20"));
+        Promotion onCategory = promotion(2L, PromotionType.AMOUNT_OFF, null, 6L);
+        onCategory.setAmountOff(new BigDecimal("1.00"));
+        // compiled before it ended, the engine still has to leave it out
+        when(promotionRepo.findNotEnded(any())).thenReturn(List.of(onProduct, onCategory, couponOnly, ended));
+        promotionEngine.reload();
+        when(inventoryService.available(anyLong())).thenReturn(100L);
+
+        cartService.add(USER, 1L, 2);
+        cartService.add(USER, 2L, 3);
+    }
+
+    @Test
+    void shownCartCarriesTheBestPromotionPerLine() {
+        CartDto cart = cartService.view(USER, null);
+
+        // 2 at 10.00 less 20%, 3 at 4.00 less 1.00 each
+        assertLine(cart.getItems().get(0), 1L, "4.00", "16.00");
+        assertLine(cart.getItems().get(1), 2L, "3.00", "9.00");
+        assertEquals(new BigDecimal("7.00"), cart.getTotalDiscount());
+        assertEquals(new BigDecimal("25.00"), cart.getTotalPrice());
+    }
+
+    @Test
+    void couponPromotionOnlyAppliesWithItsCode() {
+        CartDto cart = cartService.view(USER, " spring10 ");
+
+        // 50% off beats 1.00 off each, it replaces it rather than adding to it
+        assertLine(cart.getItems().get(1), 2L, "6.00", "6.00");
+        assertEquals(new BigDecimal("10.00"), cart.getTotalDiscount());
+        assertEquals(new BigDecimal("22.00"), cart.getTotalPrice());
+        assertThrows(InvalidCredentialsException.class, () -> cartService.view(USER, "AUTUMN10"));
+    }
+
+    @Test
+    void repricedLineIsDiscountedAtItsNewPrice() {
+        priceBook.onProductSaved(product(1L, 5L, "15.00"));
+
+        CartDto cart = cartService.view(USER, null);
+
+        assertEquals(new BigDecimal("15.00"), cart.getItems().get(0).getUnitPrice());
+        assertLine(cart.getItems().get(0), 1L, "6.00", "24.00");
+        assertEquals(new BigDecimal("33.00"), cart.getTotalPrice());
+    }
+
+    private static void assertLine(CartLineDto line, Long productId, String discount, String lineTotal) {
+        assertEquals(productId, line.getProductId());
+        assertEquals(new BigDecimal(discount), line.getDiscount());
+        assertEquals(new BigDecimal(lineTotal), line.getLineTotal());
+    }
+
+    private static Product product(Long id, Long categoryId, String price) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Product product = new Product();
+        product.setId(id);
+        product.setName("p" + id);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private static Promotion promotion(Long id, PromotionType type, Long productId, Long categoryId) {
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setType(type);
+        promotion.setProductId(productId);
+        promotion.setCategoryId(categoryId);
+        return promotion;
+    }
+}
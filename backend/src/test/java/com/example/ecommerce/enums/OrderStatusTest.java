@@ -0,0 +1,50 @@
+/*
+    Order status test.
+    The allowed moves of the order item state machine, and sourcesOf agreeing with them.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.enums;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class OrderStatusTest {
+
+    @Test
+    void onlyTheDocumentedMovesAreAllowed() {
+        assertEquals(EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.CANCELLED), OrderStatus.PENDING.next());
+        assertEquals(EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED), OrderStatus.CONFIRMED.next());
+        assertEquals(EnumSet.of(OrderStatus.DELIVERED, OrderStatus.RETURNED), OrderStatus.SHIPPED.next());
+        assertEquals(EnumSet.of(OrderStatus.RETURNED), OrderStatus.DELIVERED.next());
+        assertTrue(OrderStatus.CANCELLED.next().isEmpty());
+        assertTrue(OrderStatus.RETURNED.next().isEmpty());
+    }
+
+    @Test
+    void noStatusMovesToItself() {
+        for (OrderStatus status : OrderStatus.values()) {
+            assertEquals(false, status.canMoveTo(status), status.name());
+        }
+    }
+
+    @Test
+    void sourcesAreTheInverseOfNext() {
+        for (OrderStatus target : OrderStatus.values()) {
+            Set<OrderStatus> expected = EnumSet.noneOf(OrderStatus.class);
+            for (OrderStatus from : OrderStatus.values()) {
+                if (from.canMoveTo(target)) {
+                    expected.add(from);
+                }
+            }
+            assertEquals(expected, OrderStatus.sourcesOf(target), target.name());
+        }
+    }
+}
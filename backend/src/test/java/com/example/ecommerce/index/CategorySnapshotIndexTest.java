@@ -0,0 +1,88 @@
+/*
+    Category snapshot index test.
+    Random batches of product saves, including moves between categories, price changes and the same
+    product saved twice in one batch, are applied once as a batch and once save by save. Both indexes
+    must end up with the same snapshot as a fresh rebuild over the final catalog.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.index.CategorySnapshot.CategoryView;
+
+class CategorySnapshotIndexTest {
+
+    private static final int CATEGORIES = 8;
+
+    @Test
+    void batchSaveMatchesSingleSavesAndRebuild() {
+        Random random = new Random(7);
+        List<Category> categories = new ArrayList<>();
+        for (long c = 1; c <= CATEGORIES; c++) {
+            Category category = new Category();
+            category.setId(c);
+            category.setName("c" + c);
+            categories.add(category);
+        }
+        Map<Long, Product> catalog = new LinkedHashMap<>();
+        for (long id = 1; id <= 500; id++) {
+            catalog.put(id, product(id, categories, random));
+        }
+        CategorySnapshotIndex batched = new CategorySnapshotIndex();
+        CategorySnapshotIndex single = new CategorySnapshotIndex();
+        batched.rebuild(categories, new ArrayList<>(catalog.values()));
+        single.rebuild(categories, new ArrayList<>(catalog.values()));
+
+        for (int round = 0; round < 50; round++) {
+            List<Product> batch = new ArrayList<>();
+            for (int i = random.nextInt(40); i >= 0; i--) {
+                // new ids too, and a product may come twice
+                long id = 1 + random.nextInt(catalog.size() + 20);
+                Product product = product(id, categories, random);
+                catalog.put(id, product);
+                batch.add(product);
+            }
+            batched.onProductsSaved(batch);
+            batch.forEach(single::onProductSaved);
+        }
+
+        CategorySnapshotIndex rebuilt = new CategorySnapshotIndex();
+        rebuilt.rebuild(categories, new ArrayList<>(catalog.values()));
+        assertSameViews(rebuilt.current(), batched.current());
+        assertSameViews(rebuilt.current(), single.current());
+    }
+
+    private static Product product(long id, List<Category> categories, Random random) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(5_000), 2));
+        product.setCategory(random.nextInt(10) == 0 ? null : categories.get(random.nextInt(categories.size())));
+        return product;
+    }
+
+    private static void assertSameViews(CategorySnapshot expected, CategorySnapshot actual) {
+        assertEquals(expected.all().size(), actual.all().size());
+        for (CategoryView view : expected.all()) {
+            CategoryView other = actual.get(view.getId());
+            assertArrayEquals(view.productIdArray(), other.productIdArray(), "category " + view.getId());
+            assertEquals(view.getMinPrice(), other.getMinPrice(), "category " + view.getId());
+            assertEquals(view.getMaxPrice(), other.getMaxPrice(), "category " + view.getId());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+    Product facet index test.
+    Random catalogs are indexed, edited through saves and deletes, re-rated, and then queried with
+    random filters, sorts and pages. Every answer is compared with a plain scan over the same
+    products: page, total, category counts, rating counts and the histogram total.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.enums.ProductSort;
+import com.example.ecommerce.index.ProductFacetIndex.FacetQuery;
+import com.example.ecommerce.index.ProductFacetIndex.FacetResult;
+import com.example.ecommerce.repository.ReviewRepository;
+
+class ProductFacetIndexTest {
+
+    private static final int CATEGORIES = 12;
+    private static final String[] WORDS = { "Apple", "apple", "Äpfel", "banana", "Cherry", "date", "ébène", "fig",
+            "grape", "kiwi", "lemon", "mango", "zz", "" };
+
+    private final ReviewRepository reviewRepo = mock(ReviewRepository.class);
+    private final ProductFacetIndex index = new ProductFacetIndex(reviewRepo);
+    private final Map<Long, Product> catalog = new LinkedHashMap<>();
+    private final Map<Long, Double> averages = new HashMap<>();
+    private final List<Category> categories = new ArrayList<>();
+    private long nextId = 1_000;
+
+    @Test
+    void matchesScanAfterRebuild() {
+        Random random = new Random(1);
+        load(random, 2_000);
+        compare(random, 300);
+    }
+
+    @Test
+    void matchesScanAfterSavesAndDeletes() {
+        Random random = new Random(2);
+        load(random, 2_000);
+        for (int i = 0; i < 1_500; i++) {
+            List<Long> ids = new ArrayList<>(catalog.keySet());
+            int action = random.nextInt(3);
+            if (action == 0) {
+                Long id = ids.get(random.nextInt(ids.size()));
+                catalog.remove(id);
+                index.onProductDeleted(id);
+            } else {
+                Product product = action == 1 ? catalog.get(ids.get(random.nextInt(ids.size())))
+                        : newProduct(random);
+                randomize(product, random);
+                catalog.put(product.getId(), product);
+                index.onProductSaved(product);
+            }
+        }
+        compare(random, 300);
+    }
+
+    @Test
+    void ratingRefreshOnlyMovesChangedProducts() {
+        Random random = new Random(3);
+        load(random, 2_000);
+        List<Long> ids = new ArrayList<>(catalog.keySet());
+        for (int i = 0; i < 400; i++) {
+            Long id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(4) == 0) {
+                averages.remove(id);
+            } else {
+                averages.put(id, 1 + random.nextDouble() * 9);
+            }
+        }
+        stubRatings();
+        index.refreshRatings();
+        compare(random, 300);
+    }
+
+    private void load(Random random, int products) {
+        for (long c = 1; c <= CATEGORIES; c++) {
+            Category category = new Category();
+            category.setId(c);
+            category.setName("c" + c);
+            categories.add(category);
+        }
+        for (int i = 0; i < products; i++) {
+            Product product = newProduct(random);
+            randomize(product, random);
+            catalog.put(product.getId(), product);
+            if (random.nextInt(3) > 0) {
+                averages.put(product.getId(), 1 + random.nextDouble() * 9);
+            }
+        }
+        stubRatings();
+        index.rebuild(categories, new ArrayList<>(catalog.values()));
+    }
+
+    private void stubRatings() {
+        List<Object[]> rows = new ArrayList<>();
+        averages.forEach((id, average) -> rows.add(new Object[] { id, average }));
+        when(reviewRepo.averageRatingByProduct()).thenReturn(rows);
+    }
+
+    // ids only grow, like snowflake ids
+    private Product newProduct(Random random) {
+        Product product = new Product();
+        product.setId(nextId += 1 + random.nextInt(5));
+        return product;
+    }
+
+    private void randomize(Product product, Random random) {
+        product.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+        // few distinct prices so buckets and price sorts see plenty of ties
+        product.setPrice(random.nextInt(20) == 0 ? null : BigDecimal.valueOf(random.nextInt(400) * 25L, 2));
+        product.setCategory(random.nextInt(15) == 0 ? null : categories.get(random.nextInt(CATEGORIES)));
+    }
+
+    private void compare(Random random, int queries) {
+        List<Item> items = items();
+        for (int q = 0; q < queries; q++) {
+            FacetQuery query = randomQuery(random);
+            FacetResult actual = index.query(query);
+            String label = query.toString();
+
+            List<Item> matches = items.stream()
+                    .filter(item -> inCategories(item, query) && inPriceRange(item, query)
+                            && item.rating >= minRating(query))
+                    .sorted(order(query.sort())).toList();
+            assertEquals(matches.size(), actual.total(), label);
+            List<Long> page = matches.stream().skip(query.offset()).limit(query.limit()).map(Item::id).toList();
+            assertEquals(page, actual.productIds(), label);
+
+            assertEquals(categoryCounts(items, query), actual.categoryCounts(), label);
+            int[] ratingCounts = new int[ProductFacetIndex.MAX_RATING + 1];
+            items.stream().filter(item -> inCategories(item, query) && inPriceRange(item, query)).forEach(item -> {
+                for (int r = 0; r <= item.rating; r++) {
+                    ratingCounts[r]++;
+                }
+            });
+            assertArrayEquals(ratingCounts, actual.ratingCounts(), label);
+
+            if (query.histogramBins() > 0) {
+                long anyPrice = items.stream()
+                        .filter(item -> inCategories(item, query) && item.rating >= minRating(query)).count();
+                assertEquals(anyPrice, actual.priceHistogram().stream().mapToLong(ProductFacetIndex.PriceBin::count)
+                        .sum(), label);
+            }
+        }
+    }
+
+    private FacetQuery randomQuery(Random random) {
+        List<Long> categoryIds = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            // 0 is not a category, it has to be ignored
+            categoryIds.add((long) random.nextInt(CATEGORIES + 1));
+        }
+        BigDecimal min = random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(11_000), 2);
+        BigDecimal max = random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(11_000), 2);
+        Integer minRating = random.nextInt(3) == 0 ? null : random.nextInt(ProductFacetIndex.MAX_RATING + 2);
+        ProductSort sort = ProductSort.values()[random.nextInt(ProductSort.values().length)];
+        int limit = 1 + random.nextInt(30);
+        int offset = random.nextInt(4) == 0 ? random.nextInt(2_000) : random.nextInt(3) * limit;
+        return new FacetQuery(categoryIds, min, max, minRating, sort, offset, limit, random.nextInt(3) * 7);
+    }
+
+    private List<Item> items() {
+        return catalog.values().stream().map(product -> new Item(product.getId(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                ProductFacetIndex.toCents(product.getPrice()), TextTokenizer.normalize(product.getName()),
+                averages.containsKey(product.getId()) ? ProductFacetIndex.ratingBucket(averages.get(product.getId()))
+                        : 0)).toList();
+    }
+
+    // largest first, ties by category id
+    private static Map<Long, Integer> categoryCounts(List<Item> items, FacetQuery query) {
+        Map<Long, Integer> counts = new HashMap<>();
+        items.stream().filter(item -> item.categoryId != null && inPriceRange(item, query) && item.rating >= minRating(query))
+                .forEach(item -> counts.merge(item.categoryId, 1, Integer::sum));
+        Map<Long, Integer> ordered = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> ordered.put(entry.getKey(), entry.getValue()));
+        return ordered;
+    }
+
+    private static boolean inCategories(Item item, FacetQuery query) {
+        return query.categoryIds().isEmpty() || query.categoryIds().contains(item.categoryId);
+    }
+
+    private static boolean inPriceRange(Item item, FacetQuery query) {
+        return (query.minPrice() == null || item.cents >= ProductFacetIndex.toCents(query.minPrice()))
+                && (query.maxPrice() == null || item.cents <= ProductFacetIndex.toCents(query.maxPrice()));
+    }
+
+    private static int minRating(FacetQuery query) {
+        return query.minRating() == null ? 0 : query.minRating();
+    }
+
+    // the same orders as the keyset listing
+    private static Comparator<Item> order(ProductSort sort) {
+        return switch (sort) {
+            case NEWEST -> Comparator.comparingLong(Item::id).reversed();
+            case PRICE_ASC -> Comparator.comparingLong(Item::cents).thenComparingLong(Item::id);
+            case PRICE_DESC -> Comparator.comparingLong(Item::cents).thenComparingLong(Item::id).reversed();
+            case NAME_ASC -> Comparator.comparing(Item::name).thenComparingLong(Item::id);
+        };
+    }
+
+    private record Item(long id, Long categoryId, long cents, String name, int rating) {
+    }
+}
@@ -0,0 +1,160 @@
+/*
+    Stock ledger stress test.
+    Many threads hammer one hot product (and a mix of multi-line orders) until its stock runs out;
+    every unit has to be handed out exactly once and no order may be half held.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StockLedgerStressTest {
+
+    private static final int THREADS = 16;
+    private static final long HOT_STOCK = 200_000;
+    private static final long FAR_FUTURE = Long.MAX_VALUE;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    private final AtomicLong itemIds = new AtomicLong();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void hotProductNeverOversells() throws Exception {
+        StockLedger ledger = new StockLedger();
+        ledger.setStock(1L, HOT_STOCK);
+        AtomicLong held = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+
+        run(() -> {
+            // keep ordering well past the point where stock runs out
+            while (rejected.get() < 10_000) {
+                List<StockLine> order = List.of(new StockLine(itemIds.incrementAndGet(), 1L, 1));
+                if (ledger.reserve(order, FAR_FUTURE) == null) {
+                    held.incrementAndGet();
+                } else {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(HOT_STOCK, held.get());
+        assertEquals(0, ledger.available(1L));
+        assertEquals(HOT_STOCK, ledger.holdCount());
+    }
+
+    @Test
+    void multiLineOrdersAreHeldWhole() throws Exception {
+        StockLedger ledger = new StockLedger();
+        ledger.setStock(1L, 30_000);
+        ledger.setStock(2L, 20_000);
+        ledger.track(3L, 0); // sold out, every order naming it must fail whole
+        AtomicLong pairs = new AtomicLong();
+        AtomicLong doubles = new AtomicLong();
+        AtomicLong soldOut = new AtomicLong();
+        AtomicLong attempts = new AtomicLong();
+
+        run(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (attempts.incrementAndGet() < 200_000) {
+                int kind = random.nextInt(3);
+                List<StockLine> order = switch (kind) {
+                    case 0 -> List.of(new StockLine(itemIds.incrementAndGet(), 1L, 1),
+                            new StockLine(itemIds.incrementAndGet(), 2L, 1));
+                    case 1 -> List.of(new StockLine(itemIds.incrementAndGet(), 1L, 1),
+                            new StockLine(itemIds.incrementAndGet(), 1L, 1));
+                    default -> List.of(new StockLine(itemIds.incrementAndGet(), 2L, 1),
+                            new StockLine(itemIds.incrementAndGet(), 3L, 1));
+                };
+                if (ledger.reserve(order, FAR_FUTURE) == null) {
+                    (kind == 0 ? pairs : kind == 1 ? doubles : soldOut).incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, soldOut.get(), "held an order for a sold out product");
+        assertEquals(30_000 - pairs.get() - 2 * doubles.get(), ledger.available(1L));
+        assertEquals(20_000 - pairs.get(), ledger.available(2L));
+        assertEquals(0, ledger.available(3L));
+        assertTrue(ledger.available(1L) >= 0 && ledger.available(2L) >= 0);
+        assertEquals(2 * (pairs.get() + doubles.get()), ledger.holdCount());
+    }
+
+    @Test
+    void commitsReleasesAndExpiryBalance() throws Exception {
+        StockLedger ledger = new StockLedger();
+        ledger.setStock(1L, HOT_STOCK);
+        AtomicLong sold = new AtomicLong();
+        AtomicLong done = new AtomicLong();
+
+        Thread sweeper = new Thread(() -> {
+            while (done.get() < THREADS) {
+                ledger.expire(System.currentTimeMillis());
+            }
+        });
+        sweeper.start();
+        run(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                long itemId = itemIds.incrementAndGet();
+                // a third of the holds are already expired and race the sweeper
+                long expiresAt = random.nextInt(3) == 0 ? 0 : FAR_FUTURE;
+                if (ledger.reserve(List.of(new StockLine(itemId, 1L, 2)), expiresAt) != null) {
+                    continue;
+                }
+                if (random.nextBoolean() && ledger.commit(itemId)) {
+                    sold.addAndGet(2);
+                } else {
+                    ledger.release(itemId);
+                }
+            }
+            done.incrementAndGet();
+        });
+        sweeper.join();
+
+        assertEquals(0, ledger.holdCount());
+        assertEquals(HOT_STOCK - sold.get(), ledger.onHand(1L));
+        assertEquals(HOT_STOCK - sold.get(), ledger.available(1L));
+        assertEquals(HOT_STOCK - sold.get(), ledger.drainDirty().get(1L));
+    }
+
+    private void run(Runnable task) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            pool.execute(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    task.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        ready.await();
+        go.countDown();
+        assertTrue(finished.await(2, TimeUnit.MINUTES), "stress run did not finish");
+    }
+}
@@ -0,0 +1,169 @@
+/*
+    Payment load benchmark, run with mvn test -Pbenchmark; the bulkhead itself is covered by
+    PaymentProcessorTest in the unit suite.
+    Checkout threads start payments while the gateway goes from fast to far slower than the call
+    timeout. Starting a payment only waits on its insert, so checkout throughput has to hold through
+    the spike, the bulkhead has to cap the calls in flight, and every payment has to end authorized or
+    failed. Statements take a simulated round trip on a pool of 10 connections, like the Hikari pool,
+    so outcome writes competing with checkouts show up as lost throughput.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.payment.PaymentGateway.AuthorizationResult;
+
+class PaymentLoadBenchmark {
+
+    private static final int CHECKOUT_THREADS = 32;
+    private static final int POOL_SIZE = 10;
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final int MAX_CONCURRENT = 100;
+    private static final Duration TIMEOUT = Duration.ofMillis(300);
+    private static final Duration BULKHEAD_WAIT = Duration.ofMillis(500);
+    private static final int MAX_PENDING = 5000;
+    private static final long PHASE_MILLIS = 1500;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(CHECKOUT_THREADS);
+    private final Map<Long, String> statuses = new ConcurrentHashMap<>();
+    private final AtomicLong gatewayLatency = new AtomicLong(20);
+    private final AtomicInteger gatewayInFlight = new AtomicInteger();
+    private final AtomicInteger gatewayPeak = new AtomicInteger();
+    private final AtomicLong orderIds = new AtomicLong();
+    private PaymentProcessor processor;
+    private PaymentService payments;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        payments.stop();
+        processor.stop();
+    }
+
+    @Test
+    void checkoutThroughputHoldsThroughGatewaySpike() throws Exception {
+        PaymentGateway gateway = request -> {
+            gatewayPeak.accumulateAndGet(gatewayInFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(gatewayLatency.get());
+                return AuthorizationResult.approved("ref-" + request.paymentId());
+            } finally {
+                gatewayInFlight.decrementAndGet();
+            }
+        };
+        processor = new PaymentProcessor(gateway);
+        ReflectionTestUtils.setField(processor, "timeout", TIMEOUT);
+        ReflectionTestUtils.setField(processor, "maxConcurrent", MAX_CONCURRENT);
+        ReflectionTestUtils.setField(processor, "bulkheadWait", BULKHEAD_WAIT);
+        ReflectionTestUtils.setField(processor, "maxAttempts", 2);
+        ReflectionTestUtils.setField(processor, "retryBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(processor, "maxPending", MAX_PENDING);
+        processor.start();
+        payments = new PaymentService(new PooledJdbc(), processor);
+        ReflectionTestUtils.setField(payments, "flushInterval", Duration.ofMillis(200));
+        payments.start();
+
+        long normal = checkoutsPerSecond(payments);
+        // ten times the call timeout, every call in this phase times out
+        gatewayLatency.set(3000);
+        long spike = checkoutsPerSecond(payments);
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (processor.pending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        payments.flush();
+        long authorized = statuses.values().stream().filter(PaymentStatus.AUTHORIZED.name()::equals).count();
+        long failed = statuses.values().stream().filter(PaymentStatus.FAILED.name()::equals).count();
+
+        System.out.printf("gateway latency | checkouts/s, %d threads, %d connections%n", CHECKOUT_THREADS, POOL_SIZE);
+        System.out.printf("%12d ms | %d%n%12d ms | %d%n", 20, normal, 3000, spike);
+        System.out.printf("%d authorized, %d failed, peak %d gateway calls in flight%n", authorized, failed,
+                gatewayPeak.get());
+
+        assertEquals(0, processor.pending(), "payments still processing");
+        assertEquals(statuses.size(), authorized + failed, "payments left pending");
+        assertTrue(authorized > 0 && failed > 0);
+        assertTrue(gatewayPeak.get() <= MAX_CONCURRENT, "bulkhead let " + gatewayPeak.get() + " calls through");
+        assertTrue(spike >= normal * 0.7, "checkouts fell from " + normal + "/s to " + spike + "/s in the spike");
+    }
+
+    private long checkoutsPerSecond(PaymentService payments) throws InterruptedException {
+        AtomicLong started = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(CHECKOUT_THREADS);
+        long end = System.currentTimeMillis() + PHASE_MILLIS;
+        for (int i = 0; i < CHECKOUT_THREADS; i++) {
+            pool.execute(() -> {
+                try {
+                    while (System.currentTimeMillis() < end) {
+                        payments.startPayment(orderIds.incrementAndGet(), BigDecimal.TEN, "CARD");
+                        started.incrementAndGet();
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        assertTrue(finished.await(1, TimeUnit.MINUTES), "checkouts did not finish");
+        return started.get() * 1000 / PHASE_MILLIS;
+    }
+
+    // only the statements payments issue: the insert, the batched outcome updates and the pending lookup
+    private class PooledJdbc extends JdbcTemplate {
+
+        private final Semaphore connections = new Semaphore(POOL_SIZE);
+
+        @Override
+        public int update(String sql, Object... args) {
+            roundTrip(() -> statuses.put((Long) args[0], (String) args[3]));
+            return 1;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            roundTrip(() -> batchArgs.forEach(args -> statuses.put((Long) args[5], (String) args[0])));
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            return List.of();
+        }
+
+        private void roundTrip(Runnable statement) {
+            connections.acquireUninterruptibly();
+            try {
+                LockSupport.parkNanos(ROUND_TRIP_NANOS);
+                statement.run();
+            } finally {
+                connections.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+    Payment processor test.
+    The gateway is a fake that holds every call on a latch, so the calls in flight can be counted
+    while the rest wait on the bulkhead. Covers the bulkhead cap, timed out calls failing after
+    their retries, and the cap on payments being processed.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.payment.PaymentGateway.AuthorizationRequest;
+import com.example.ecommerce.payment.PaymentGateway.AuthorizationResult;
+import com.example.ecommerce.payment.PaymentProcessor.Outcome;
+
+class PaymentProcessorTest {
+
+    private static final int MAX_CONCURRENT = 5;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final CountDownLatch entered = new CountDownLatch(MAX_CONCURRENT);
+    private final CountDownLatch open = new CountDownLatch(1);
+    private final List<Outcome> outcomes = new CopyOnWriteArrayList<>();
+    private PaymentProcessor processor;
+
+    @AfterEach
+    void tearDown() {
+        open.countDown();
+        processor.stop();
+    }
+
+    @Test
+    void bulkheadCapsTheGatewayCallsInFlight() throws InterruptedException {
+        start(Duration.ofSeconds(10), 1, 100);
+        CountDownLatch done = new CountDownLatch(40);
+        for (long id = 1; id <= 40; id++) {
+            assertTrue(processor.submit(request(id), outcome -> {
+                outcomes.add(outcome);
+                done.countDown();
+            }));
+        }
+
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        assertEquals(MAX_CONCURRENT, inFlight.get());
+        assertEquals(40, processor.pending());
+        open.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(peak.get() <= MAX_CONCURRENT, "bulkhead let " + peak.get() + " calls through");
+        assertTrue(outcomes.stream().allMatch(outcome -> outcome.status() == PaymentStatus.AUTHORIZED));
+        assertEquals(0, processor.pending());
+    }
+
+    @Test
+    void timedOutCallsFailAfterTheirRetries() throws InterruptedException {
+        start(Duration.ofMillis(50), 2, 100);
+        CountDownLatch done = new CountDownLatch(MAX_CONCURRENT);
+        for (long id = 1; id <= MAX_CONCURRENT; id++) {
+            processor.submit(request(id), outcome -> {
+                outcomes.add(outcome);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (Outcome outcome : outcomes) {
+            assertEquals(PaymentStatus.FAILED, outcome.status());
+            assertEquals("Payment gateway timed out", outcome.failureReason());
+            assertEquals(2, outcome.attempts());
+        }
+    }
+
+    @Test
+    void paymentsPastMaxPendingAreRefused() {
+        start(Duration.ofSeconds(10), 1, 2);
+        assertTrue(processor.submit(request(1L), outcomes::add));
+        assertTrue(processor.submit(request(2L), outcomes::add));
+        assertTrue(processor.isSaturated());
+        assertFalse(processor.submit(request(3L), outcomes::add));
+        assertEquals(2, processor.pending());
+    }
+
+    // every call waits until the test opens the gateway, cancelled calls see the interrupt
+    private void start(Duration timeout, int maxAttempts, int maxPending) {
+        PaymentGateway gateway = request -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            entered.countDown();
+            try {
+                open.await();
+                return AuthorizationResult.approved("ref-" + request.paymentId());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+        processor = new PaymentProcessor(gateway);
+        ReflectionTestUtils.setField(processor, "timeout", timeout);
+        ReflectionTestUtils.setField(processor, "maxConcurrent", MAX_CONCURRENT);
+        ReflectionTestUtils.setField(processor, "bulkheadWait", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(processor, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(processor, "retryBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(processor, "maxPending", maxPending);
+        processor.start();
+    }
+
+    private static AuthorizationRequest request(Long paymentId) {
+        return new AuthorizationRequest(paymentId, paymentId, BigDecimal.TEN, "CARD");
+    }
+}
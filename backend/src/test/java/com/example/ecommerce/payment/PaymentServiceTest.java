@@ -0,0 +1,155 @@
+/*
+    Payment service test.
+    Each authorization of an order goes to the gateway under its own payment id: a declined or
+    failed payment is followed by a new attempt with a new id, a pending or authorized one is
+    returned as it is, and every attempt stays listed for the order. The payments table is an
+    in-memory fake behind the statements the service issues.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.example.ecommerce.dto.PaymentDto;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.payment.PaymentGateway.AuthorizationRequest;
+import com.example.ecommerce.payment.PaymentProcessor.Outcome;
+
+class PaymentServiceTest {
+
+    private static final long ORDER = 1L;
+    private static final long USER = 7L;
+
+    private final Map<Long, PaymentDto> table = new ConcurrentHashMap<>();
+    private final PaymentProcessor processor = mock(PaymentProcessor.class);
+    private final PaymentService payments = new PaymentService(new PaymentsTable(), processor);
+    private final List<AuthorizationRequest> sent = new ArrayList<>();
+    private final List<Consumer<Outcome>> callbacks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(processor.submit(any(), any())).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            callbacks.add(invocation.getArgument(1));
+            return true;
+        });
+    }
+
+    @Test
+    void declinedOrFailedPaymentIsRetriedUnderANewPaymentId() {
+        PaymentDto first = payments.startPayment(ORDER, BigDecimal.TEN, "card");
+        answer(0, PaymentStatus.DECLINED);
+        PaymentDto second = payments.startPayment(ORDER, BigDecimal.TEN, "card");
+        answer(1, PaymentStatus.FAILED);
+        PaymentDto third = payments.startPayment(ORDER, BigDecimal.TEN, "card");
+
+        assertEquals(List.of(1, 2, 3), List.of(first.getAttemptNumber(), second.getAttemptNumber(),
+                third.getAttemptNumber()));
+        assertEquals(3, sent.stream().map(AuthorizationRequest::paymentId).distinct().count());
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()),
+                sent.stream().map(AuthorizationRequest::paymentId).toList());
+
+        List<PaymentDto> attempts = payments.getOrderPayments(USER, ORDER);
+        assertEquals(List.of(PaymentStatus.DECLINED, PaymentStatus.FAILED, PaymentStatus.PENDING),
+                attempts.stream().map(PaymentDto::getStatus).toList());
+        assertEquals(third.getId(), payments.getOrderPayment(USER, ORDER).getId());
+    }
+
+    @Test
+    void pendingOrAuthorizedPaymentIsNotStartedAgain() {
+        PaymentDto first = payments.startPayment(ORDER, BigDecimal.TEN, "card");
+        assertEquals(first.getId(), payments.startPayment(ORDER, BigDecimal.TEN, "card").getId());
+        answer(0, PaymentStatus.AUTHORIZED);
+        PaymentDto again = payments.startPayment(ORDER, BigDecimal.TEN, "card");
+
+        assertEquals(first.getId(), again.getId());
+        assertEquals(PaymentStatus.AUTHORIZED, again.getStatus());
+        assertEquals(1, sent.size());
+        assertEquals(1, payments.getOrderPayments(USER, ORDER).size());
+    }
+
+    @Test
+    void otherOrdersKeepTheirOwnAttempts() {
+        PaymentDto first = payments.startPayment(ORDER, BigDecimal.TEN, "card");
+        answer(0, PaymentStatus.DECLINED);
+        PaymentDto other = payments.startPayment(ORDER + 1, BigDecimal.ONE, "card");
+
+        assertEquals(1, other.getAttemptNumber());
+        assertNotEquals(first.getId(), other.getId());
+        assertEquals(first.getId(), payments.getOrderPayment(USER, ORDER).getId());
+    }
+
+    // the gateway's answer for the nth payment sent, written back the way the flusher writes it
+    private void answer(int n, PaymentStatus status) {
+        callbacks.get(n).accept(new Outcome(status, null, null, 1));
+        payments.flush();
+    }
+
+    // payments rows by id, unique on order and attempt number like the table; ownership is not checked
+    private class PaymentsTable extends JdbcTemplate {
+
+        @Override
+        public synchronized int update(String sql, Object... args) {
+            Long orderId = (Long) args[4];
+            int attemptNumber = (Integer) args[5];
+            if (attempts(orderId).stream().anyMatch(payment -> payment.getAttemptNumber() == attemptNumber)) {
+                throw new DuplicateKeyException("Duplicate entry for key 'uk_payments_order_attempt'");
+            }
+            table.put((Long) args[0], new PaymentDto((Long) args[0], orderId, (BigDecimal) args[1],
+                    (String) args[2], PaymentStatus.valueOf((String) args[3]), attemptNumber, null, null, 0, null));
+            return 1;
+        }
+
+        @Override
+        public synchronized int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            for (Object[] args : batchArgs) {
+                PaymentDto payment = table.get((Long) args[5]);
+                if (payment.getStatus().name().equals(args[6])) {
+                    payment.setStatus(PaymentStatus.valueOf((String) args[0]));
+                }
+            }
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            List<PaymentDto> attempts = attempts((Long) args[0]);
+            if (sql.endsWith("desc limit 1")) {
+                return (List<T>) (attempts.isEmpty() ? List.of() : List.of(copy(attempts.get(attempts.size() - 1))));
+            }
+            return (List<T>) attempts.stream().map(this::copy).toList();
+        }
+
+        private List<PaymentDto> attempts(Long orderId) {
+            return table.values().stream().filter(payment -> payment.getOrderId().equals(orderId))
+                    .sorted(Comparator.comparingInt(PaymentDto::getAttemptNumber)).toList();
+        }
+
+        private PaymentDto copy(PaymentDto payment) {
+            return new PaymentDto(payment.getId(), payment.getOrderId(), payment.getAmount(), payment.getMethod(),
+                    payment.getStatus(), payment.getAttemptNumber(), null, null, 0, null);
+        }
+    }
+}
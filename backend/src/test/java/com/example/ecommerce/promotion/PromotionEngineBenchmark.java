@@ -0,0 +1,161 @@
+/*
+    Promotion engine benchmark.
+    A JMH benchmark of evaluating a 50 line basket against 5000 compiled promotions: rules on
+    products, on categories, on every product and behind a coupon. Evaluation has to stay in the
+    microseconds and allocate nothing, JMH's GC profiler reports the bytes allocated per evaluation.
+    Run with mvn test -Pbenchmark, which runs it in this JVM with short iterations; for numbers worth
+    quoting run the benchmark with forks and longer iterations. What the engine computes is covered by
+    PromotionEngineTest in the unit suite.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.promotion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import com.example.ecommerce.entity.Promotion;
+import com.example.ecommerce.enums.PromotionType;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromotionEngineBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int CATEGORIES = 200;
+    private static final int PRODUCT_RULES = 3_000;
+    private static final int CATEGORY_RULES = 1_500;
+    private static final int EVERYWHERE_RULES = 20;
+    private static final int COUPON_RULES = 480;
+    private static final int BASKET_LINES = 50;
+    private static final String COUPON = "SPRING10";
+
+    private static long nextId = 1;
+
+    private CompiledPromotions compiled;
+    private PromotionBasket basket;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < PRODUCT_RULES; i++) {
+            promotions.add(percentOff(random.nextInt(5, 40), (long) random.nextInt(PRODUCTS), null));
+        }
+        for (int i = 0; i < CATEGORY_RULES; i++) {
+            Promotion promotion = random.nextBoolean()
+                    ? amountOff("1.50", null, (long) random.nextInt(CATEGORIES))
+                    : buyGet(2, 1, null, (long) random.nextInt(CATEGORIES));
+            promotions.add(promotion);
+        }
+        for (int i = 0; i < EVERYWHERE_RULES; i++) {
+            Promotion promotion = percentOff(2, null, null);
+            promotion.setMinQuantity(random.nextInt(1, 10));
+            promotions.add(promotion);
+        }
+        for (int i = 0; i < COUPON_RULES; i++) {
+            Promotion promotion = percentOff(10, (long) random.nextInt(PRODUCTS), null);
+            promotion.setCode(i == 0 ? COUPON : "CODE" + i);
+            promotions.add(promotion);
+        }
+        compiled = CompiledPromotions.compile(promotions);
+
+        basket = new PromotionBasket();
+        for (int line = 0; line < BASKET_LINES; line++) {
+            basket.add(random.nextInt(PRODUCTS), random.nextInt(CATEGORIES), random.nextInt(1, 8),
+                    random.nextInt(99, 20_000));
+        }
+        now = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public long automaticPromotions() {
+        return compiled.apply(basket, null, now);
+    }
+
+    @Benchmark
+    public long withCoupon() {
+        return compiled.apply(basket, COUPON, now);
+    }
+
+    @Test
+    void evaluatesInMicrosecondsWithoutAllocating() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PromotionEngineBenchmark.class.getName() + "\\.")
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.milliseconds(500))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.milliseconds(500))
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertEquals(2, results.size());
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            double micros = result.getPrimaryResult().getScore();
+            double bytes = result.getSecondaryResults().get("gc.alloc.rate.norm").getScore();
+            System.out.printf("%s: %.2f us per basket, %.1f B allocated%n", benchmark, micros, bytes);
+            assertTrue(micros < 50, benchmark + " took " + micros + " us");
+            // a few bytes of measurement noise, one boxed value or array would be 16 or more
+            assertTrue(bytes < 8, benchmark + " allocated " + bytes + " B");
+        }
+    }
+
+    private static Promotion percentOff(int percent, Long productId, Long categoryId) {
+        Promotion promotion = promotion(PromotionType.PERCENT_OFF, productId, categoryId);
+        promotion.setPercentOff(BigDecimal.valueOf(percent));
+        return promotion;
+    }
+
+    private static Promotion amountOff(String amount, Long productId, Long categoryId) {
+        Promotion promotion = promotion(PromotionType.AMOUNT_OFF, productId, categoryId);
+        promotion.setAmountOff(new BigDecimal(amount));
+        return promotion;
+    }
+
+    private static Promotion buyGet(int buy, int get, Long productId, Long categoryId) {
+        Promotion promotion = promotion(PromotionType.BUY_X_GET_Y, productId, categoryId);
+        promotion.setBuyQuantity(buy);
+        promotion.setGetQuantity(get);
+        return promotion;
+    }
+
+    private static Promotion promotion(PromotionType type, Long productId, Long categoryId) {
+        Promotion promotion = new Promotion();
+        promotion.setId(nextId++);
+        promotion.setType(type);
+        promotion.setProductId(productId);
+        promotion.setCategoryId(categoryId);
+        return promotion;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+    Promotion engine test.
+    What a basket is discounted by: the single best promotion per line with no stacking, coupon
+    promotions only with their code, promotions outside their start and end applying to nothing, and
+    a discount never worth more than its line.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.promotion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ecommerce.entity.Promotion;
+import com.example.ecommerce.enums.PromotionType;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.repository.PromotionRepository;
+
+class PromotionEngineTest {
+
+    private static final String COUPON = "SPRING10";
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+    private static long nextId = 1;
+
+    @Test
+    void bestSinglePromotionWinsPerLine() {
+        Promotion tenPercent = percentOff(10, 1L, null);
+        Promotion buyTwoGetOne = buyGet(2, 1, null, 5L);
+        Promotion couponOnly = percentOff(50, 2L, null);
+        couponOnly.setCode(COUPON);
+        Promotion ended = percentOff(90, 1L, null);
+        ended.setEndsAt(LocalDateTime.now().minusDays(1));
+        CompiledPromotions rules = CompiledPromotions.compile(List.of(tenPercent, buyTwoGetOne, couponOnly, ended));
+
+        PromotionBasket lines = new PromotionBasket();
+        // 7 at 10.00: 10% is 7.00, buy 2 get 1 gives 2 free, 20.00
+        lines.add(1, 5, 7, 1_000);
+        // coupon only
+        lines.add(2, CompiledPromotions.NO_CATEGORY, 1, 4_000);
+        lines.add(3, CompiledPromotions.NO_CATEGORY, 1, 4_000);
+
+        long now = System.currentTimeMillis();
+        assertEquals(2_000, rules.apply(lines, null, now));
+        assertEquals(buyTwoGetOne.getId(), lines.promotionId(0));
+        assertEquals(0, lines.discountCents(1));
+
+        assertEquals(4_000, rules.apply(lines, COUPON, now));
+        assertEquals(2_000, lines.discountCents(1));
+        assertEquals(couponOnly.getId(), lines.promotionId(1));
+        assertEquals(0, lines.promotionId(2));
+    }
+
+    @Test
+    void productCategoryAndEverywherePromotionsDoNotStack() {
+        Promotion onProduct = percentOff(15, 1L, null);
+        Promotion onCategory = amountOff("2.00", null, 5L);
+        Promotion everywhere = percentOff(5, null, null);
+        CompiledPromotions rules = CompiledPromotions.compile(List.of(onProduct, onCategory, everywhere));
+
+        PromotionBasket lines = new PromotionBasket();
+        // 4 at 10.00: 15% is 6.00, 2.00 off each is 8.00, 5% is 2.00
+        lines.add(1, 5, 4, 1_000);
+        // only the everywhere rule matches
+        lines.add(2, 6, 1, 1_000);
+
+        assertEquals(850, rules.apply(lines, null, millis(NOW)));
+        assertEquals(800, lines.discountCents(0));
+        assertEquals(onCategory.getId(), lines.promotionId(0));
+        assertEquals(50, lines.discountCents(1));
+        assertEquals(everywhere.getId(), lines.promotionId(1));
+    }
+
+    @Test
+    void promotionsOnlyApplyBetweenTheirStartAndEnd() {
+        Promotion endsNow = percentOff(10, 1L, null);
+        endsNow.setEndsAt(NOW);
+        Promotion endsLater = percentOff(10, 2L, null);
+        endsLater.setEndsAt(NOW.plusMinutes(1));
+        Promotion startsNow = percentOff(10, 3L, null);
+        startsNow.setStartsAt(NOW);
+        Promotion startsLater = percentOff(10, 4L, null);
+        startsLater.setStartsAt(NOW.plusMinutes(1));
+        CompiledPromotions rules = CompiledPromotions.compile(List.of(endsNow, endsLater, startsNow, startsLater));
+
+        PromotionBasket lines = new PromotionBasket();
+        for (long productId = 1; productId <= 4; productId++) {
+            lines.add(productId, CompiledPromotions.NO_CATEGORY, 1, 1_000);
+        }
+
+        // the end is exclusive, the start inclusive
+        assertEquals(200, rules.apply(lines, null, millis(NOW)));
+        assertEquals(List.of(0L, 100L, 100L, 0L), discounts(lines));
+        assertEquals(200, rules.apply(lines, null, millis(NOW.plusMinutes(1))));
+        assertEquals(List.of(0L, 0L, 100L, 100L), discounts(lines));
+    }
+
+    @Test
+    void discountNeverExceedsTheLineAndNeedsItsMinimumQuantity() {
+        Promotion bigAmount = amountOff("15.00", 1L, null);
+        Promotion bulkOnly = percentOff(50, 2L, null);
+        bulkOnly.setMinQuantity(3);
+        CompiledPromotions rules = CompiledPromotions.compile(List.of(bigAmount, bulkOnly));
+
+        PromotionBasket lines = new PromotionBasket();
+        lines.add(1, CompiledPromotions.NO_CATEGORY, 2, 1_000);
+        lines.add(2, CompiledPromotions.NO_CATEGORY, 2, 1_000);
+
+        assertEquals(2_000, rules.apply(lines, null, millis(NOW)));
+        assertEquals(List.of(2_000L, 0L), discounts(lines));
+    }
+
+    @Test
+    void engineNormalizesCouponsAndRejectsUnknownOnes() {
+        Promotion couponOnly = percentOff(50, 1L, null);
+        couponOnly.setCode(COUPON);
+        PromotionRepository promotionRepo = mock(PromotionRepository.class);
+        when(promotionRepo.findNotEnded(any())).thenReturn(List.of(couponOnly));
+        PromotionEngine engine = new PromotionEngine(promotionRepo);
+        engine.reload();
+
+        assertNull(engine.coupon(" "));
+        assertEquals(COUPON, engine.coupon(" spring10 "));
+        assertThrows(InvalidCredentialsException.class, () -> engine.coupon("AUTUMN10"));
+
+        PromotionBasket basket = engine.basket();
+        basket.add(1, CompiledPromotions.NO_CATEGORY, 1, 1_000);
+        assertEquals(0, engine.apply(basket, null));
+        assertEquals(500, engine.apply(basket, engine.coupon("spring10")));
+    }
+
+    private static List<Long> discounts(PromotionBasket lines) {
+        List<Long> discounts = new ArrayList<>();
+        for (int line = 0; line < lines.size(); line++) {
+            discounts.add(lines.discountCents(line));
+        }
+        return discounts;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Promotion percentOff(int percent, Long productId, Long categoryId) {
+        Promotion promotion = promotion(PromotionType.PERCENT_OFF, productId, categoryId);
+        promotion.setPercentOff(BigDecimal.valueOf(percent));
+        return promotion;
+    }
+
+    private static Promotion amountOff(String amount, Long productId, Long categoryId) {
+        Promotion promotion = promotion(PromotionType.AMOUNT_OFF, productId, categoryId);
+        promotion.setAmountOff(new BigDecimal(amount));
+        return promotion;
+    }
+
+    private static Promotion buyGet(int buy, int get, Long productId, Long categoryId) {
+        Promotion promotion = promotion(PromotionType.BUY_X_GET_Y, productId, categoryId);
+        promotion.setBuyQuantity(buy);
+        promotion.setGetQuantity(get);
+        return promotion;
+    }
+
+    private static Promotion promotion(PromotionType type, Long productId, Long categoryId) {
+        Promotion promotion = new Promotion();
+        promotion.setId(nextId++);
+        promotion.setType(type);
+        promotion.setProductId(productId);
+        promotion.setCategoryId(categoryId);
+        return promotion;
+    }
+}
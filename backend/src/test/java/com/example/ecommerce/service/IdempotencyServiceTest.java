@@ -0,0 +1,245 @@
+/*
+    Idempotency service test.
+    idempotency_keys is an in-memory map behind a mocked repository that enforces the unique key, and
+    two service instances share it to stand in for two servers. Covers replay, also of an order whose
+    payment info carries server-set fields, a concurrent duplicate, a reused key, and the two ways an
+    outcome can be unknown: an owner that died while holding a claim, and a commit that failed. Neither
+    may ever run the request again.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import com.example.ecommerce.dto.OrderItemRequest;
+import com.example.ecommerce.dto.OrderRequest;
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.entity.IdempotencyRecord;
+import com.example.ecommerce.entity.Payment;
+import com.example.ecommerce.exception.ConflictException;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class IdempotencyServiceTest {
+
+    private static final String OPERATION = "order-create";
+
+    private final Map<String, IdempotencyRecord> table = new ConcurrentHashMap<>();
+    private final IdempotencyRecordRepository idempotencyRepo = mock(IdempotencyRecordRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final AtomicInteger runs = new AtomicInteger();
+    private final ExecutorService pool = Executors.newFixedThreadPool(3);
+    private final IdempotencyService service = service();
+    private final IdempotencyService otherInstance = service();
+
+    @BeforeEach
+    void setUp() {
+        when(idempotencyRepo.findByKey(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(table.get(invocation.<String>getArgument(0))).map(IdempotencyServiceTest::copy));
+        when(idempotencyRepo.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            if (table.putIfAbsent(record.getKey(), copy(record)) != null) {
+                throw new DataIntegrityViolationException("Duplicate entry for idempotency_key");
+            }
+            return record;
+        });
+        when(idempotencyRepo.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            table.put(record.getKey(), copy(record));
+            return record;
+        });
+        doAnswer(invocation -> table.remove(invocation.<IdempotencyRecord>getArgument(0).getKey()))
+                .when(idempotencyRepo).delete(any(IdempotencyRecord.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        service.stop();
+        otherInstance.stop();
+    }
+
+    @Test
+    void repeatGetsTheKeptResponseWithoutRunningAgain() {
+        ResponseEntity<?> first = service.execute(OPERATION, "k1", "order", placeOrder());
+        ResponseEntity<?> again = service.execute(OPERATION, "k1", "order", placeOrder());
+        // a second server only has the table to go by
+        ResponseEntity<?> elsewhere = otherInstance.execute(OPERATION, "k1", "order", placeOrder());
+
+        assertEquals(1, runs.get());
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(null, first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        for (ResponseEntity<?> replay : new ResponseEntity<?>[] { again, elsewhere }) {
+            assertEquals(200, replay.getStatusCode().value());
+            assertEquals("true", replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+            assertEquals("order 1", ((JsonNode) replay.getBody()).get("message").asText());
+        }
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRefused() {
+        service.execute(OPERATION, "k1", "order", placeOrder());
+
+        assertThrows(InvalidCredentialsException.class,
+                () -> service.execute(OPERATION, "k1", "another order", placeOrder()));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void retryWithPaymentInfoIsReplayed() throws InterruptedException {
+        service.execute(OPERATION, "k1", orderRequest("card").fingerprint(), placeOrder());
+        // a new Payment gets a new createdAt
+        Thread.sleep(5);
+        ResponseEntity<?> again = service.execute(OPERATION, "k1", orderRequest("card").fingerprint(), placeOrder());
+
+        assertEquals(1, runs.get());
+        assertEquals("true", again.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertThrows(InvalidCredentialsException.class,
+                () -> service.execute(OPERATION, "k1", orderRequest("paypal").fingerprint(), placeOrder()));
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheFirstRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<ResponseEntity<Response>> slow = () -> {
+            started.countDown();
+            try {
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return placeOrder().get();
+        };
+        Future<ResponseEntity<?>> first = pool.submit(() -> service.execute(OPERATION, "k1", "order", slow));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<ResponseEntity<?>> sameServer = pool.submit(() -> service.execute(OPERATION, "k1", "order", slow));
+        Future<ResponseEntity<?>> otherServer = pool.submit(
+                () -> otherInstance.execute(OPERATION, "k1", "order", slow));
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals(200, first.get(10, TimeUnit.SECONDS).getStatusCode().value());
+        assertEquals("true", sameServer.get(10, TimeUnit.SECONDS).getHeaders()
+                .getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", otherServer.get(10, TimeUnit.SECONDS).getHeaders()
+                .getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void claimLeftByADeadOwnerIsNeverRunAgain() {
+        // an hour old and still without a response: the owner crashed, whether its order exists is unknown
+        IdempotencyRecord orphan = new IdempotencyRecord();
+        orphan.setKey("anonymous:" + OPERATION + ":k1");
+        orphan.setRequestHash("unused");
+        orphan.setCreatedAt(LocalDateTime.now().minusHours(1));
+        table.put(orphan.getKey(), orphan);
+
+        assertThrows(ConflictException.class, () -> service.execute(OPERATION, "k1", "order", placeOrder()));
+        assertEquals(0, runs.get());
+        assertTrue(table.containsKey(orphan.getKey()));
+    }
+
+    @Test
+    void failedCommitKeepsTheClaim() {
+        // the connection drops during commit, the kept response is lost with whatever else was written
+        doAnswer(invocation -> {
+            table.values().forEach(record -> record.setResponseStatus(0));
+            throw new TransactionSystemException("Communications link failure during commit");
+        }).when(transactionManager).commit(any());
+
+        assertThrows(TransactionSystemException.class,
+                () -> service.execute(OPERATION, "k1", "order", placeOrder()));
+        assertThrows(ConflictException.class, () -> otherInstance.execute(OPERATION, "k1", "order", placeOrder()));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void requestThatFailedBeforeCommittingCanBeRetried() {
+        assertThrows(InvalidCredentialsException.class, () -> service.execute(OPERATION, "k1", "order", () -> {
+            runs.incrementAndGet();
+            throw new InvalidCredentialsException("Not enough stock for product: 1");
+        }));
+        assertTrue(table.isEmpty());
+
+        ResponseEntity<?> retry = service.execute(OPERATION, "k1", "order", placeOrder());
+        assertEquals(200, retry.getStatusCode().value());
+        assertEquals(2, runs.get());
+    }
+
+    private IdempotencyService service() {
+        IdempotencyService instance = new IdempotencyService(idempotencyRepo,
+                new ObjectMapper().findAndRegisterModules(), transactionManager);
+        ReflectionTestUtils.setField(instance, "cacheSize", 100);
+        ReflectionTestUtils.setField(instance, "waitTimeout", Duration.ofMillis(500));
+        ReflectionTestUtils.setField(instance, "retention", Duration.ofHours(24));
+        instance.start();
+        return instance;
+    }
+
+    private Supplier<ResponseEntity<Response>> placeOrder() {
+        return () -> ResponseEntity.ok(Response.builder()
+                .status(200)
+                .message("order " + runs.incrementAndGet())
+                .build());
+    }
+
+    private static OrderRequest orderRequest(String paymentMethod) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        Payment paymentInfo = new Payment();
+        paymentInfo.setMethod(paymentMethod);
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setItems(List.of(item));
+        orderRequest.setPaymentInfo(paymentInfo);
+        return orderRequest;
+    }
+
+    private static IdempotencyRecord copy(IdempotencyRecord record) {
+        IdempotencyRecord copy = new IdempotencyRecord();
+        copy.setId(record.getId());
+        copy.setKey(record.getKey());
+        copy.setRequestHash(record.getRequestHash());
+        copy.setResponseStatus(record.getResponseStatus());
+        copy.setResponseBody(record.getResponseBody());
+        copy.setCreatedAt(record.getCreatedAt());
+        return copy;
+    }
+}
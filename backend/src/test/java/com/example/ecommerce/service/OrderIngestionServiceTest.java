@@ -0,0 +1,266 @@
+/*
+    Order ingestion service test.
+    The writer thread runs for real against mocked repositories and JDBC. The first product lookup can
+    be held on a gate so that later submissions pile up in the queue, which makes the grouping
+    deterministic. Covers grouping, the retry of a failed group one order at a time, releasing the
+    stock of orders that fail or are refused, starting the payment of orders that came with payment
+    info, and who may read a status.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.ecommerce.dto.OrderIngestDto;
+import com.example.ecommerce.dto.OrderItemRequest;
+import com.example.ecommerce.entity.Payment;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.enums.IngestStatus;
+import com.example.ecommerce.exception.NotFoundException;
+import com.example.ecommerce.exception.TooManyRequestsException;
+import com.example.ecommerce.inventory.InventoryService;
+import com.example.ecommerce.inventory.StockLine;
+import com.example.ecommerce.payment.PaymentService;
+import com.example.ecommerce.promotion.PromotionBasket;
+import com.example.ecommerce.promotion.PromotionEngine;
+import com.example.ecommerce.repository.OrderItemRepository;
+import com.example.ecommerce.repository.ProductRepository;
+
+class OrderIngestionServiceTest {
+
+    private static final long USER = 7L;
+    private static final long UNPRICED = 3L;
+    // known and priced, but the order items insert rejects it
+    private static final long REJECTED = 99L;
+
+    private final ProductRepository productRepo = mock(ProductRepository.class);
+    private final OrderItemRepository orderItemRepo = mock(OrderItemRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PromotionEngine promotionEngine = mock(PromotionEngine.class);
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private final OrderIngestionService service = new OrderIngestionService(productRepo, orderItemRepo,
+            inventoryService, mock(SalesRollupService.class), jdbcTemplate, mock(PlatformTransactionManager.class),
+            promotionEngine, paymentService);
+
+    private final AtomicLong itemIds = new AtomicLong();
+    // sizes of the orders inserts, one per attempted commit
+    private final List<Integer> orderBatches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private CountDownLatch gate = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() {
+        when(promotionEngine.basket()).thenAnswer(invocation -> new PromotionBasket());
+        when(productRepo.findAllById(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            try {
+                assertTrue(gate.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                // stop() can land here, the writer only leaves its loop if the flag is kept
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+            List<Product> products = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                Product product = new Product();
+                product.setId(id);
+                product.setName("p" + id);
+                product.setPrice(id == UNPRICED ? null : new BigDecimal("2.50"));
+                products.add(product);
+            }
+            return products;
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            if (sql.startsWith("insert into orders")) {
+                orderBatches.add(rows.size());
+            } else if (rows.stream().anyMatch(row -> row[5].equals(REJECTED))) {
+                throw new DataIntegrityViolationException("Cannot add or update a child row");
+            }
+            return new int[rows.size()];
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gate.countDown();
+        service.stop();
+    }
+
+    @Test
+    void ordersWaitingInTheQueueAreWrittenAsOneGroup() throws InterruptedException {
+        start(100);
+        hold();
+        List<Long> ids = new ArrayList<>();
+        OrderIngestDto first = submit(USER, 1L);
+        assertEquals(IngestStatus.QUEUED, first.getStatus());
+        ids.add(first.getOrderId());
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            ids.add(submit(USER, 2L).getOrderId());
+        }
+        gate.countDown();
+
+        for (Long id : ids) {
+            assertEquals(IngestStatus.PERSISTED, settled(id).getStatus());
+        }
+        assertEquals(List.of(1, 4), orderBatches);
+        verify(inventoryService, never()).release(any());
+    }
+
+    @Test
+    void failedGroupIsRetriedOneOrderAtATime() throws InterruptedException {
+        start(100);
+        hold();
+        submit(USER, 1L);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        OrderIngestDto good = submit(USER, 1L);
+        StockLine[] rejectedLines = new StockLine[1];
+        OrderIngestDto rejected = submit(USER, REJECTED, rejectedLines);
+        OrderIngestDto alsoGood = submit(USER, 2L);
+        gate.countDown();
+
+        assertEquals(IngestStatus.PERSISTED, settled(good.getOrderId()).getStatus());
+        assertEquals(IngestStatus.PERSISTED, settled(alsoGood.getOrderId()).getStatus());
+        OrderIngestDto failed = settled(rejected.getOrderId());
+        assertEquals(IngestStatus.FAILED, failed.getStatus());
+        assertEquals("Order could not be stored", failed.getMessage());
+        // the group of three failed, then each order was tried on its own
+        assertEquals(List.of(1, 3, 1, 1, 1), orderBatches);
+        verify(inventoryService).release(List.of(rejectedLines[0]));
+    }
+
+    @Test
+    void unpricedProductFailsOnlyItsOrderAndReleasesItsStock() throws InterruptedException {
+        start(100);
+        hold();
+        OrderIngestDto good = submit(USER, 1L);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        StockLine[] badLines = new StockLine[1];
+        OrderIngestDto bad = submit(USER, UNPRICED, badLines);
+        OrderIngestDto alsoGood = submit(USER, 2L);
+        gate.countDown();
+
+        OrderIngestDto failed = settled(bad.getOrderId());
+        assertEquals(IngestStatus.FAILED, failed.getStatus());
+        assertEquals("Product Not Found: " + UNPRICED, failed.getMessage());
+        assertEquals(IngestStatus.PERSISTED, settled(good.getOrderId()).getStatus());
+        assertEquals(IngestStatus.PERSISTED, settled(alsoGood.getOrderId()).getStatus());
+        // the unpriced order is dropped from its group, the other one is still written with it
+        assertEquals(List.of(1, 1), orderBatches);
+        verify(inventoryService).release(List.of(badLines[0]));
+    }
+
+    @Test
+    void fullQueueIsRefusedAndReleasesTheHeldStock() throws InterruptedException {
+        start(1);
+        hold();
+        submit(USER, 1L);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        submit(USER, 1L);
+        StockLine[] refusedLines = new StockLine[1];
+
+        assertThrows(TooManyRequestsException.class, () -> submit(USER, 2L, refusedLines));
+        verify(inventoryService).release(List.of(refusedLines[0]));
+    }
+
+    @Test
+    void paymentInfoStartsThePaymentOnceTheOrderIsStored() throws InterruptedException {
+        start(100);
+        OrderItemRequest line = new OrderItemRequest();
+        line.setProductId(1L);
+        line.setQuantity(2);
+        Payment paymentInfo = new Payment();
+        paymentInfo.setMethod("PAYPAL");
+        Long paid = service.submit(USER, List.of(line), List.of(new StockLine(itemIds.incrementAndGet(), 1L, 2)),
+                null, paymentInfo).getOrderId();
+        Long unpaid = submit(USER, 2L).getOrderId();
+
+        assertEquals(IngestStatus.PERSISTED, settled(paid).getStatus());
+        assertEquals(IngestStatus.PERSISTED, settled(unpaid).getStatus());
+        // 2 at 2.50
+        verify(paymentService, timeout(5_000)).startPayment(paid, new BigDecimal("5.00"), "PAYPAL");
+        verify(paymentService, never()).startPayment(eq(unpaid), any(), any());
+    }
+
+    @Test
+    void statusIsOnlyShownToTheUserWhoPlacedTheOrder() throws InterruptedException {
+        start(100);
+        Long orderId = submit(USER, 1L).getOrderId();
+        assertEquals(IngestStatus.PERSISTED, settled(orderId).getStatus());
+
+        assertThrows(NotFoundException.class, () -> service.status(orderId, USER + 1));
+        // an order that is no longer tracked is looked up by its items' owner
+        when(orderItemRepo.existsByOrderIdAndUserId(42L, USER)).thenReturn(true);
+        assertEquals(IngestStatus.PERSISTED, service.status(42L, USER).getStatus());
+        assertThrows(NotFoundException.class, () -> service.status(42L, USER + 1));
+    }
+
+    private void start(int queueCapacity) {
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "groupSize", 500);
+        service.start();
+    }
+
+    // the next product lookup waits until the gate opens
+    private void hold() {
+        gate = new CountDownLatch(1);
+    }
+
+    private OrderIngestDto submit(Long userId, Long productId) {
+        return submit(userId, productId, new StockLine[1]);
+    }
+
+    private OrderIngestDto submit(Long userId, Long productId, StockLine[] stockLine) {
+        OrderItemRequest line = new OrderItemRequest();
+        line.setProductId(productId);
+        line.setQuantity(2);
+        stockLine[0] = new StockLine(itemIds.incrementAndGet(), productId, 2);
+        return service.submit(userId, List.of(line), List.of(stockLine[0]), null, null);
+    }
+
+    private OrderIngestDto settled(Long orderId) throws InterruptedException {
+        for (int i = 0; i < 1_000; i++) {
+            OrderIngestDto status = service.status(orderId, USER);
+            if (status.getStatus() != IngestStatus.QUEUED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("order " + orderId + " was never written");
+    }
+}
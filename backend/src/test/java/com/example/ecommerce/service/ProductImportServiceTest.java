@@ -0,0 +1,193 @@
+/*
+    Product import service test.
+    JDBC is mocked: the batch insert fails when a chunk holds a row the database would reject, and
+    the single row insert fails for that row only. Checks that such a chunk is retried row by row,
+    that every bad row is reported with its own line and cause, that the good rows still count as
+    imported, and that a job whose catalog reload fails ends as FAILED rather than staying RUNNING.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.ecommerce.dto.ImportErrorDto;
+import com.example.ecommerce.dto.ImportJobDto;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.enums.ImportFormat;
+import com.example.ecommerce.enums.ImportStatus;
+import com.example.ecommerce.index.CatalogIndexer;
+import com.example.ecommerce.index.CategorySnapshotIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ProductImportServiceTest {
+
+    private static final String REJECTED = "Duplicate";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CatalogIndexer catalogIndexer = mock(CatalogIndexer.class);
+    private final CategorySnapshotIndex categories = new CategorySnapshotIndex();
+    private final List<String> inserted = new ArrayList<>();
+    private ProductImportService service;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Phones");
+        categories.rebuild(List.of(category), List.of());
+
+        service = new ProductImportService(jdbcTemplate, mock(PlatformTransactionManager.class), new ObjectMapper(),
+                categories, catalogIndexer);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "chunkSize", 3);
+
+        // the database rejects any chunk holding a row named REJECTED, and that row on its own
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any())).thenAnswer(invocation -> {
+            List<Object[]> chunk = invocation.getArgument(1);
+            if (chunk.stream().anyMatch(params -> REJECTED.equals(params[0]))) {
+                throw new DataIntegrityViolationException("Duplicate entry");
+            }
+            ParameterizedPreparedStatementSetter<Object[]> setter = invocation.getArgument(3);
+            for (Object[] params : chunk) {
+                setter.setValues(mock(PreparedStatement.class), params);
+                inserted.add((String) params[0]);
+            }
+            return new int[0][];
+        });
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenAnswer(invocation -> {
+            PreparedStatement statement = mock(PreparedStatement.class);
+            invocation.<PreparedStatementSetter>getArgument(1).setValues(statement);
+            ArgumentCaptor<String> name = ArgumentCaptor.forClass(String.class);
+            verify(statement, times(3)).setString(anyInt(), name.capture());
+            if (REJECTED.equals(name.getAllValues().get(0))) {
+                throw new DataIntegrityViolationException("Duplicate entry '" + REJECTED + "'");
+            }
+            inserted.add(name.getAllValues().get(0));
+            return 1;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void rejectedChunkIsRetriedRowByRow() throws InterruptedException {
+        ImportJobDto job = run(ImportFormat.CSV, """
+                name,price,category
+                A,1.00,Phones
+                Duplicate,2.00,Phones
+                B,3.00,Phones
+                C,4.00,Phones
+                D,5.00,Phones
+                """);
+
+        assertEquals(ImportStatus.COMPLETED, job.getStatus());
+        assertEquals(5, job.getRowsRead());
+        assertEquals(4, job.getRowsImported());
+        assertEquals(1, job.getRowsFailed());
+        assertEquals(List.of(new ImportErrorDto(3, "Duplicate entry '" + REJECTED + "'")), job.getErrors());
+        // the first chunk one row at a time, the second one as a batch
+        assertEquals(List.of("A", "B", "C", "D"), inserted);
+        verify(jdbcTemplate, times(3)).update(anyString(), any(PreparedStatementSetter.class));
+        verify(catalogIndexer).reload();
+    }
+
+    @Test
+    void invalidRowsAreReportedWithTheirLines() throws InterruptedException {
+        ImportJobDto job = run(ImportFormat.NDJSON, """
+                {"name":"A","price":"1.00","categoryId":1}
+
+                {"name":"B","price":"abc","categoryId":1}
+                {"name":"Duplicate","price":"2.00","category":"phones"}
+                not json
+                {"name":"C","price":"3.00","category":"Tablets"}
+                {"price":"3.00","category":"Phones"}
+                """);
+
+        assertEquals(ImportStatus.COMPLETED, job.getStatus());
+        assertEquals(6, job.getRowsRead());
+        assertEquals(1, job.getRowsImported());
+        assertEquals(5, job.getRowsFailed());
+        assertEquals(List.of(3L, 5L, 6L, 7L, 4L), job.getErrors().stream().map(ImportErrorDto::getLine).toList());
+        assertEquals("Invalid price: abc", job.getErrors().get(0).getMessage());
+        assertEquals("Category Not Found: Tablets", job.getErrors().get(2).getMessage());
+        assertEquals("Name is required", job.getErrors().get(3).getMessage());
+        assertEquals(List.of("A"), inserted);
+    }
+
+    @Test
+    void nothingImportedSkipsTheReload() throws InterruptedException {
+        ImportJobDto job = run(ImportFormat.CSV, """
+                name,price,category
+                Duplicate,2.00,Phones
+                """);
+
+        assertEquals(0, job.getRowsImported());
+        assertEquals(1, job.getRowsFailed());
+        verify(catalogIndexer, never()).reload();
+        verify(jdbcTemplate).batchUpdate(eq("insert into products "
+                + "(id, name, description, image_url, price, category_id, created_at) values (?, ?, ?, ?, ?, ?, ?)"),
+                anyList(), eq(2), any());
+    }
+
+    @Test
+    void failedReloadFailsTheJob() throws InterruptedException {
+        doThrow(new IllegalStateException("Catalog unavailable")).when(catalogIndexer).reload();
+
+        ImportJobDto job = run(ImportFormat.CSV, """
+                name,price,category
+                A,1.00,Phones
+                """);
+
+        assertEquals(ImportStatus.FAILED, job.getStatus());
+        assertEquals(1, job.getRowsImported());
+    }
+
+    private ImportJobDto run(ImportFormat format, String content) throws InterruptedException {
+        ImportJobDto job = service.submit(new MockMultipartFile("file", "products", "text/plain",
+                content.getBytes(StandardCharsets.UTF_8)), format);
+        for (int i = 0; i < 500; i++) {
+            job = service.getJob(job.getId());
+            if (job.getStatus() == ImportStatus.COMPLETED || job.getStatus() == ImportStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        return fail("import did not finish");
+    }
+}
@@ -0,0 +1,108 @@
+/*
+    Sales rollup service test.
+    The rollup table is a mocked JdbcTemplate, so a flush is the batch it is handed. Covers deltas
+    waiting for the commit of the transaction they were recorded in, never counted for a rolled back
+    one, and dropped for the days a rebuild has recomputed.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.service.SalesRollupService.RollupLine;
+
+class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SalesRollupService rollups = new SalesRollupService(jdbcTemplate,
+            mock(PlatformTransactionManager.class));
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deltasWaitForTheOuterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        rollups.placed(List.of(line(2, "20.00"), line(1, "5.00")));
+        rollups.moved(line(1, "5.00"), OrderStatus.PENDING, OrderStatus.CONFIRMED);
+
+        rollups.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        finish(TransactionSynchronization.STATUS_COMMITTED);
+        rollups.flush();
+        // the moved line left PENDING for CONFIRMED
+        assertEquals(List.of(List.of(1L, 2L, "20.00"), List.of(1L, 1L, "5.00")), flushed());
+    }
+
+    @Test
+    void rolledBackOrdersAreNeverCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        rollups.placed(List.of(line(2, "20.00")));
+
+        finish(TransactionSynchronization.STATUS_ROLLED_BACK);
+        rollups.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void rebuildDropsThePendingDeltasOfItsRange() {
+        rollups.placed(List.of(line(2, "20.00"), new RollupLine(DAY.plusDays(1), 1L, 5L, 1, new BigDecimal("5.00"))));
+
+        rollups.rebuild(DAY.minusDays(1), DAY);
+        rollups.flush();
+        // the rebuilt day already has its order from order_items, only the next day is added
+        assertEquals(List.of(List.of(1L, 1L, "5.00")), flushed());
+    }
+
+    private static void finish(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    // item count, quantity and revenue of each flushed row, PENDING first
+    @SuppressWarnings("unchecked")
+    private List<List<Object>> flushed() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        return rows.getValue().stream()
+                .sorted((a, b) -> Integer.compare((Integer) a[3], (Integer) b[3]))
+                .map(row -> List.of(row[4], row[5], ((BigDecimal) row[6]).toPlainString()))
+                .toList();
+    }
+
+    private static RollupLine line(int quantity, String price) {
+        return new RollupLine(DAY, 1L, 5L, quantity, new BigDecimal(price));
+    }
+}
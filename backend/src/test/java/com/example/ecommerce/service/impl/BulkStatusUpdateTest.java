@@ -0,0 +1,165 @@
+/*
+    Bulk order item status update test.
+    The locked rows come from a mocked JDBC query. Each item must get the outcome the state machine and
+    the stock give it. The ledger, rollups and events may only see moves whose chunk committed, and a
+    chunk that rolls back must give back the holds it placed.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.ecommerce.dto.OrderStatusUpdateRequest;
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.dto.StatusUpdateResultDto;
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.StatusUpdateOutcome;
+import com.example.ecommerce.exception.InvalidCredentialsException;
+import com.example.ecommerce.inventory.InventoryService;
+import com.example.ecommerce.inventory.StockLine;
+import com.example.ecommerce.service.OrderEventService;
+import com.example.ecommerce.service.SalesRollupService;
+
+@ExtendWith(MockitoExtension.class)
+class BulkStatusUpdateTest {
+
+    private static final long SHORT_PRODUCT = 50L;
+
+    @Mock
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private SalesRollupService salesRollupService;
+    @Mock
+    private OrderEventService orderEventService;
+
+    @InjectMocks
+    private OrderItemServiceImpl orderItemService;
+
+    private final StockLine pending = new StockLine(1L, 10L, 2);
+    private final StockLine shortOfStock = new StockLine(5L, SHORT_PRODUCT, 1);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // 1 pending, 2 delivered, 3 missing, 4 already confirmed, 5 pending on a sold out product
+        List<ResultSet> rows = List.of(row(pending, OrderStatus.PENDING), row(new StockLine(2L, 20L, 1),
+                OrderStatus.DELIVERED), row(new StockLine(4L, 40L, 1), OrderStatus.CONFIRMED),
+                row(shortOfStock, OrderStatus.PENDING));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (ResultSet row : rows) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(namedParameterJdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void everyItemGetsTheOutcomeOfItsMove() {
+        when(inventoryService.holdForStatus(pending, OrderStatus.PENDING, OrderStatus.CONFIRMED)).thenReturn(true);
+        when(inventoryService.holdForStatus(shortOfStock, OrderStatus.PENDING, OrderStatus.CONFIRMED))
+                .thenThrow(new InvalidCredentialsException("Not enough stock for product: " + SHORT_PRODUCT));
+        when(namedParameterJdbcTemplate.update(anyString(), anyMap())).thenReturn(1);
+
+        Map<Long, StatusUpdateResultDto> results = confirm(1L, 2L, 3L, 4L, 5L);
+
+        assertEquals(StatusUpdateOutcome.UPDATED, results.get(1L).getOutcome());
+        assertEquals(OrderStatus.PENDING, results.get(1L).getPreviousStatus());
+        assertEquals(StatusUpdateOutcome.INVALID_TRANSITION, results.get(2L).getOutcome());
+        assertEquals(StatusUpdateOutcome.NOT_FOUND, results.get(3L).getOutcome());
+        assertEquals(StatusUpdateOutcome.UNCHANGED, results.get(4L).getOutcome());
+        assertEquals(StatusUpdateOutcome.OUT_OF_STOCK, results.get(5L).getOutcome());
+
+        // only the valid move is written, and the ledger settles it after the commit
+        InOrder order = inOrder(namedParameterJdbcTemplate, transactionManager, inventoryService);
+        order.verify(namedParameterJdbcTemplate).update(anyString(),
+                eq(Map.of("status", OrderStatus.CONFIRMED.ordinal(), "ids", List.of(1L), "allowed",
+                        List.of(OrderStatus.PENDING.ordinal()))));
+        order.verify(transactionManager).commit(any());
+        order.verify(inventoryService).statusChanged(pending, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        verify(inventoryService, never()).release(any());
+        verify(salesRollupService).moved(any(), eq(OrderStatus.PENDING), eq(OrderStatus.CONFIRMED));
+        verify(orderEventService).publish(eq(7L), any());
+    }
+
+    @Test
+    void rolledBackChunkChangesNothingAndGivesItsHoldsBack() {
+        when(inventoryService.holdForStatus(pending, OrderStatus.PENDING, OrderStatus.CONFIRMED)).thenReturn(true);
+        when(namedParameterJdbcTemplate.update(anyString(), anyMap()))
+                .thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+
+        Map<Long, StatusUpdateResultDto> results = confirm(1L, 2L, 3L);
+
+        assertEquals(StatusUpdateOutcome.FAILED, results.get(1L).getOutcome());
+        // refused moves keep their own outcome, nothing was written for them either way
+        assertEquals(StatusUpdateOutcome.INVALID_TRANSITION, results.get(2L).getOutcome());
+        assertEquals(StatusUpdateOutcome.NOT_FOUND, results.get(3L).getOutcome());
+        verify(transactionManager).rollback(any());
+        verify(inventoryService).release(List.of(pending));
+        verify(inventoryService, never()).statusChanged(any(), any(), any());
+        verifyNoInteractions(salesRollupService, orderEventService);
+    }
+
+    private Map<Long, StatusUpdateResultDto> confirm(Long... ids) {
+        OrderStatusUpdateRequest request = new OrderStatusUpdateRequest();
+        request.setStatus(OrderStatus.CONFIRMED);
+        request.setOrderItemIds(List.of(ids));
+        Response response = orderItemService.bulkUpdateOrderItemStatus(request);
+        assertEquals(ids.length, response.getStatusUpdateList().size());
+        return response.getStatusUpdateList().stream()
+                .collect(Collectors.toMap(StatusUpdateResultDto::getOrderItemId, Function.identity()));
+    }
+
+    private static ResultSet row(StockLine line, OrderStatus status) throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(line.orderItemId());
+        when(row.getInt("status")).thenReturn(status.ordinal());
+        when(row.getObject("order_id", Long.class)).thenReturn(100L);
+        when(row.getObject("user_id", Long.class)).thenReturn(7L);
+        when(row.getLong("product_id")).thenReturn(line.productId());
+        when(row.getInt("quantity")).thenReturn(line.quantity());
+        when(row.getLong("category_id")).thenReturn(3L);
+        when(row.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+        when(row.getBigDecimal("price")).thenReturn(BigDecimal.TEN);
+        return row;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+    Order placement test.
+    placeOrder has to send the same few statements for any basket size and price the order from the
+    catalog, never from the client. Each line keeps the category its product had when it was placed.
+    Only the collaborators placeOrder touches are mocked, the rest are
+    left null by @InjectMocks.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.ecommerce.dto.OrderItemRequest;
+import com.example.ecommerce.dto.OrderRequest;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.inventory.InventoryService;
+import com.example.ecommerce.promotion.PromotionBasket;
+import com.example.ecommerce.promotion.PromotionEngine;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.service.SalesRollupService;
+import com.example.ecommerce.service.SalesRollupService.RollupLine;
+import com.example.ecommerce.service.interf.UserService;
+
+@ExtendWith(MockitoExtension.class)
+class OrderPlacementTest {
+
+    private static final int[] BASKET_SIZES = { 1, 5, 20, 50, 200 };
+
+    @Mock
+    private OrderRepository orderRepo;
+    @Mock
+    private ProductRepository productRepo;
+    @Mock
+    private UserService userService;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private SalesRollupService salesRollupService;
+    @Mock
+    private PromotionEngine promotionEngine;
+
+    @InjectMocks
+    private OrderItemServiceImpl orderItemService;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(7L);
+        when(userService.getLoginUser()).thenReturn(user);
+        when(productRepo.findAllById(any())).thenAnswer(invocation -> {
+            List<Product> products = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                Product product = new Product();
+                product.setId(id);
+                product.setPrice(BigDecimal.valueOf(id).add(new BigDecimal("0.99")));
+                Category category = new Category();
+                category.setId(id * 10);
+                product.setCategory(category);
+                products.add(product);
+            }
+            return products;
+        });
+        when(orderRepo.saveAndFlush(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[0]);
+        when(promotionEngine.basket()).thenReturn(new PromotionBasket());
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithBasketSize() {
+        for (int size : BASKET_SIZES) {
+            clearInvocations(productRepo, orderRepo, jdbcTemplate);
+            orderItemService.placeOrder(basket(size));
+
+            verify(productRepo, times(1)).findAllById(any());
+            verify(orderRepo, times(1)).saveAndFlush(any(Order.class));
+            verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        }
+    }
+
+    @Test
+    void totalIsComputedFromCatalogPrices() {
+        OrderRequest request = basket(3);
+        request.setTotalPrice(new BigDecimal("0.01"));
+        orderItemService.placeOrder(request);
+
+        ArgumentCaptor<Order> order = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepo).saveAndFlush(order.capture());
+        // products 1..3 at id + 0.99, quantity id
+        assertEquals(0, new BigDecimal("1.99").add(new BigDecimal("5.98")).add(new BigDecimal("11.97"))
+                .compareTo(order.getValue().getTotalPrice()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void linesSnapshotTheProductCategory() {
+        orderItemService.placeOrder(basket(2));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(List.of(10L, 20L), rows.getValue().stream().map(row -> row[11]).toList());
+        ArgumentCaptor<List<RollupLine>> rollupLines = ArgumentCaptor.forClass(List.class);
+        verify(salesRollupService).placed(rollupLines.capture());
+        assertEquals(List.of(10L, 20L), rollupLines.getValue().stream().map(RollupLine::categoryId).toList());
+    }
+
+    private static OrderRequest basket(int size) {
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            OrderItemRequest item = new OrderItemRequest();
+            item.setProductId(id);
+            item.setQuantity((int) id);
+            items.add(item);
+        }
+        OrderRequest request = new OrderRequest();
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+    Product keyset paging test.
+    The repository is mocked as a table of named and unnamed products. Walking the name order page by
+    page must list every product once, the unnamed ones last in id order, also when a page ends on one.
+
+    @author teshan_kalhara
+    @create 10/18/2026
+    @update 10/18/2026
+*/
+package com.example.ecommerce.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.Response;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.enums.ProductSort;
+import com.example.ecommerce.mapper.EntityDtoMapper;
+import com.example.ecommerce.repository.ProductRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ProductPagingTest {
+
+    private final List<Product> table = List.of(product(1L, "Phone"), product(2L, null), product(3L, "Cable"),
+            product(4L, ""), product(5L, null), product(6L, "Phone"));
+
+    @Mock
+    private ProductRepository productRepo;
+    @Spy
+    private EntityDtoMapper entityDtoMapper;
+
+    @InjectMocks
+    private ProductServiceImpl productService;
+
+    @BeforeEach
+    void setUp() {
+        Comparator<Product> byName = Comparator.comparing(Product::getName).thenComparing(Product::getId);
+        lenient().when(productRepo.findByNameAsc(any())).thenAnswer(invocation -> limit(
+                named().sorted(byName), invocation.getArgument(0)));
+        lenient().when(productRepo.findByNameAscAfter(anyString(), anyLong(), any())).thenAnswer(invocation -> {
+            Product after = product(invocation.getArgument(1), invocation.getArgument(0));
+            return limit(named().filter(product -> byName.compare(product, after) > 0).sorted(byName),
+                    invocation.getArgument(2));
+        });
+        lenient().when(productRepo.findUnnamedAfter(anyLong(), any())).thenAnswer(invocation -> limit(
+                table.stream().filter(product -> product.getName() == null || product.getName().isEmpty())
+                        .filter(product -> product.getId() > invocation.<Long>getArgument(0)),
+                invocation.getArgument(1)));
+    }
+
+    @Test
+    void namePagesListUnnamedProductsLastWithoutSkippingAny() {
+        for (int size = 1; size <= table.size(); size++) {
+            List<Long> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                Response page = productService.getProductsPage(cursor, size, ProductSort.NAME_ASC);
+                page.getProductList().stream().map(ProductDto::getId).forEach(ids::add);
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertEquals(List.of(3L, 1L, 6L, 2L, 4L, 5L), ids, "page size " + size);
+        }
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        Response page = productService.getProductsPage(null, table.size(), ProductSort.NAME_ASC);
+
+        assertEquals(table.size(), page.getProductList().size());
+        assertNull(page.getNextCursor());
+    }
+
+    private Stream<Product> named() {
+        return table.stream().filter(product -> product.getName() != null && !product.getName().isEmpty());
+    }
+
+    private static List<Product> limit(Stream<Product> products, Pageable limit) {
+        return products.limit(limit.getPageSize()).toList();
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
@@ -5,7 +5,7 @@
  * 
  * @author teshan_kalhara
  * @created 6/14/2025
- * @updated 6/24/2025
+ * @updated 10/18/2026
  */
 
 import React, { useState, useEffect, useRef } from "react"
@@ -46,16 +46,17 @@ const AdminOrdersPage = () => {
     const fetchOrders = async () => {
         try {
             let response
+            // the server pages the orders, only the current page is loaded
             if (searchStatus) {
-                response = await ApiService.getAllOrderItemsByStatus(searchStatus)
+                response = await ApiService.getAllOrderItemsByStatus(searchStatus, currentPage - 1, itemsPerPage)
             } else {
-                response = await ApiService.getAllOrders()
+                response = await ApiService.getAllOrders(currentPage - 1, itemsPerPage)
             }
             const orderList = response.orderItemList || []
 
-            setTotalPages(Math.ceil(orderList.length / itemsPerPage))
+            setTotalPages(response.totalPage || 0)
             setOrders(orderList)
-            setFilteredOrders(orderList.slice((currentPage - 1) * itemsPerPage, currentPage * itemsPerPage))
+            setFilteredOrders(statusFilter ? orderList.filter((order) => order.status === statusFilter) : orderList)
             setError(null)
         } catch (error) {
             const msg = error.response?.data?.message || error.message || "Unable to fetch orders"
@@ -78,12 +79,9 @@ const AdminOrdersPage = () => {
         setCurrentPage(1)
 
         if (filterValue) {
-            const filtered = orders.filter((order) => order.status === filterValue)
-            setFilteredOrders(filtered.slice(0, itemsPerPage))
-            setTotalPages(Math.ceil(filtered.length / itemsPerPage))
+            setFilteredOrders(orders.filter((order) => order.status === filterValue))
         } else {
-            setFilteredOrders(orders.slice(0, itemsPerPage))
-            setTotalPages(Math.ceil(orders.length / itemsPerPage))
+            setFilteredOrders(orders)
         }
     }
 
@@ -5,9 +5,10 @@
  * 
  * @author teshan_kalhara
  * @created 5/5/2025
- * @updated 5/5/2025
+ * @updated 10/18/2026
  */
 import React, {createContext, useReducer, useContext, useEffect} from "react"
+import ApiService from "../../services/ApiService"
 
 const CartContext = createContext()
 
@@ -77,6 +78,13 @@ export const CartProvider = ({children}) => {
         localStorage.setItem('cart', JSON.stringify(state.cart))
     }, [state.cart])
 
+    // keep the server cart in step for logged in users, the local cart still works if this fails
+    useEffect(() =>{
+        if (!ApiService.isAuthenticated()) return
+        const items = state.cart.map(item => ({productId: item.id, quantity: item.quantity}))
+        ApiService.replaceCart(items).catch(() => {})
+    }, [state.cart])
+
     return (
         <CartContext.Provider value={{cart: state.cart, dispatch}}>
             {children}
@@ -5,7 +5,7 @@
  * 
  * @author teshan_kalhara
  * @created 5/26/2025
- * @updated 6/24/2025
+ * @updated 10/18/2026
  */
 import React from "react"
 import { useNavigate } from "react-router-dom"
@@ -52,13 +52,10 @@ const CartPage = () => {
       quantity: item.quantity,
     }))
 
-    const orderRequest = {
-      totalPrice,
-      items: orderItems,
-    }
-
     try {
-      const response = await ApiService.createOrder(orderRequest)
+      // the server cart is priced on the server, bring it in line with this one and order it
+      await ApiService.replaceCart(orderItems)
+      const response = await ApiService.checkoutCart()
       toast.success(response.message || "Order placed successfully!")
 
       if (response.status === 200) {
@@ -27,15 +27,9 @@ const CategoryProductsPage = () => {
 
     const fetchProducts = async () => {
         try {
-            const response = await ApiService.getAllProductsByCategoryId(categoryId);
-            const allProducts = response.productList || [];
-            setTotalPages(Math.ceil(allProducts.length / itemsPerPage));
-            setProducts(
-                allProducts.slice(
-                    (currentPage - 1) * itemsPerPage,
-                    currentPage * itemsPerPage
-                )
-            );
+            const response = await ApiService.getAllProductsByCategoryId(categoryId, currentPage - 1, itemsPerPage);
+            setTotalPages(response.totalPage || 0);
+            setProducts(response.productList || []);
         } catch (error) {
             setError(
                 error.response?.data?.message ||
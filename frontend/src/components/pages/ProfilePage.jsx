@@ -5,13 +5,12 @@
  * 
  * @author teshan_kalhara
  * @created 5/23/2025
- * @updated 5/26/2025
+ * @updated 10/18/2026
  * 
  */
 import React, { useState, useEffect } from "react"
 import { useNavigate } from "react-router-dom"
 import ApiService from "../../services/ApiService"
-import Pagination from "../common/Pagination"
 import {
   Home,
   Building,
@@ -23,12 +22,26 @@ import {
 const ProfilePage = () => {
   const [userInfo, setUserInfo] = useState(null)
   const [error, setError] = useState(null)
-  const [currentPage, setCurrentPage] = useState(1)
+  const [orders, setOrders] = useState([])
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingOrders, setLoadingOrders] = useState(false)
   const itemsPerPage = 5
   const navigate = useNavigate()
 
   useEffect(() => {
     fetchUserInfo()
+    fetchOrders(null)
+  }, [])
+
+  // status changes are pushed by the server, the order history is not reloaded
+  useEffect(() => {
+    const controller = new AbortController()
+    ApiService.subscribeOrderEvents((event) => {
+      setOrders((current) => current.map((item) =>
+        item.id === event.orderItemId ? { ...item, status: event.status } : item
+      ))
+    }, controller.signal)
+    return () => controller.abort()
   }, [])
 
   const fetchUserInfo = async () => {
@@ -40,6 +53,20 @@ const ProfilePage = () => {
     }
   }
 
+  // order history is fetched a page at a time, separately from the profile
+  const fetchOrders = async (after) => {
+    setLoadingOrders(true)
+    try {
+      const response = await ApiService.getOrderHistory(after, itemsPerPage)
+      setOrders((current) => after ? [...current, ...(response.orderItemList || [])] : (response.orderItemList || []))
+      setNextCursor(response.nextCursor || null)
+    } catch (error) {
+      setError(error.response?.data?.message || error.message || "Unable to fetch order history")
+    } finally {
+      setLoadingOrders(false)
+    }
+  }
+
   const handleAddressClick = () => {
     navigate(userInfo.address ? "/edit-address" : "/add-address")
   }
@@ -55,13 +82,6 @@ const ProfilePage = () => {
       </div>
     )
 
-  const orderItemList = userInfo.orderItemList || []
-  const totalPages = Math.ceil(orderItemList.length / itemsPerPage)
-  const paginatedOrders = orderItemList.slice(
-    (currentPage - 1) * itemsPerPage,
-    currentPage * itemsPerPage
-  )
-
   return (
     <div className="min-h-screen bg-gradient-to-br from-white via-gray-100 to-gray-200 py-12 px-6 text-gray-900">
       <div
@@ -173,9 +193,9 @@ const ProfilePage = () => {
                 Order History
               </h3>
 
-              {paginatedOrders.length > 0 ? (
+              {orders.length > 0 ? (
                 <ul className="space-y-8">
-                  {paginatedOrders.map((order) => (
+                  {orders.map((order) => (
                     <li
                       key={order.id}
                       className="
@@ -192,7 +212,7 @@ const ProfilePage = () => {
                       />
                       <div className="flex-1">
                         <p className="font-semibold text-gray-800 mb-2 select-text break-words text-xl">
-                          {order.product.name}
+                          {order.product?.name}
                         </p>
                         <p className="text-gray-700 select-none text-sm">Status: {order.status}</p>
                         <p className="text-gray-700 select-none text-sm">Quantity: {order.quantity}</p>
@@ -207,13 +227,15 @@ const ProfilePage = () => {
                 <p className="text-gray-600 italic select-none text-center">No orders found.</p>
               )}
 
-              {totalPages > 1 && (
+              {nextCursor && (
                 <div className="mt-10 flex justify-center">
-                  <Pagination
-                    currentPage={currentPage}
-                    totalPages={totalPages}
-                    onPageChange={(page) => setCurrentPage(page)}
-                  />
+                  <button
+                    onClick={() => fetchOrders(nextCursor)}
+                    disabled={loadingOrders}
+                    className="px-6 py-3 rounded-2xl bg-white/20 backdrop-blur-lg border border-white/30 text-gray-900 font-semibold text-sm shadow-md transition hover:bg-white/30 hover:border-white/50 hover:shadow-xl active:scale-95 disabled:opacity-50"
+                  >
+                    {loadingOrders ? "Loading..." : "Load more"}
+                  </button>
                 </div>
               )}
             </section>
@@ -5,7 +5,7 @@
  * 
  * @author teshan_kalhara
  * @created 5/5/2025
- * @updated 5/5/2025
+ * @updated 10/18/2026
  */
 import axios from "axios"
 
@@ -38,6 +38,47 @@ export default class ApiService {
         return response.data
     }
 
+    // newest first, pass the previous page's nextCursor as after to continue
+    static async getOrderHistory(after = null, size = 20) {
+        const response = await axios.get(`${this.BASE_URL}/user/order-history`, {
+            headers: this.getHeader(),
+            params: { size, ...(after ? { after } : {}) }
+        })
+        return response.data
+    }
+
+    // server-sent events need the bearer header, so the stream is read with fetch instead of EventSource;
+    // onEvent gets each order status change, and the stream reconnects until the signal aborts it
+    static async subscribeOrderEvents(onEvent, signal) {
+        while (!signal.aborted) {
+            try {
+                const response = await fetch(`${this.BASE_URL}/user/order-events`, {
+                    headers: { Authorization: this.getHeader().Authorization, Accept: "text/event-stream" },
+                    signal
+                })
+                if (response.ok) {
+                    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader()
+                    let buffer = ""
+                    for (;;) {
+                        const { value, done } = await reader.read()
+                        if (done) break
+                        buffer += value
+                        const frames = buffer.split("\n\n")
+                        buffer = frames.pop()
+                        for (const frame of frames) {
+                            const data = frame.split("\n").filter(line => line.startsWith("data:"))
+                                .map(line => line.slice(5)).join("\n")
+                            if (data) onEvent(JSON.parse(data))
+                        }
+                    }
+                }
+            } catch (error) {
+                if (signal.aborted) return
+            }
+            await new Promise(resolve => setTimeout(resolve, 3000))
+        }
+    }
+
     /**PRODUCT ENDPOINT */
     static async addProduct(formData) {
         const response = await axios.post(`${this.BASE_URL}/product/create`, formData, {
@@ -71,8 +112,10 @@ export default class ApiService {
         return response.data
     }
 
-    static async getAllProductsByCategoryId(categoryId) {
-        const response = await axios.get(`${this.BASE_URL}/product/get-by-category-id/${categoryId}`)
+    static async getAllProductsByCategoryId(categoryId, page = 0, size = 20) {
+        const response = await axios.get(`${this.BASE_URL}/product/get-by-category-id/${categoryId}`, {
+            params: { page, size }
+        })
         return response.data
     }
 
@@ -120,6 +163,29 @@ export default class ApiService {
         return response.data
     }
 
+    /**CART */
+    static async getCart() {
+        const response = await axios.get(`${this.BASE_URL}/cart`, {
+            headers: this.getHeader()
+        })
+        return response.data
+    }
+
+    // items as [{productId, quantity}], replaces whatever the server cart holds
+    static async replaceCart(items) {
+        const response = await axios.put(`${this.BASE_URL}/cart`, {items}, {
+            headers: this.getHeader()
+        })
+        return response.data
+    }
+
+    static async checkoutCart() {
+        const response = await axios.post(`${this.BASE_URL}/cart/checkout`, {}, {
+            headers: this.getHeader()
+        })
+        return response.data
+    }
+
     /**ORDEDR */
     static async createOrder(body) {
         const response = await axios.post(`${this.BASE_URL}/order/create`, body, {
@@ -128,9 +194,10 @@ export default class ApiService {
         return response.data
     }
 
-    static async getAllOrders() {
+    static async getAllOrders(page = 0, size = 50) {
         const response = await axios.get(`${this.BASE_URL}/order/filter`, {
-            headers: this.getHeader()
+            headers: this.getHeader(),
+            params: {page, size}
         })
         return response.data
     }
@@ -143,10 +210,10 @@ export default class ApiService {
         return response.data
     }
 
-    static async getAllOrderItemsByStatus(status) {
+    static async getAllOrderItemsByStatus(status, page = 0, size = 50) {
         const response = await axios.get(`${this.BASE_URL}/order/filter`, {
             headers: this.getHeader(),
-            params: {status}
+            params: {status, page, size}
         })
         return response.data
     }